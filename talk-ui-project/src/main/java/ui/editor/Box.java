@@ -4,7 +4,7 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 
-import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.ArrayConstraint;
 import ui.toolkit.graphics.object.FilledRect;
 import ui.toolkit.graphics.object.Text;
 import ui.toolkit.graphics.object.selectable.SelectableOutlineRect;
@@ -26,31 +26,21 @@ public class Box extends SelectableOutlineRect {
         this.label.setColor(color);
         this.type = type;
 
-        // constraints for fill position
-        fill.setX(new Constraint<Integer>(this.useX()) {
-            public Integer getValue() {
-                return getX();
+        // positions of fill and label, computed by a single node
+        ArrayConstraint<Integer> positions = new ArrayConstraint<Integer>(
+            this.useX(), this.useY(), this.useWidth()
+        ) {
+            public Integer[] getValue() {
+                return new Integer[] {
+                    getX(), getY(),
+                    getX() + (getWidth() - label.getWidth()) / 2, getY() + label.getHeight()
+                };
             }
-        });
-
-        fill.setY(new Constraint<Integer>(this.useY()) {
-            public Integer getValue() {
-                return getY();
-            }
-        });
-
-        // constraints for label position
-        label.setX(new Constraint<Integer>(this.useX(), this.useWidth()) {
-            public Integer getValue() {
-                return getX() + (getWidth() - label.getWidth()) / 2;
-            }
-        });
-
-        label.setY(new Constraint<Integer>(this.useY()) {
-            public Integer getValue() {
-                return getY() + label.getHeight();
-            }
-        });
+        };
+        fill.setX(positions.element(0));
+        fill.setY(positions.element(1));
+        label.setX(positions.element(2));
+        label.setY(positions.element(3));
     }
 
     public FilledRect getFill() {
@@ -73,4 +63,11 @@ public class Box extends SelectableOutlineRect {
             label.draw(graphics, clipShape);
         }
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        fill.dispose();
+        label.dispose();
+    }
 }
\ No newline at end of file
@@ -87,7 +87,7 @@ public class MyNodeEditor extends InteractiveWindowGroup {
                         public boolean stop(BehaviorEvent event) {
                             boolean eventConsumed = super.stop(event);
                             if (eventConsumed) {
-                                Box b = (Box) getSelection().get(0);
+                                Box b = (Box) getSelectionModel().getFirst();
                                 lineThicknessSlider.setValue(b.getLineThickness());
                                 for (GraphicalObject o : lineColors.getChildren()) {
                                     RadioButton rb = (RadioButton) o;
@@ -129,6 +129,7 @@ public class MyNodeEditor extends InteractiveWindowGroup {
                     for (GraphicalObject child : drawingPanel.getChildren()) {
                         if (((Box) child).isSelected()) {
                             drawingPanel.removeChild(child);
+                            child.dispose();
                         }
                     }
                 });
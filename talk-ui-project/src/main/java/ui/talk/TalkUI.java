@@ -17,15 +17,19 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import javax.imageio.ImageIO;
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 
 import ui.toolkit.behavior.Behavior;
 import ui.toolkit.behavior.BehaviorEvent;
 import ui.toolkit.behavior.ChoiceBehavior;
 import ui.toolkit.behavior.InteractiveWindowGroup;
+import ui.toolkit.constraint.Delivery;
+import ui.toolkit.constraint.Subscription;
 import ui.toolkit.graphics.group.Group;
 import ui.toolkit.graphics.group.LayoutGroup;
 import ui.toolkit.graphics.group.SimpleGroup;
@@ -49,6 +53,7 @@ public class TalkUI extends InteractiveWindowGroup {
     private static final int CONTROL_PLANE_HEIGHT = WINDOW_HEIGHT - BORDER_GAP * 2;
     private static final int VOICE_PLANE_HEIGHT = (CONTROL_PLANE_HEIGHT) / 2 - BORDER_GAP;
     private static final int PROPERTY_PLANE_HEIGHT = CONTROL_PLANE_HEIGHT - VOICE_PLANE_HEIGHT - BORDER_GAP;
+    private static final long CURSOR_POLL_MILLIS = 10;
 
     private Group controlPlane, drawingPanel, voiceControlPlane;
     private MicrophoneAnalyzer mic;
@@ -58,8 +63,8 @@ public class TalkUI extends InteractiveWindowGroup {
     private String sessionId;
     private String projectId;
 
-    Integer placeX = null;
-    Integer placeY = null;
+    volatile Integer placeX = null;
+    volatile Integer placeY = null;
 
     public PropertySheet propertySheet;
 
@@ -200,29 +205,45 @@ public class TalkUI extends InteractiveWindowGroup {
         }
 
         if (queryResult != null) {
-            GraphicalObject object = handler.handle(queryResult, drawingPanel);
-
+            QueryResult result = queryResult;
             Text detectedText = new Text(queryResult.getQueryText());
             Text responseText = new Text(queryResult.getFulfillmentText());
             detectedText.setColor(Color.BLUE);
             responseText.setColor(new Color(192, 0, 255)); // purple
-            voiceControlPlane.addChildToTop(detectedText);
-            voiceControlPlane.addChildToTop(responseText);
 
             placeX = placeY = null;
 
-            if (object != null) {
-                drawingPanel.addChild(object);
-                followCursor(object);
-            }
-            redraw();
+            GraphicalObject[] made = new GraphicalObject[1];
+            changeScene(() -> {
+                made[0] = handler.handle(result, drawingPanel);
+                voiceControlPlane.addChildToTop(detectedText);
+                voiceControlPlane.addChildToTop(responseText);
+                if (made[0] != null) {
+                    drawingPanel.addChild(made[0]);
+                    followCursor(made[0]);
+                }
+            });
+            GraphicalObject object = made[0];
 
             tts.speak(responseText.getText());
             System.out.println(placeX + " " + placeY);
 
             if (object != null) {
+                // only hand a move to the input side when the cursor moved
+                Point followed = getMousePosition();
                 while (placeX == null && placeY == null) {
-                    followCursor(object);
+                    Point cursor = getMousePosition();
+                    if (cursor != null && !cursor.equals(followed)) {
+                        followed = cursor;
+                        changeScene(() -> followCursor(object));
+                    } else {
+                        try {
+                            Thread.sleep(CURSOR_POLL_MILLIS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
                 }
             }
 
@@ -231,44 +252,43 @@ public class TalkUI extends InteractiveWindowGroup {
             if (needsSelection) {
 
                 System.out.println("Needs selection to continue...");
-                while (ChoiceBehavior.lastSelectedGlobalObject == null) {
-                    // take the specified interaction outcome
-                    // set it to the global map of object to outcome
-                    System.out.println("Waiting for selection...");
-                }
-                System.out.println("Selection made: " + ChoiceBehavior.lastSelectedGlobalObject);
-
-                List<Behavior> behaviors = ChoiceBehavior.lastSelectedGlobalObject.getGroup().getBehaviors();
-                Widget<?> root = null;
-                for (Behavior b: behaviors) {
-                    if (b instanceof ChoiceBehavior) {
-                        root = ((ChoiceBehavior) b).getRoot();
+                SelectableGraphicalObject selection = waitForSelection();
+                System.out.println("Selection made: " + selection);
+
+                // the callback runs on the input side: set it up there
+                changeScene(() -> {
+                    List<Behavior> behaviors = selection.getGroup().getBehaviors();
+                    Widget<?> root = null;
+                    for (Behavior b: behaviors) {
+                        if (b instanceof ChoiceBehavior) {
+                            root = ((ChoiceBehavior) b).getRoot();
+                        }
                     }
-                }
 
-                // reset the parent group's callback to trigger the outcome lookup
-                if (root != null) {
-                    root.setCallback(v -> {
-                        System.out.println(v + " was selected, looking for outcome.");
+                    // reset the parent group's callback to trigger the outcome lookup
+                    if (root != null) {
+                        root.setCallback(v -> {
+                            System.out.println(v + " was selected, looking for outcome.");
 
-                        InteractionOutcome outcome = outcomes.get(v);
-                        if (outcome != null) {
-                            outcome.apply();
-                        }
-                    });
-                }
+                            InteractionOutcome outcome = outcomes.get(v);
+                            if (outcome != null) {
+                                outcome.apply();
+                            }
+                        });
+                    }
 
-                // add the interaction outcome to the lookup list
-                if (interactionTarget == null) {
-                    interactionTarget = ChoiceBehavior.lastSelectedGlobalObject;
-                }
-                interactionOutcome.target = interactionTarget;
+                    // add the interaction outcome to the lookup list
+                    if (interactionTarget == null) {
+                        interactionTarget = selection;
+                    }
+                    interactionOutcome.target = interactionTarget;
 
-                outcomes.put(ChoiceBehavior.lastSelectedGlobalObject, interactionOutcome);
+                    outcomes.put(selection, interactionOutcome);
 
-                needsSelection = false;
-                interactionTarget = null;
-                interactionOutcome = null;
+                    needsSelection = false;
+                    interactionTarget = null;
+                    interactionOutcome = null;
+                });
             }
 
             placeX = placeY = null;
@@ -278,6 +298,41 @@ public class TalkUI extends InteractiveWindowGroup {
         }
     }
 
+    // Block the voice thread until some object has been selected
+    private SelectableGraphicalObject waitForSelection() {
+        CountDownLatch selectionMade = new CountDownLatch(1);
+        Subscription<SelectableGraphicalObject> subscription =
+            ChoiceBehavior.useLastSelected().subscribe(o -> selectionMade.countDown());
+        try {
+            while (ChoiceBehavior.getLastSelected() == null) {
+                System.out.println("Waiting for selection...");
+                selectionMade.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscription.cancel();
+        }
+        return ChoiceBehavior.getLastSelected();
+    }
+
+    // Make a change to the scene where input is dispatched, and wait for it
+    private void changeScene(Runnable change) {
+        CountDownLatch done = new CountDownLatch(1);
+        runOnInput(() -> {
+            try {
+                change.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void followCursor(GraphicalObject object) {
         Point cursor = getMousePosition();
 
@@ -328,6 +383,9 @@ public class TalkUI extends InteractiveWindowGroup {
         // TODO: should use radioPanel.getValue() to get active value, but somehow the
         // active value after init is null, though in the UI first radio button selected
         propertySheet = new PropertySheet(radioPanel.getChildren().get(0), this);
+        // selections may be made on an input thread: update the sheet on the Swing thread
+        ChoiceBehavior.useLastSelected().subscribe(o -> propertySheet.updatePropertySheet(o),
+                Delivery.latestOn(SwingUtilities::invokeLater));
         // radioPanel.setCallback(o -> {
         //     for (GraphicalObject child : radioPanel.getChildren()) {
         //         if (((RadioButton) child).isSelected()) {
@@ -27,6 +27,16 @@ public interface Behavior extends Comparable<Behavior> {
     public BehaviorEvent getCancelEvent();
     public Behavior setCancelEvent(BehaviorEvent cancelEvent);
 
+    // Events besides start, stop and cancel that check() handles (e.g. the wheel)
+    public default BehaviorEvent[] getOtherEvents() {
+        return new BehaviorEvent[0];
+    }
+
+    // Called on a running behavior with every event but mouse moves before
+    // it is routed, e.g. to apply a deferred change the event should see
+    public default void beforeRouting(BehaviorEvent event) {
+    }
+
     public boolean start(BehaviorEvent event);
     public boolean running(BehaviorEvent event);
     public boolean stop(BehaviorEvent event);
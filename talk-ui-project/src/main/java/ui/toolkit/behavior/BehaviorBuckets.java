@@ -0,0 +1,129 @@
+package ui.toolkit.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ui.toolkit.behavior.BehaviorDispatcher.Registration;
+
+class BehaviorBuckets {
+    /**
+     * BehaviorBuckets class: behaviors grouped by priority level
+     *
+     * Levels are kept in ascending priority order; inside a level, behaviors
+     * are linked in registration order, so adding and removing one is O(1)
+     * except when it brings a new priority level (there are only a few).
+     * Empty levels are kept, so bursts of adds and removes at one priority do
+     * not re-create them (and the level indexes a dispatch went through stay
+     * valid). The methods are synchronized on the buckets, so behaviors can
+     * be added and removed while a dispatch on another thread reads them.
+     */
+    static final class Level {
+        private final int priority;
+        private Node head, tail;
+
+        private Level(int priority) {
+            this.priority = priority;
+        }
+    }
+
+    static final class Node {
+        final Registration registration;
+        private final BehaviorBuckets owner;
+        private final Level level;
+        private Node prev, next;
+
+        private Node(Registration registration, BehaviorBuckets owner, Level level) {
+            this.registration = registration;
+            this.owner = owner;
+            this.level = level;
+        }
+
+        void remove() {
+            owner.remove(this);
+        }
+    }
+
+    private Level[] levels = new Level[2];
+    private int levelCount = 0;
+    private int size = 0;
+
+    synchronized Node add(Registration registration) {
+        Level level = levelFor(registration.priority);
+        Node node = new Node(registration, this, level);
+        if (level.tail == null) {
+            level.head = level.tail = node;
+        } else {
+            node.prev = level.tail;
+            level.tail.next = node;
+            level.tail = node;
+        }
+        size++;
+        return node;
+    }
+
+    private synchronized void remove(Node node) {
+        Level level = node.level;
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            level.head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            level.tail = node.prev;
+        }
+        node.prev = node.next = null;
+        size--;
+    }
+
+    private Level levelFor(int priority) {
+        int index = 0;
+        while (index < levelCount && levels[index].priority < priority) {
+            index++;
+        }
+        if (index < levelCount && levels[index].priority == priority) {
+            return levels[index];
+        }
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+        }
+        System.arraycopy(levels, index, levels, index + 1, levelCount - index);
+        levelCount++;
+        return levels[index] = new Level(priority);
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized int levelCount() {
+        return levelCount;
+    }
+
+    synchronized int priorityAt(int index) {
+        return levels[index].priority;
+    }
+
+    // Add the registrations of a level that were not collected in this dispatch yet
+    synchronized void collect(int index, int mark, long limit, List<Registration> candidates) {
+        for (Node node = levels[index].head; node != null; node = node.next) {
+            Registration registration = node.registration;
+            if (registration.mark != mark && registration.sequence < limit) {
+                registration.mark = mark;
+                candidates.add(registration);
+            }
+        }
+    }
+
+    synchronized List<Registration> toList() {
+        List<Registration> registrations = new ArrayList<>(size);
+        for (int i = 0; i < levelCount; i++) {
+            for (Node node = levels[i].head; node != null; node = node.next) {
+                registrations.add(node.registration);
+            }
+        }
+        return registrations;
+    }
+}
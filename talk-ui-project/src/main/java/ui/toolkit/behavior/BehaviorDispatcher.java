@@ -0,0 +1,300 @@
+package ui.toolkit.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BehaviorDispatcher {
+    /**
+     * BehaviorDispatcher class: deliver events only to the behaviors they concern
+     *
+     * Every behavior is indexed by the signatures of its start, stop and cancel
+     * events (and of its other events, if any), keyed by (id, key, modifier class) where the modifier class is
+     * either the exact modifiers or ANY_MODIFIER. Under each key, behaviors sit
+     * in priority buckets, so adding and removing one is O(1) and nothing is
+     * sorted at dispatch. Mouse moves and drags go to the running behaviors
+     * only. Candidates are offered the event one priority level at a time, and
+     * dispatch stops after the first level that consumes it.
+     *
+     * Behaviors may be added and removed from inside check(): a removed
+     * behavior gets nothing more, and an added one waits for the next event.
+     *
+     * Each group keeps the dispatcher of its own behaviors; EventRouter offers
+     * an event to the dispatchers of the groups under it.
+     *
+     * Signatures and priorities are read when a behavior is added: remove and
+     * add the behavior again after changing them.
+     *
+     * Behaviors may be added and removed from other threads than the one
+     * dispatching: the tables are guarded by the dispatcher and each bucket
+     * by itself. An event dispatched meanwhile may or may not see the
+     * change, and the events after it do.
+     */
+    private static final int ANY_MODIFIER_CLASS = 0x10;
+    private static final int MODIFIER_MASK = 0xf;
+
+    private final Map<Behavior, Registration> registrations = new LinkedHashMap<>();
+    private final Map<Long, BehaviorBuckets> table = new HashMap<>();
+    private final BehaviorBuckets running = new BehaviorBuckets();
+
+    // shared by all dispatchers, since an event is routed through several
+    private static final AtomicLong nextSequence = new AtomicLong();
+    private static final AtomicInteger dispatchCount = new AtomicInteger();
+
+    static class Registration {
+        final Behavior behavior;
+        final long sequence;
+        final int priority;
+        private final long[] keys;
+        private final BehaviorBuckets.Node[] nodes;
+        BehaviorBuckets.Node runningNode = null; // guarded by the registration
+        volatile boolean removed = false;
+        int mark = -1; // last dispatch this registration was collected in
+
+        private Registration(Behavior behavior, long[] keys) {
+            this.behavior = behavior;
+            this.sequence = nextSequence.getAndIncrement();
+            this.priority = behavior.getPriority();
+            this.keys = keys;
+            this.nodes = new BehaviorBuckets.Node[keys.length];
+        }
+
+        // Keep the registration in the running buckets, or take it out (null)
+        synchronized void setRunning(BehaviorBuckets running) {
+            if (running != null && runningNode == null && !removed) {
+                runningNode = running.add(this);
+            } else if (running == null && runningNode != null) {
+                runningNode.remove();
+                runningNode = null;
+            }
+        }
+    }
+
+    /**
+     * Registration
+     */
+    public synchronized boolean add(Behavior behavior) {
+        if (registrations.containsKey(behavior)) {
+            return false;
+        }
+        Registration registration = new Registration(behavior, keysOf(behavior));
+        registrations.put(behavior, registration);
+        for (int i = 0; i < registration.keys.length; i++) {
+            BehaviorBuckets buckets = table.get(registration.keys[i]);
+            if (buckets == null) {
+                buckets = new BehaviorBuckets();
+                table.put(registration.keys[i], buckets);
+            }
+            registration.nodes[i] = buckets.add(registration);
+        }
+        return true;
+    }
+
+    public synchronized boolean remove(Behavior behavior) {
+        Registration registration = registrations.remove(behavior);
+        if (registration == null) {
+            return false;
+        }
+        registration.removed = true;
+        for (int i = 0; i < registration.keys.length; i++) {
+            registration.nodes[i].remove();
+            if (table.get(registration.keys[i]).isEmpty()) {
+                table.remove(registration.keys[i]);
+            }
+        }
+        registration.setRunning(null);
+        return true;
+    }
+
+    public synchronized boolean contains(Behavior behavior) {
+        return registrations.containsKey(behavior);
+    }
+
+    public synchronized boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    public synchronized List<Behavior> getBehaviors() {
+        return new ArrayList<Behavior>(registrations.keySet());
+    }
+
+    // Behaviors started by events given to dispatch()
+    public List<Behavior> getRunningBehaviors() {
+        return behaviorsOf(running);
+    }
+
+    static List<Behavior> behaviorsOf(BehaviorBuckets buckets) {
+        List<Behavior> behaviors = new ArrayList<>();
+        for (Registration registration : buckets.toList()) {
+            behaviors.add(registration.behavior);
+        }
+        return behaviors;
+    }
+
+    /**
+     * Offer the event to the behaviors it concerns
+     *
+     * @return whether some behavior consumed the event
+     */
+    public boolean dispatch(BehaviorEvent event) {
+        Dispatch dispatch = new Dispatch(event);
+        if (event.isMouseMoved()) {
+            dispatch.addSource(running, 0);
+        } else if (!running.isEmpty()) {
+            for (Behavior behavior : behaviorsOf(running)) {
+                behavior.beforeRouting(event);
+            }
+        }
+        collect(dispatch, 0);
+        return dispatch.deliver(running);
+    }
+
+    /**
+     * Add the buckets whose signature matches the event to the dispatch
+     */
+    synchronized void collect(Dispatch dispatch, int depth) {
+        if (table.isEmpty()) {
+            return;
+        }
+        BehaviorEvent event = dispatch.event;
+        if (event.getModifiers() == BehaviorEvent.ANY_MODIFIER) {
+            for (int modifierClass = 0; modifierClass <= ANY_MODIFIER_CLASS; modifierClass++) {
+                dispatch.addSource(table.get(key(event.getID(), event.getKey(), modifierClass)), depth);
+            }
+        } else {
+            int modifierClass = event.getModifiers() & MODIFIER_MASK;
+            dispatch.addSource(table.get(key(event.getID(), event.getKey(), modifierClass)), depth);
+            dispatch.addSource(table.get(key(event.getID(), event.getKey(), ANY_MODIFIER_CLASS)), depth);
+        }
+    }
+
+    /**
+     * One event on its way to the behaviors: the priority buckets it was
+     * matched against, merged level by level when it is delivered
+     */
+    static final class Dispatch {
+        private final BehaviorEvent event;
+        private final int mark = dispatchCount.incrementAndGet();
+        private final long limit = nextSequence.get(); // later registrations wait for the next event
+        private BehaviorBuckets[] sources = new BehaviorBuckets[8];
+        private int[] depths = new int[8];
+        private int count = 0;
+
+        Dispatch(BehaviorEvent event) {
+            this.event = event;
+        }
+
+        void addSource(BehaviorBuckets buckets, int depth) {
+            if (buckets == null || buckets.isEmpty()) {
+                return;
+            }
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                depths = Arrays.copyOf(depths, count * 2);
+            }
+            // keep the innermost groups first (stable for equal depths)
+            int index = count++;
+            while (index > 0 && depths[index - 1] < depth) {
+                sources[index] = sources[index - 1];
+                depths[index] = depths[index - 1];
+                index--;
+            }
+            sources[index] = buckets;
+            depths[index] = depth;
+        }
+
+        /**
+         * Offer the event to each priority level in turn, innermost group
+         * first within a level, and keep the running behaviors up to date
+         *
+         * @return whether some behavior consumed the event
+         */
+        boolean deliver(BehaviorBuckets running) {
+            int[] levels = new int[count];
+            List<Registration> candidates = new ArrayList<>();
+            while (true) {
+                // the lowest priority level not delivered yet
+                boolean found = false;
+                int priority = 0;
+                for (int i = 0; i < count; i++) {
+                    if (levels[i] < sources[i].levelCount()) {
+                        int levelPriority = sources[i].priorityAt(levels[i]);
+                        if (!found || levelPriority < priority) {
+                            priority = levelPriority;
+                            found = true;
+                        }
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+
+                candidates.clear();
+                for (int i = 0; i < count; i++) {
+                    // levels inserted by behaviors added during dispatch shift the
+                    // indexes: skip what was already delivered, marks avoid repeats
+                    while (levels[i] < sources[i].levelCount() && sources[i].priorityAt(levels[i]) <= priority) {
+                        if (sources[i].priorityAt(levels[i]) == priority) {
+                            sources[i].collect(levels[i], mark, limit, candidates);
+                        }
+                        levels[i]++;
+                    }
+                }
+
+                boolean eventConsumed = false;
+                for (Registration registration : candidates) {
+                    if (registration.removed) { // removed by an earlier behavior
+                        continue;
+                    }
+                    eventConsumed = registration.behavior.check(event) || eventConsumed;
+                    if (registration.removed) {
+                        continue;
+                    }
+                    registration.setRunning(registration.behavior.getState() != Behavior.IDLE ? running : null);
+                }
+                if (eventConsumed) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Table keys
+     */
+    private static long[] keysOf(Behavior behavior) {
+        BehaviorEvent[] others = behavior.getOtherEvents();
+        BehaviorEvent[] signatures = Arrays.copyOf(new BehaviorEvent[] {
+            behavior.getStartEvent(), behavior.getStopEvent(), behavior.getCancelEvent()
+        }, 3 + others.length);
+        System.arraycopy(others, 0, signatures, 3, others.length);
+        long[] keys = new long[signatures.length];
+        int count = 0;
+        outer:
+        for (BehaviorEvent signature : signatures) {
+            if (signature == null) {
+                continue;
+            }
+            int modifierClass = (signature.getModifiers() == BehaviorEvent.ANY_MODIFIER)
+                    ? ANY_MODIFIER_CLASS
+                    : signature.getModifiers() & MODIFIER_MASK;
+            long key = key(signature.getID(), signature.getKey(), modifierClass);
+            for (int i = 0; i < count; i++) {
+                if (keys[i] == key) {
+                    continue outer;
+                }
+            }
+            keys[count++] = key;
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    private static long key(int id, int key, int modifierClass) {
+        return ((long) id << 40) | ((key & 0xffffffffL) << 8) | modifierClass;
+    }
+}
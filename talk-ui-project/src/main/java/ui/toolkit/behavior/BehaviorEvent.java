@@ -11,6 +11,10 @@ public class BehaviorEvent {
     private int id;
     private int x, y;
 
+    // earlier samples of a coalesced mouse move or drag, oldest first
+    private int[] historyX, historyY;
+    private int historySize = 0;
+
     /**
      * BehaviorEvent constructor
      * 
@@ -42,6 +46,16 @@ public class BehaviorEvent {
         this(modifiers, Character.toUpperCase(key), id, 0, 0);
     }
 
+    // Reuse this event for another input (see InputQueue)
+    void set(int modifiers, int key, int id, int x, int y) {
+        this.modifiers = modifiers;
+        this.key = key;
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.historySize = 0;
+    }
+
     /**
      * Getters
      */
@@ -65,6 +79,46 @@ public class BehaviorEvent {
         return this.y;
     }
 
+    /**
+     * Motion history: mouse moves and drags received within one frame are
+     * delivered as their last event; behaviors that need every sample (e.g.
+     * to draw a stroke) read the earlier positions from here
+     */
+    public int getHistorySize() {
+        return this.historySize;
+    }
+
+    public int getHistoricalX(int index) {
+        if (index >= historySize) {
+            throw new IndexOutOfBoundsException("No historical sample " + index);
+        }
+        return this.historyX[index];
+    }
+
+    public int getHistoricalY(int index) {
+        if (index >= historySize) {
+            throw new IndexOutOfBoundsException("No historical sample " + index);
+        }
+        return this.historyY[index];
+    }
+
+    // Attach the earlier samples of the motion ending with this event
+    void setHistory(int[] xs, int[] ys, int size) {
+        if (historyX == null || historyX.length < size) {
+            historyX = new int[size];
+            historyY = new int[size];
+        }
+        System.arraycopy(xs, 0, historyX, 0, size);
+        System.arraycopy(ys, 0, historyY, 0, size);
+        historySize = size;
+    }
+
+    // Whether a motion event can be merged into this one
+    boolean canCoalesce(BehaviorEvent event) {
+        return isMouseMoved() && event.id == this.id && event.key == this.key
+                && event.modifiers == this.modifiers;
+    }
+
     /**
      * BehaviorEvent static constants
      */
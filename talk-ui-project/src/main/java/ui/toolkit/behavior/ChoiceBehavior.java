@@ -1,11 +1,12 @@
 package ui.toolkit.behavior;
 
 import java.awt.Point;
-import java.util.ArrayList;
 import java.util.List;
 
-import ui.talk.TalkUI;
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.group.SelectionModel;
 import ui.toolkit.graphics.object.GraphicalObject;
 import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
 import ui.toolkit.widget.Widget;
@@ -33,7 +34,8 @@ public class ChoiceBehavior implements Behavior {
 
     private Widget<?> root;
 
-    public static SelectableGraphicalObject lastSelectedGlobalObject = null;
+    // the object selected (or deselected) last by any choice behavior
+    private static final NoConstraint<SelectableGraphicalObject> lastSelected = new NoConstraint<>();
 
     /**
      * ChoiceBehavior constructor
@@ -62,6 +64,23 @@ public class ChoiceBehavior implements Behavior {
         this.root = root;
     }
 
+    /**
+     * The object selected or deselected last by any choice behavior; code
+     * that reacts to selections subscribes to useLastSelected()
+     */
+    public static SelectableGraphicalObject getLastSelected() {
+        return lastSelected.getValue();
+    }
+
+    public static Constraint<SelectableGraphicalObject> useLastSelected() {
+        return lastSelected;
+    }
+
+    private static void setLastSelected(SelectableGraphicalObject object) {
+        lastSelected.setValue(object);
+        lastSelected.notifyValueChange(false);
+    }
+
     /**
      * Methods defined in the Behavior interface
      */
@@ -117,17 +136,13 @@ public class ChoiceBehavior implements Behavior {
     /**
      * Utilities
      */
+    public SelectionModel getSelectionModel() {
+        return group.getSelectionModel();
+    }
+
+    // The selected children, in the order they were selected
     public List<SelectableGraphicalObject> getSelection() {
-        ArrayList<SelectableGraphicalObject> selection = new ArrayList<>();
-        for (GraphicalObject child : group.getChildren()) {
-            if (child instanceof SelectableGraphicalObject) {
-                SelectableGraphicalObject sc = (SelectableGraphicalObject) child;
-                if (sc.isSelected()) {
-                    selection.add(sc);
-                }
-            }
-        }
-        return selection;
+        return getSelectionModel().toList();
     }
 
     // Compare behavior based on their priorities
@@ -153,11 +168,7 @@ public class ChoiceBehavior implements Behavior {
 
     // De-select all the selected objects
     public void clearSelection() {
-        for (GraphicalObject child : group.getChildren()) {
-            if (child instanceof SelectableGraphicalObject) {
-                ((SelectableGraphicalObject) child).setSelected(false);
-            }
-        }
+        getSelectionModel().clear();
     }
 
     // Convert event coordinates from absolute to relative to group
@@ -298,13 +309,11 @@ public class ChoiceBehavior implements Behavior {
                         clearSelection();
                     }
                     targetObject.setSelected(true);
-                    lastSelectedGlobalObject = targetObject;
-                    TalkUI.Instance.propertySheet.updatePropertySheet(lastSelectedGlobalObject);
+                    setLastSelected(targetObject);
                 } else { // if selected for a second time
                     if (this.type == MULTIPLE) {
                         targetObject.setSelected(false);
-                        lastSelectedGlobalObject = targetObject;
-                        TalkUI.Instance.propertySheet.updatePropertySheet(lastSelectedGlobalObject);
+                        setLastSelected(targetObject);
                     }
                 }
             }
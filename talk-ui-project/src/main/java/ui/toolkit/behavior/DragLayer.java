@@ -0,0 +1,410 @@
+package ui.toolkit.behavior;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.object.BoundaryRectangle;
+import ui.toolkit.graphics.object.GraphicalObject;
+
+public class DragLayer {
+    /**
+     * DragLayer class: render a drag as a cached scene plus the dragged objects
+     *
+     * While objects are lifted, the host of the layer (a window, or a
+     * ReplayDriver) renders the rest of the scene once into an underlay,
+     * the lifted objects once into an overlay, and every frame only repairs
+     * the target where the overlay was and draws it at the current offset,
+     * a single damage region the host repaints. The lifted
+     * objects do not move until the behavior commits the drag, so nothing
+     * else changes meanwhile; a change the host is told of (markDirty, called
+     * by a window for each redraw request, each change run through
+     * runOnInput, each event a behavior changed a property for, and each
+     * frame whose constraint pass evaluated anything) renders both layers
+     * again. Changes in other scenes leave
+     * the layers alone. Removing lifted objects during a drag goes
+     * unnoticed until it ends.
+     *
+     * The overlay can also be scaled (setScale, e.g. while zooming): it is
+     * then stretched from the cached raster, and is only as sharp as the
+     * scene once the behavior commits the new scale. The overlay covers
+     * the lifted objects no further than the visible part of their group
+     * extended by its size on each side.
+     *
+     * Guides (e.g. alignment lines) can be shown over the scene with
+     * setGuides: they are drawn in the coordinates of the given group and,
+     * over lifted objects, repaired like them without rendering the layers
+     * again. While nothing is lifted, the host draws them after the scene
+     * (drawGuides). They are not part of the scene, so they neither lay
+     * out nor receive input, and are replaced rather than changed.
+     *
+     * Objects whose position feeds other constraints (e.g. the knob of a
+     * slider) should not be lifted: what depends on them would only catch
+     * up when the drag is committed.
+     */
+    private static final Map<Group, DragLayer> layers = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final int TRANSFORM_PROBE = 1 << 12;
+
+    // objects left out while this thread renders an underlay, if any
+    private static final ThreadLocal<Set<GraphicalObject>> hidden = new ThreadLocal<>();
+
+    private final List<GraphicalObject> lifted = new ArrayList<>();
+    private volatile boolean active = false;
+    private int offsetX, offsetY;
+    private double scale = 1;
+
+    private BufferedImage underlay, overlay;
+    private int overlayX, overlayY;
+    private double overlayScaleX, overlayScaleY;
+    private Rectangle overlayClip;
+    private AffineTransform groupTransform;
+    private List<GraphicalObject> guides = Collections.emptyList();
+    private Group guideGroup = null;
+    private final AtomicLong sceneVersion = new AtomicLong();
+    private long renderedVersion = -1;
+    private BufferedImage lastTarget = null;
+    private Rectangle lastDrawn = null; // where the overlay went in the last target
+
+    private long layerRenders = 0;
+    private long composites = 0;
+
+    /**
+     * Hosts: the layer of the scene under a root group
+     */
+    public static void register(Group root, DragLayer layer) {
+        layers.put(root, layer);
+    }
+
+    public static void unregister(Group root) {
+        layers.remove(root);
+    }
+
+    // The layer of the scene the group belongs to, or null
+    public static DragLayer of(Group group) {
+        if (group == null) {
+            return null;
+        }
+        while (group.getGroup() != null) {
+            group = group.getGroup();
+        }
+        return layers.get(group);
+    }
+
+    // Called by the groups while they draw their children
+    public static boolean isHidden(GraphicalObject object) {
+        Set<GraphicalObject> objects = hidden.get();
+        return objects != null && objects.contains(object);
+    }
+
+    /**
+     * Drag
+     *
+     * @return false if another drag holds the layer
+     */
+    public synchronized boolean lift(Collection<? extends GraphicalObject> objects) {
+        if (active || objects.isEmpty()) {
+            return false;
+        }
+        lifted.addAll(objects);
+        offsetX = offsetY = 0;
+        scale = 1;
+        renderedVersion = -1;
+        active = true;
+        return true;
+    }
+
+    /**
+     * Hosts: the scene changed, render the layers again on the next frame;
+     * safe to call from any thread
+     */
+    public void markDirty() {
+        sceneVersion.incrementAndGet();
+    }
+
+    // Offset of the lifted objects, in the coordinates of their group
+    public synchronized void setOffset(int offsetX, int offsetY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    // Scale of the lifted objects around the origin of their group, before the offset
+    public synchronized void setScale(double scale) {
+        this.scale = scale;
+    }
+
+    public synchronized double getScale() {
+        return scale;
+    }
+
+    public synchronized int getOffsetX() {
+        return offsetX;
+    }
+
+    public synchronized int getOffsetY() {
+        return offsetY;
+    }
+
+    // Objects drawn over the scene, in the coordinates of the group, until replaced or dropped
+    public synchronized void setGuides(Group group, List<? extends GraphicalObject> guides) {
+        this.guideGroup = group;
+        this.guides = new ArrayList<>(guides);
+    }
+
+    public synchronized List<GraphicalObject> getGuides() {
+        return Collections.unmodifiableList(guides);
+    }
+
+    // Release the objects; the next frame renders the scene as usual
+    public synchronized void drop() {
+        active = false;
+        lifted.clear();
+        guides = Collections.emptyList();
+        guideGroup = null;
+        overlay = null;
+        lastTarget = null;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public synchronized boolean isLifted(GraphicalObject object) {
+        return active && lifted.contains(object);
+    }
+
+    /**
+     * Render a frame while objects are lifted
+     *
+     * @param target the frame buffer, in root coordinates, kept across frames
+     * @param scene  renders the whole scene (background included)
+     * @return the region of the target that changed, or null (rendering
+     *         nothing) if no object is lifted
+     */
+    public synchronized Rectangle composite(BufferedImage target, Consumer<Graphics2D> scene) {
+        if (!active) {
+            lastTarget = null;
+            return null;
+        }
+        int width = target.getWidth(), height = target.getHeight();
+        if (underlay == null || underlay.getWidth() != width || underlay.getHeight() != height) {
+            underlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            renderedVersion = -1;
+        }
+        boolean full = (target != lastTarget || lastDrawn == null);
+        if (renderedVersion != sceneVersion.get()) {
+            renderLayers(scene, width, height);
+            full = true;
+        }
+
+        Rectangle drawn = null;
+        if (overlay != null) {
+            drawn = overlayBounds();
+            if (scale != 1) {
+                drawn.grow(1, 1); // rounding of the scaled image
+            }
+            drawn = drawn.intersection(overlayClip);
+        }
+        for (GraphicalObject guide : guides) {
+            Rectangle box = groupTransform.createTransformedShape(guide.getBoundingBox()).getBounds();
+            box.grow(2, 2);
+            drawn = union((drawn == null) ? new Rectangle() : drawn, box.intersection(overlayClip));
+        }
+        Rectangle damage = new Rectangle(0, 0, width, height);
+        if (!full) {
+            damage = union(lastDrawn, drawn).intersection(damage);
+        }
+
+        Graphics2D graphics = target.createGraphics();
+        graphics.clip(damage);
+        graphics.drawImage(underlay, 0, 0, null);
+        if (drawn != null && !drawn.isEmpty()) {
+            graphics.clip(overlayClip);
+            if (overlay != null) {
+                Rectangle at = overlayBounds();
+                if (scale == 1) {
+                    graphics.drawImage(overlay, at.x, at.y, null);
+                } else {
+                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    graphics.drawImage(overlay, at.x, at.y, at.width, at.height, null);
+                }
+            }
+            if (!guides.isEmpty()) {
+                // objects set their own clip: give them the damage within the group
+                Shape guideClip = toGroup(damage.intersection(overlayClip));
+                graphics.transform(groupTransform);
+                for (GraphicalObject guide : guides) {
+                    guide.draw(graphics, guideClip);
+                }
+            }
+        }
+        graphics.dispose();
+
+        lastTarget = target;
+        lastDrawn = (drawn == null) ? new Rectangle() : drawn;
+        composites++;
+        return damage;
+    }
+
+    /**
+     * Hosts: draw the guides over a frame rendered without the layer
+     * (composite returned null)
+     */
+    public synchronized void drawGuides(Graphics2D graphics, int width, int height) {
+        if (active || guides.isEmpty() || guideGroup == null) {
+            return;
+        }
+        AffineTransform transform = transformOf(guideGroup);
+        Rectangle clip = clipOf(guideGroup, width, height);
+        Graphics2D guideGraphics = (Graphics2D) graphics.create();
+        guideGraphics.clip(clip);
+        guideGraphics.transform(transform);
+        Shape guideClip;
+        try {
+            guideClip = transform.createInverse().createTransformedShape(clip);
+        } catch (NoninvertibleTransformException e) {
+            guideClip = new Rectangle();
+        }
+        for (GraphicalObject guide : guides) {
+            guide.draw(guideGraphics, guideClip);
+        }
+        guideGraphics.dispose();
+    }
+
+    // Where the overlay goes in the target, moved and scaled in group coordinates
+    private Rectangle overlayBounds() {
+        double originX = groupTransform.getTranslateX(), originY = groupTransform.getTranslateY();
+        int x = (int) Math.floor(originX + scale * (overlayX - originX) + offsetX * overlayScaleX);
+        int y = (int) Math.floor(originY + scale * (overlayY - originY) + offsetY * overlayScaleY);
+        return new Rectangle(x, y, (int) Math.round(overlay.getWidth() * scale),
+                (int) Math.round(overlay.getHeight() * scale));
+    }
+
+    private static Rectangle union(Rectangle a, Rectangle b) {
+        if (b == null || b.isEmpty()) {
+            return a;
+        }
+        return a.isEmpty() ? b : a.union(b);
+    }
+
+    private void renderLayers(Consumer<Graphics2D> scene, int width, int height) {
+        long version = sceneVersion.get(); // a change while rendering renders again
+        Set<GraphicalObject> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+        objects.addAll(lifted);
+        Graphics2D graphics = underlay.createGraphics();
+        hidden.set(objects);
+        try {
+            scene.accept(graphics);
+        } finally {
+            hidden.remove();
+            graphics.dispose();
+        }
+
+        // the lifted objects, drawn with the transform and clip of their groups
+        overlay = null;
+        Rectangle bounds = null;
+        AffineTransform[] transforms = new AffineTransform[lifted.size()];
+        for (int i = 0; i < lifted.size(); i++) {
+            GraphicalObject object = lifted.get(i);
+            transforms[i] = transformOf(object.getGroup());
+            Rectangle box = transforms[i].createTransformedShape(object.getBoundingBox()).getBounds();
+            bounds = (bounds == null) ? box : bounds.union(box);
+            if (i == 0) {
+                overlayScaleX = transforms[i].getScaleX();
+                overlayScaleY = transforms[i].getScaleY();
+                overlayClip = clipOf(object.getGroup(), width, height);
+                groupTransform = transforms[i];
+            }
+        }
+        bounds.grow(2, 2); // strokes may stick out of bounding boxes
+        // no larger than a few times the visible part of the group
+        Rectangle reach = new Rectangle(overlayClip);
+        reach.grow(overlayClip.width, overlayClip.height);
+        bounds = bounds.intersection(reach);
+        if (!bounds.isEmpty()) {
+            overlay = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+            overlayX = bounds.x;
+            overlayY = bounds.y;
+            graphics = overlay.createGraphics();
+            graphics.setComposite(AlphaComposite.SrcOver);
+            for (int i = 0; i < lifted.size(); i++) {
+                Graphics2D objectGraphics = (Graphics2D) graphics.create();
+                objectGraphics.translate(-bounds.x, -bounds.y);
+                objectGraphics.transform(transforms[i]);
+                BoundaryRectangle everywhere = new BoundaryRectangle(-Integer.MAX_VALUE / 4,
+                        -Integer.MAX_VALUE / 4, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+                lifted.get(i).draw(objectGraphics, everywhere);
+                objectGraphics.dispose();
+            }
+            graphics.dispose();
+        }
+        renderedVersion = version;
+        layerRenders++;
+    }
+
+    private Shape toGroup(Rectangle area) {
+        try {
+            return groupTransform.createInverse().createTransformedShape(area);
+        } catch (NoninvertibleTransformException e) {
+            return new Rectangle();
+        }
+    }
+
+    // From the coordinates of the children of the group to root coordinates
+    private static AffineTransform transformOf(Group group) {
+        Point origin = toRoot(group, new Point(0, 0));
+        Point probe = toRoot(group, new Point(TRANSFORM_PROBE, TRANSFORM_PROBE));
+        AffineTransform transform = new AffineTransform();
+        transform.translate(origin.x, origin.y);
+        transform.scale((probe.x - origin.x) / (double) TRANSFORM_PROBE,
+                (probe.y - origin.y) / (double) TRANSFORM_PROBE);
+        return transform;
+    }
+
+    private static Point toRoot(Group group, Point point) {
+        for (; group != null; group = group.getGroup()) {
+            point = group.childToParent(point);
+        }
+        return point;
+    }
+
+    // The groups clip what they draw to their bounds
+    private static Rectangle clipOf(Group group, int width, int height) {
+        Rectangle clip = new Rectangle(0, 0, width, height);
+        for (; group != null && group.getGroup() != null; group = group.getGroup()) {
+            Shape box = transformOf(group.getGroup()).createTransformedShape(group.getBoundingBox());
+            clip = clip.intersection(box.getBounds());
+        }
+        return clip;
+    }
+
+    /**
+     * Metrics
+     */
+    // Times the underlay and overlay were rendered
+    public synchronized long getLayerRenders() {
+        return layerRenders;
+    }
+
+    // Frames rendered by copying the layers
+    public synchronized long getComposites() {
+        return composites;
+    }
+}
@@ -0,0 +1,77 @@
+package ui.toolkit.behavior;
+
+import java.awt.Point;
+import java.util.List;
+
+import ui.toolkit.behavior.BehaviorDispatcher.Dispatch;
+import ui.toolkit.behavior.BehaviorDispatcher.Registration;
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.object.GraphicalObject;
+
+public class EventRouter {
+    /**
+     * EventRouter class: route events through the scene graph
+     *
+     * An event descends from the root into the child groups whose bounding box
+     * contains its position (capture), collecting the behaviors of every group
+     * on the way, and is then offered to them from the innermost group outwards
+     * within each priority level (bubble). Behaviors keep their registration in
+     * their own group, so attaching or detaching a subtree costs nothing here.
+     *
+     * Running behaviors capture the pointer: they get every event until they
+     * stop, wherever it happens, as long as their group stays in the tree,
+     * and are shown every event but mouse moves before it is routed
+     * (Behavior.beforeRouting).
+     */
+    private final Group root;
+    private final BehaviorBuckets captured = new BehaviorBuckets();
+
+    public EventRouter(Group root) {
+        this.root = root;
+    }
+
+    /**
+     * Offer the event to the behaviors of the groups under it
+     *
+     * @return whether some behavior consumed the event
+     */
+    public boolean route(BehaviorEvent event) {
+        Dispatch dispatch = new Dispatch(event);
+        if (!captured.isEmpty()) {
+            for (Registration registration : captured.toList()) {
+                if (!isAttached(registration.behavior.getGroup())) {
+                    registration.setRunning(null);
+                }
+            }
+            if (!event.isMouseMoved()) {
+                for (Behavior behavior : BehaviorDispatcher.behaviorsOf(captured)) {
+                    behavior.beforeRouting(event);
+                }
+            }
+            dispatch.addSource(captured, Integer.MAX_VALUE);
+        }
+        descend(root, new Point(event.getX(), event.getY()), 0, dispatch);
+        return dispatch.deliver(captured);
+    }
+
+    private static void descend(Group group, Point point, int depth, Dispatch dispatch) {
+        group.getBehaviorDispatcher().collect(dispatch, depth);
+        for (GraphicalObject child : group.getChildren()) {
+            if (child instanceof Group && child.contains(point)) {
+                Group childGroup = (Group) child;
+                descend(childGroup, childGroup.parentToChild(point), depth + 1, dispatch);
+            }
+        }
+    }
+
+    private boolean isAttached(Group group) {
+        while (group != null && group != root) {
+            group = group.getGroup();
+        }
+        return group == root;
+    }
+
+    public List<Behavior> getRunningBehaviors() {
+        return BehaviorDispatcher.behaviorsOf(captured);
+    }
+}
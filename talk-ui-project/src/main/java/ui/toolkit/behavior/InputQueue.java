@@ -0,0 +1,432 @@
+package ui.toolkit.behavior;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+public class InputQueue {
+    /**
+     * InputQueue class: hand input events to behaviors once per frame
+     *
+     * Listeners publish events into a ring of preallocated event slots, which
+     * one consumer drains: the event dispatch thread (EVENT_DISPATCH_THREAD),
+     * a dedicated input thread (INPUT_THREAD) or whoever calls drain()
+     * (MANUAL). Publishing takes no lock and allocates nothing; the producer
+     * never waits either: an event published while the ring is full goes to
+     * an overflow list, dispatched after the ring. Each drain runs the tasks
+     * handed to invoke(), dispatches everything published so far, then runs
+     * a single frame.
+     *
+     * Behaviors, the scene and whatever their callbacks touch are only safe
+     * to use from the consumer. With an input thread, changes made from
+     * other threads (the event dispatch thread included) must go through
+     * invoke(); that is why the input thread is opt-in.
+     *
+     * Consecutive mouse moves or drags with the same key and modifiers are
+     * merged into the last one, which carries the positions of the others as
+     * its history. Button, key and wheel events are never merged, so they keep
+     * their order relative to each other and to motion.
+     *
+     * The events handed to the handler are slots of the ring: they are only
+     * valid until the handler returns and must not be kept.
+     *
+     * With a recorder set, every published event is logged by the consumer,
+     * before motion is merged, with the time it was published. With an
+     * enabled latency monitor set, every event reports when it was
+     * published and when its dispatch ended.
+     */
+    public static final int INPUT_THREAD = 0;
+    public static final int EVENT_DISPATCH_THREAD = 1;
+    public static final int MANUAL = 2;
+
+    // -Dui.toolkit.input.thread=true drains windows on a dedicated input thread
+    public static final String THREAD_PROPERTY = "ui.toolkit.input.thread";
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // a frame whose oldest event waited longer than this fell behind
+    private static final long BEHIND_NANOS = 16_000_000L;
+
+    private final Consumer<BehaviorEvent> handler;
+    private final Runnable frame;
+    private final int consumerType;
+
+    private final BehaviorEvent[] slots;
+    private final long[] timestamps;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to consume
+    private final AtomicLong tail = new AtomicLong(); // next slot to publish
+    private long cachedHead = 0;                      // producer's last view of head
+    // events published while the ring was full, dispatched once it is empty
+    private final ConcurrentLinkedQueue<Overflowed> overflow = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile Thread consumer = null;
+    private volatile boolean sleeping = false;
+    private volatile boolean closed = false;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false); // drain pending on the event dispatch thread
+    private boolean draining = false; // consumer side
+    private volatile InputRecorder recorder = null;
+    private volatile LatencyMonitor latencyMonitor = null;
+
+    private int[] historyX = new int[16];
+    private int[] historyY = new int[16];
+
+    // metrics, each written by a single thread
+    private volatile long published = 0;
+    private volatile long overflows = 0;
+    private volatile long dispatched = 0;
+    private volatile long coalesced = 0;
+    private volatile long frames = 0;
+    private volatile long framesBehind = 0;
+    private volatile long maxDepth = 0;
+    private volatile long totalLatency = 0;
+    private volatile long maxLatency = 0;
+
+    /**
+     * InputQueue constructor
+     *
+     * @param handler      dispatches one (possibly coalesced) event
+     * @param frame        runs after the events of a frame have been dispatched
+     * @param capacity     number of slots, rounded up to a power of two
+     * @param consumerType INPUT_THREAD, EVENT_DISPATCH_THREAD or MANUAL
+     */
+    public InputQueue(Consumer<BehaviorEvent> handler, Runnable frame, int capacity, int consumerType) {
+        if (capacity < 2) {
+            throw new RuntimeException("Input queue capacity must be at least 2");
+        }
+        if (consumerType < INPUT_THREAD || consumerType > MANUAL) {
+            throw new RuntimeException("Unsupported input consumer type");
+        }
+        this.handler = handler;
+        this.frame = frame;
+        this.consumerType = consumerType;
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new BehaviorEvent[size];
+        this.timestamps = new long[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new BehaviorEvent(BehaviorEvent.NO_MODIFIER, BehaviorEvent.NO_KEY,
+                    BehaviorEvent.MOUSE_MOVE_ID);
+        }
+    }
+
+    public InputQueue(Consumer<BehaviorEvent> handler, Runnable frame) {
+        this(handler, frame, DEFAULT_CAPACITY,
+                Boolean.getBoolean(THREAD_PROPERTY) ? INPUT_THREAD : EVENT_DISPATCH_THREAD);
+    }
+
+    private static final class Overflowed {
+        private final BehaviorEvent event;
+        private final long timestamp;
+
+        private Overflowed(BehaviorEvent event, long timestamp) {
+            this.event = event;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Producer side: to be called from one thread only
+     */
+    public void post(int modifiers, int key, int id, int x, int y) {
+        if (closed) {
+            return;
+        }
+        long position = tail.get();
+        if (!overflow.isEmpty() || position - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (overflow.isEmpty() && position - cachedHead >= slots.length
+                    && consumerType != INPUT_THREAD && !draining) {
+                drain(); // the consumer runs on this thread
+                cachedHead = head.get();
+            }
+            if (!overflow.isEmpty() || position - cachedHead >= slots.length) {
+                // once an event overflows, later ones follow it until the consumer catches up
+                overflows++;
+                overflow.add(new Overflowed(new BehaviorEvent(modifiers, key, id, x, y), System.nanoTime()));
+                published++;
+                wakeConsumer();
+                return;
+            }
+        }
+        int index = (int) position & mask;
+        slots[index].set(modifiers, key, id, x, y);
+        timestamps[index] = System.nanoTime();
+        tail.set(position + 1);
+        published++;
+        wakeConsumer();
+    }
+
+    public void post(BehaviorEvent event) {
+        post(event.getModifiers(), event.getKey(), event.getID(), event.getX(), event.getY());
+    }
+
+    /**
+     * Run a change (to the scene, its behaviors...) on the consumer before
+     * its next frame; may be called from any thread
+     */
+    public void invoke(Runnable task) {
+        if (closed) {
+            return;
+        }
+        tasks.add(task);
+        wakeConsumer();
+    }
+
+    private void wakeConsumer() {
+        if (consumerType == INPUT_THREAD) {
+            Thread thread = consumer;
+            if (thread == null) {
+                startConsumer();
+            } else if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        } else if (consumerType == EVENT_DISPATCH_THREAD && scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private synchronized void startConsumer() {
+        if (consumer == null && !closed) {
+            Thread thread = new Thread(this::consume, "InputQueue");
+            thread.setDaemon(true);
+            consumer = thread;
+            thread.start();
+        }
+    }
+
+    private void consume() {
+        while (!closed) {
+            if (!drain()) {
+                sleeping = true;
+                if (isIdle() && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return head.get() == tail.get() && overflow.isEmpty() && tasks.isEmpty();
+    }
+
+    /**
+     * Stop the input thread; later events are dropped
+     */
+    public void close() {
+        closed = true;
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Log the events drained from now on (null to stop); the recorder is
+     * not closed here
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public InputRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Report dispatched events to the monitor while it is enabled; whoever
+     * runs the frames reports them (see InteractiveWindowGroup.redraw)
+     */
+    public void setLatencyMonitor(LatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    /**
+     * Consumer side: dispatch everything published so far, then run the frame
+     *
+     * @return whether there was anything to run or dispatch
+     */
+    public boolean drain() {
+        if (consumerType == EVENT_DISPATCH_THREAD) {
+            scheduled.set(false);
+        }
+        if (draining) {
+            return false; // called back from a handler
+        }
+        draining = true;
+        try {
+            return drainOnce();
+        } finally {
+            draining = false;
+        }
+    }
+
+    private boolean drainOnce() {
+        boolean ranTasks = false;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            ranTasks = true;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: in input task: " + e);
+                e.printStackTrace();
+            }
+        }
+        long position = head.get();
+        long end = tail.get();
+        if (position == end && overflow.isEmpty() && !ranTasks) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (end - position > maxDepth) {
+            maxDepth = end - position;
+        }
+        if (position < end && now - timestamps[(int) position & mask] > BEHIND_NANOS) {
+            framesBehind++;
+        }
+        InputRecorder recorder = this.recorder;
+        if (recorder != null) {
+            for (long p = position; p < end; p++) {
+                recorder.record(slots[(int) p & mask], timestamps[(int) p & mask]);
+            }
+            recorder.flush();
+        }
+        LatencyMonitor monitor = this.latencyMonitor;
+        if (monitor != null && !monitor.isEnabled()) {
+            monitor = null;
+        }
+
+        while (position < end) {
+            long first = position;
+            BehaviorEvent event = slots[(int) position & mask];
+            int samples = 0;
+            while (position + 1 < end && event.canCoalesce(slots[(int) (position + 1) & mask])) {
+                if (samples == historyX.length) {
+                    historyX = Arrays.copyOf(historyX, samples * 2);
+                    historyY = Arrays.copyOf(historyY, samples * 2);
+                }
+                historyX[samples] = event.getX();
+                historyY[samples] = event.getY();
+                samples++;
+                position++;
+                event = slots[(int) position & mask];
+            }
+            if (samples > 0) {
+                event.setHistory(historyX, historyY, samples);
+                coalesced += samples;
+            }
+
+            long latency = System.nanoTime() - timestamps[(int) position & mask];
+            totalLatency += latency;
+            if (latency > maxLatency) {
+                maxLatency = latency;
+            }
+            handle(event);
+            if (monitor != null) {
+                long dispatchEnd = System.nanoTime();
+                for (long p = first; p <= position; p++) {
+                    monitor.eventDispatched(event.getID(), timestamps[(int) p & mask], dispatchEnd);
+                }
+            }
+            dispatched++;
+            head.set(++position); // hand the slots back to the producer
+        }
+
+        // overflowed events come after everything in the ring, newer ring events included
+        Overflowed item;
+        while (head.get() == tail.get() && (item = overflow.poll()) != null) {
+            if (recorder != null) {
+                recorder.record(item.event, item.timestamp);
+                recorder.flush();
+            }
+            long latency = System.nanoTime() - item.timestamp;
+            totalLatency += latency;
+            if (latency > maxLatency) {
+                maxLatency = latency;
+            }
+            handle(item.event);
+            if (monitor != null) {
+                monitor.eventDispatched(item.event.getID(), item.timestamp, System.nanoTime());
+            }
+            dispatched++;
+        }
+
+        frames++;
+        try {
+            frame.run();
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: in input frame: " + e);
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    private void handle(BehaviorEvent event) {
+        try {
+            handler.accept(event);
+        } catch (RuntimeException e) {
+            System.err.println("ERROR: in input handler: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Metrics
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // Events published and not dispatched yet
+    public int getDepth() {
+        return (int) (tail.get() - head.get()) + overflow.size();
+    }
+
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getPublishedEvents() {
+        return published;
+    }
+
+    // Events merged into a later mouse move or drag
+    public long getCoalescedEvents() {
+        return coalesced;
+    }
+
+    public long getDispatchedEvents() {
+        return dispatched;
+    }
+
+    // Events published while the ring was full (or behind one that was)
+    public long getOverflows() {
+        return overflows;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    // Frames whose oldest event had waited for more than 16 ms
+    public long getFramesBehind() {
+        return framesBehind;
+    }
+
+    // Time from publishing to dispatch, in nanoseconds
+    public long getAverageLatency() {
+        long count = dispatched;
+        return (count == 0) ? 0 : totalLatency / count;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+}
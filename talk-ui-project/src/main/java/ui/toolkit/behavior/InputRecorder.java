@@ -0,0 +1,120 @@
+package ui.toolkit.behavior;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class InputRecorder implements Closeable {
+    /**
+     * InputRecorder class: write input events to a compact binary log
+     *
+     * The log starts with MAGIC and VERSION, followed by one record per
+     * event: the event id as a byte, then modifiers, key, the position as a
+     * delta from the previous event and the time since the previous event in
+     * microseconds, each as a variable-length integer. A mouse move usually
+     * takes 6 or 7 bytes. InputRecording reads the log back.
+     *
+     * An InputQueue with a recorder logs every event it is given, before
+     * motion is merged, with the time it was published.
+     */
+    public static final int MAGIC = 0x55494e50; // "UINP"
+    public static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private boolean started = false;
+    private boolean failed = false;
+    private long lastTime;
+    private int lastX, lastY;
+    private long recorded = 0;
+
+    public InputRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    /**
+     * Append one event; a failed write stops the recording
+     *
+     * @param nanoTime when the event happened, from System.nanoTime()
+     */
+    public synchronized void record(int modifiers, int key, int id, int x, int y, long nanoTime) {
+        if (failed) {
+            return;
+        }
+        if (!started) {
+            started = true;
+            lastTime = nanoTime;
+        }
+        long micros = Math.max(0, (nanoTime - lastTime) / 1000);
+        try {
+            out.writeByte(id);
+            writeSigned(modifiers);
+            writeSigned(key);
+            writeSigned(x - lastX);
+            writeSigned(y - lastY);
+            writeUnsigned(micros);
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        // keep the sub-microsecond remainder so that long logs do not drift
+        lastTime += micros * 1000;
+        lastX = x;
+        lastY = y;
+        recorded++;
+    }
+
+    public void record(BehaviorEvent event, long nanoTime) {
+        record(event.getModifiers(), event.getKey(), event.getID(), event.getX(), event.getY(), nanoTime);
+    }
+
+    public synchronized void flush() {
+        if (failed) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (!failed) {
+                fail(e);
+            }
+        }
+        failed = true;
+    }
+
+    public synchronized long getRecordedEvents() {
+        return recorded;
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        System.err.println("ERROR: input recording stopped: " + e);
+    }
+
+    /**
+     * Variable-length integers: 7 bits per byte, low bits first; signed
+     * values are zigzag-encoded so that small negative numbers stay short
+     */
+    private void writeSigned(long value) throws IOException {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    private void writeUnsigned(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,150 @@
+package ui.toolkit.behavior;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+public class InputRecording {
+    /**
+     * InputRecording class: a sequence of input events with their times
+     *
+     * Either read from a log written by InputRecorder or built with add(),
+     * e.g. to script a session for a benchmark. Events are kept in parallel
+     * primitive arrays; times are in nanoseconds since the first event.
+     */
+    private int size = 0;
+    private int[] modifiers = new int[64];
+    private int[] keys = new int[64];
+    private int[] ids = new int[64];
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private long[] times = new long[64];
+
+    /**
+     * Append an event
+     *
+     * @param time nanoseconds since the first event, not before the previous one
+     */
+    public InputRecording add(int modifiers, int key, int id, int x, int y, long time) {
+        if (size > 0 && time < times[size - 1]) {
+            throw new RuntimeException("Input events must be added in time order");
+        }
+        if (size == ids.length) {
+            int capacity = size * 2;
+            this.modifiers = Arrays.copyOf(this.modifiers, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+            this.times = Arrays.copyOf(this.times, capacity);
+        }
+        this.modifiers[size] = modifiers;
+        this.keys[size] = key;
+        this.ids[size] = id;
+        this.xs[size] = x;
+        this.ys[size] = y;
+        this.times[size] = time;
+        size++;
+        return this;
+    }
+
+    /**
+     * Read a log written by InputRecorder
+     */
+    public static InputRecording read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not an input recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported input recording version " + version);
+        }
+
+        InputRecording recording = new InputRecording();
+        int x = 0, y = 0;
+        long time = 0;
+        int id;
+        while ((id = in.read()) >= 0) {
+            int modifiers = (int) readSigned(in);
+            int key = (int) readSigned(in);
+            x += (int) readSigned(in);
+            y += (int) readSigned(in);
+            time += readUnsigned(in) * 1000;
+            recording.add(modifiers, key, id, x, y, time);
+        }
+        return recording;
+    }
+
+    /**
+     * Write the events as an InputRecorder log
+     */
+    public void write(OutputStream out) throws IOException {
+        InputRecorder recorder = new InputRecorder(out);
+        for (int i = 0; i < size; i++) {
+            recorder.record(modifiers[i], keys[i], ids[i], xs[i], ys[i], times[i]);
+        }
+        recorder.flush();
+    }
+
+    private static long readSigned(DataInputStream in) throws IOException {
+        long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readUnsigned(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated input recording");
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed input recording");
+    }
+
+    /**
+     * Getters
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getModifiers(int index) {
+        return modifiers[index];
+    }
+
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    public int getID(int index) {
+        return ids[index];
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    // Nanoseconds since the first event
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    // Time between the first and the last event, in nanoseconds
+    public long getDuration() {
+        return (size == 0) ? 0 : times[size - 1];
+    }
+}
@@ -2,10 +2,12 @@ package ui.toolkit.behavior;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyAdapter;
@@ -14,16 +16,25 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
+import ui.toolkit.constraint.AsyncConstraint;
 import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.ConstraintEvaluator;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.graphics.DamageRegion;
 import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.group.SelectionModel;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
 import ui.toolkit.graphics.object.BoundaryRectangle;
 import ui.toolkit.graphics.object.GraphicalObject;
@@ -31,13 +42,32 @@ import ui.toolkit.graphics.object.GraphicalObject;
 public class InteractiveWindowGroup extends JFrame implements Group {
     private static final long serialVersionUID = 1L;
 
+    // -Dui.toolkit.input.record=session.bin records the input of every window
+    public static final String RECORD_PROPERTY = "ui.toolkit.input.record";
+    // -Dui.toolkit.latency.overlay=true shows the input-to-pixel latency in every window
+    public static final String LATENCY_OVERLAY_PROPERTY = "ui.toolkit.latency.overlay";
+
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+
     protected BufferedImage buffer;
     private JComponent canvas;
     private Insets insets;
 
     private List<GraphicalObject> children = new ArrayList<>();
-    private List<Behavior> behaviors = new ArrayList<>();
-    private boolean behaviorsSorted = false;
+    private final BehaviorDispatcher behaviors = new BehaviorDispatcher();
+    private final SelectionModel selection = new SelectionModel(this);
+    private final EventRouter router = new EventRouter(this);
+    private final InputQueue inputQueue = new InputQueue(this::route, this::renderFrame);
+    private final LatencyMonitor latencyMonitor = new LatencyMonitor();
+    private final DragLayer dragLayer = new DragLayer();
+    private final DamageRegion damageRegion = new DamageRegion();
+    private volatile boolean latencyOverlay = false;
+    private final Object renderLock = new Object();
+
+    private final AtomicBoolean redrawRequested = new AtomicBoolean(false);
+    private final Runnable redrawRequest = this::requestRedraw;
+    private boolean sceneReleased = false;
 
     /**
      * InteractiveWindowGroup constructor Make a top-level window with specified
@@ -61,8 +91,16 @@ public class InteractiveWindowGroup extends JFrame implements Group {
             private static final long serialVersionUID = 1L;
 
             public void paintComponent(Graphics graphics) {
-                if (buffer != null) {
-                    graphics.drawImage(buffer, 0, 0, null);
+                synchronized (renderLock) { // an input thread may be rendering into it
+                    if (buffer != null) {
+                        graphics.drawImage(buffer, 0, 0, null);
+                    }
+                }
+                if (latencyMonitor.isEnabled()) {
+                    latencyMonitor.framePainted(System.nanoTime());
+                    if (latencyOverlay) {
+                        drawLatencyOverlay(graphics);
+                    }
                 }
             }
         };
@@ -76,63 +114,81 @@ public class InteractiveWindowGroup extends JFrame implements Group {
         this.makeBuffer(width, height);
         this.redraw();
         this.insets = getInsets();
-    }
-
-    private void handleBehaviorEvent(BehaviorEvent behaviorEvent) {
-        if (behaviors.isEmpty()) {
-            return;
-        }
-        if (!behaviorsSorted) {
-            Collections.sort(behaviors);
-            behaviorsSorted = true;
+        inputQueue.setLatencyMonitor(latencyMonitor);
+        DragLayer.register(this, dragLayer);
+        DamageRegion.register(this, damageRegion);
+        if (Boolean.getBoolean(LATENCY_OVERLAY_PROPERTY)) {
+            setLatencyOverlay(true);
         }
 
-        Behavior lastBehavior = behaviors.get(0);
-        boolean eventConsumed = false;
-        for (Behavior behavior : behaviors) {
-            if (eventConsumed && behavior.compareTo(lastBehavior) > 0) {
-                break;
+        String recordFile = System.getProperty(RECORD_PROPERTY);
+        if (recordFile != null) {
+            try {
+                startRecording(new FileOutputStream(recordFile));
+            } catch (IOException e) {
+                System.err.println("ERROR: cannot record input to " + recordFile + ": " + e);
             }
-            eventConsumed = behavior.check(behaviorEvent) || eventConsumed;
         }
-        this.redraw();
+    }
+
+    // Events are dispatched and the window redrawn once per frame by the input queue
+    private void handleBehaviorEvent(int modifiers, int key, int id, int x, int y) {
+        inputQueue.post(modifiers, key, id, x, y);
+    }
+
+    /**
+     * Change the scene or its behaviors from another thread (e.g. a voice
+     * thread): the change runs where input is dispatched, before the next
+     * frame. Required from every other thread when the input queue has its
+     * own input thread.
+     */
+    public void runOnInput(Runnable change) {
+        inputQueue.invoke(() -> {
+            try {
+                change.run();
+            } finally {
+                dragLayer.markDirty();
+                damageRegion.markWhole();
+            }
+        });
     }
 
     // Mouse listener
     private class WindowMouseListener extends MouseAdapter {
         public void mousePressed(MouseEvent event) {
             int id = BehaviorEvent.MOUSE_DOWN_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         public void mouseReleased(MouseEvent event) {
             int id = BehaviorEvent.MOUSE_UP_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         public void mouseMoved(MouseEvent event) {
             int id = BehaviorEvent.MOUSE_MOVE_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         public void mouseDragged(MouseEvent event) {
             int id = BehaviorEvent.MOUSE_DRAG_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         public void mouseClicked(MouseEvent event) {
             int id = BehaviorEvent.MOUSE_CLICK_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         public void mouseWheelMoved(MouseWheelEvent event) {
             int id = BehaviorEvent.SCROLLWHEEL_ID;
-            handleBehaviorEvent(getBehaviorEvent(event, id));
+            postMouseEvent(event, id);
         }
 
         // Convert an awt MouseEvent to our BehaviorEvent
-        private BehaviorEvent getBehaviorEvent(MouseEvent event, int id) {
-            return new BehaviorEvent(getModifiers(event), getKey(event, id), id, event.getX() - insets.left,
+        private void postMouseEvent(MouseEvent event, int id) {
+            handleBehaviorEvent(getModifiers(event), getKey(event, id), id,
+                    event.getX() - insets.left,
                     event.getY() - insets.top - 1 // at least this works on MacOS
             );
         }
@@ -180,14 +236,14 @@ public class InteractiveWindowGroup extends JFrame implements Group {
 
         public void keyPressed(KeyEvent event) {
             Point cursor = getCursor();
-            handleBehaviorEvent(new BehaviorEvent(getModifiers(event), event.getKeyCode(), BehaviorEvent.KEY_DOWN_ID,
-                    cursor.x - insets.left, cursor.y - insets.top));
+            handleBehaviorEvent(getModifiers(event), event.getKeyCode(), BehaviorEvent.KEY_DOWN_ID,
+                    cursor.x - insets.left, cursor.y - insets.top);
         }
 
         public void keyReleased(KeyEvent event) {
             Point cursor = getCursor();
-            handleBehaviorEvent(new BehaviorEvent(getModifiers(event), event.getKeyCode(), BehaviorEvent.KEY_UP_ID,
-                    cursor.x - insets.left, cursor.y - insets.top));
+            handleBehaviorEvent(getModifiers(event), event.getKeyCode(), BehaviorEvent.KEY_UP_ID,
+                    cursor.x - insets.left, cursor.y - insets.top);
         }
     }
 
@@ -204,20 +260,167 @@ public class InteractiveWindowGroup extends JFrame implements Group {
     }
 
     /**
-     * Redraw: automatically called after adding children
+     * Redraw: automatically called after adding children; may be called from
+     * any thread (the input thread renders every frame)
      */
     public void redraw() {
-        Graphics2D graphics = buffer.createGraphics();
-        BoundaryRectangle r = new BoundaryRectangle(0, 0, getWidth(), getHeight());
+        dragLayer.markDirty();
+        damageRegion.markWhole();
+        renderFrame();
+    }
+
+    // A frame after input: only what the host was told of changed
+    private void renderFrame() {
+        boolean timed = latencyMonitor.isEnabled();
+        Rectangle damage;
+        Runnable previousHandler = AsyncConstraint.setFrameRedrawHandler(redrawRequest);
+        try {
+            synchronized (renderLock) {
+                if (ConstraintEvaluator.isTracking() && ConstraintEvaluator.getDefault().evaluatePending() > 0) {
+                    dragLayer.markDirty();
+                    damageRegion.markWhole();
+                }
+                long evaluated = timed ? System.nanoTime() : 0;
+                Rectangle changed = damageRegion.take();
+                damage = dragLayer.composite(buffer, this::drawScene);
+                if (damage == null) {
+                    Graphics2D graphics = buffer.createGraphics();
+                    if (changed != null && dragLayer.getGuides().isEmpty()) {
+                        // only what the objects reported changed
+                        damage = changed.intersection(new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight()));
+                        drawScene(graphics, new BoundaryRectangle(damage));
+                    } else {
+                        drawScene(graphics);
+                        dragLayer.drawGuides(graphics, buffer.getWidth(), buffer.getHeight());
+                    }
+                    graphics.dispose();
+                }
+                if (timed) {
+                    latencyMonitor.frameRendered(evaluated, System.nanoTime());
+                }
+            }
+        } finally {
+            AsyncConstraint.setFrameRedrawHandler(previousHandler);
+        }
+        if (damage != null && !latencyOverlay) { // the overlay changes every frame
+            canvas.repaint(damage);
+        } else {
+            canvas.repaint();
+        }
+    }
+
+    private void drawScene(Graphics2D graphics) {
+        drawScene(graphics, new BoundaryRectangle(0, 0, getWidth(), getHeight()));
+    }
+
+    private void drawScene(Graphics2D graphics, BoundaryRectangle r) {
         graphics.setColor(canvas.getBackground());
         graphics.fill(r);
         for (GraphicalObject child : children) {
-            child.draw(graphics, r);
+            if (!DragLayer.isHidden(child)) {
+                child.draw(graphics, r);
+            }
         }
-        graphics.dispose();
+    }
+
+    /**
+     * Route an input event; async constraints first computed meanwhile
+     * redraw this window when their result arrives. A behavior that changed
+     * a property (which advances Dependency.getEpoch) dirties the drag layer
+     */
+    private void route(BehaviorEvent event) {
+        Runnable previousHandler = AsyncConstraint.setFrameRedrawHandler(redrawRequest);
+        long epoch = Dependency.getEpoch();
+        try {
+            router.route(event);
+        } finally {
+            if (Dependency.getEpoch() != epoch) {
+                dragLayer.markDirty();
+            }
+            AsyncConstraint.setFrameRedrawHandler(previousHandler);
+        }
+    }
+
+    /**
+     * Schedule a redraw on the event dispatch thread from any thread;
+     * requests made before it runs are coalesced into one redraw
+     */
+    public void requestRedraw() {
+        dragLayer.markDirty();
+        damageRegion.markWhole();
+        if (redrawRequested.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                redrawRequested.set(false);
+                if (isDisplayable()) { // e.g. a late async result after dispose()
+                    redraw();
+                }
+            });
+        }
+    }
+
+    /**
+     * Log the input of this window for ReplayDriver, see InputRecorder
+     */
+    public void startRecording(OutputStream out) throws IOException {
+        stopRecording();
+        inputQueue.setRecorder(new InputRecorder(out));
+    }
+
+    public void stopRecording() {
+        InputRecorder recorder = inputQueue.getRecorder();
+        if (recorder != null) {
+            inputQueue.setRecorder(null);
+            recorder.close();
+        }
+    }
+
+    /**
+     * Input-to-pixel latency of this window, see LatencyMonitor; the
+     * overlay enables the monitor and shows it in the top left corner
+     */
+    public LatencyMonitor getLatencyMonitor() {
+        return latencyMonitor;
+    }
+
+    public void setLatencyOverlay(boolean latencyOverlay) {
+        if (latencyOverlay) {
+            latencyMonitor.setEnabled(true);
+        }
+        this.latencyOverlay = latencyOverlay;
         canvas.repaint();
     }
 
+    private void drawLatencyOverlay(Graphics graphics) {
+        List<String> lines = latencyMonitor.getSummary();
+        if (lines.isEmpty()) {
+            return;
+        }
+        graphics.setFont(OVERLAY_FONT);
+        int lineHeight = graphics.getFontMetrics().getHeight();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, graphics.getFontMetrics().stringWidth(line));
+        }
+        graphics.setColor(OVERLAY_BACKGROUND);
+        graphics.fillRect(0, 0, width + 8, lines.size() * lineHeight + 6);
+        graphics.setColor(Color.white);
+        for (int i = 0; i < lines.size(); i++) {
+            graphics.drawString(lines.get(i), 4, (i + 1) * lineHeight);
+        }
+    }
+
+    public DragLayer getDragLayer() {
+        return dragLayer;
+    }
+
+    public DamageRegion getDamageRegion() {
+        return damageRegion;
+    }
+
+    public InputQueue getInputQueue() {
+        return inputQueue;
+    }
+
     public BufferedImage getBufferedImage() {
         return buffer;
     }
@@ -232,12 +435,7 @@ public class InteractiveWindowGroup extends JFrame implements Group {
         } else {
             children.add(child);
             child.setGroup(this);
-            if (child instanceof Group) {
-                Group groupChild = (Group) child;
-                addBehaviors(groupChild.getBehaviorsToAdd());
-                removeBehaviors(groupChild.getBehaviorsToRemove());
-                groupChild.clearBehaviorsToAdd().clearBehaviorsToRemove();
-            }
+            SelectionModel.childAdded(this, child);
             this.redraw();
         }
         return this;
@@ -253,11 +451,7 @@ public class InteractiveWindowGroup extends JFrame implements Group {
     public Group removeChild(GraphicalObject child) {
         children.remove(child);
         child.setGroup(null);
-        if (child instanceof Group) {
-            for (Behavior behavior : ((Group) child).getBehaviors()) {
-                removeBehavior(behavior);
-            }
-        }
+        SelectionModel.childRemoved(this, child);
         return this;
     }
 
@@ -279,7 +473,6 @@ public class InteractiveWindowGroup extends JFrame implements Group {
 
     public InteractiveWindowGroup addBehavior(Behavior behavior) {
         behaviors.add(behavior);
-        behaviorsSorted = false;
         return this;
     }
 
@@ -303,25 +496,18 @@ public class InteractiveWindowGroup extends JFrame implements Group {
     }
 
     public List<Behavior> getBehaviors() {
-        return new ArrayList<Behavior>(behaviors);
+        return behaviors.getBehaviors();
     }
 
-    /* The following are useless methods */
-    public Behavior[] getBehaviorsToAdd() {
-        return null;
+    public BehaviorDispatcher getBehaviorDispatcher() {
+        return behaviors;
     }
 
-    public Behavior[] getBehaviorsToRemove() {
-        return null;
+    public SelectionModel getSelectionModel() {
+        return selection;
     }
 
-    public Group clearBehaviorsToAdd() {
-        return null;
-    }
-
-    public Group clearBehaviorsToRemove() {
-        return null;
-    }
+    /* The following are useless methods */
 
     public Group bringChildToFront(GraphicalObject child) {
         return this;
@@ -361,6 +547,33 @@ public class InteractiveWindowGroup extends JFrame implements Group {
         return getBoundingBox().contains(x, y);
     }
 
+    /**
+     * Both Window.dispose and GraphicalObject.dispose: the window is the root
+     * of its scene, so closing it through Swing (or a setDefaultCloseOperation
+     * of DISPOSE_ON_CLOSE) also releases the scene. In this order: the drag
+     * layer and damage region are unregistered, the input queue stops
+     * taking events, a running recording is closed, every child is
+     * disposed (its constraints are detached), and then the native window
+     * resources are freed. Children to keep for another window must be
+     * removed before. Calling it again only repeats the Swing part.
+     */
+    @Override
+    public void dispose() {
+        if (sceneReleased) {
+            super.dispose();
+            return;
+        }
+        sceneReleased = true;
+        DragLayer.unregister(this);
+        DamageRegion.unregister(this);
+        inputQueue.close();
+        stopRecording();
+        for (GraphicalObject child : children) {
+            child.dispose();
+        }
+        super.dispose();
+    }
+
     public void setX(Constraint<Integer> constraint) {
     }
 
@@ -0,0 +1,105 @@
+package ui.toolkit.behavior;
+
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    /**
+     * LatencyHistogram class: distribution of durations in nanoseconds
+     *
+     * Buckets are log-linear: every power of two is split into 16 equal
+     * buckets, so a percentile is off by at most 1/16 (about 6%) of its
+     * value, and recording is a couple of shifts and an increment whatever
+     * the number of samples. Durations up to about 18 minutes are kept.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    public synchronized void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = total = max = 0;
+    }
+
+    public synchronized LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, BUCKETS);
+        copy.count = count;
+        copy.total = total;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Getters
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMean() {
+        return (count == 0) ? 0 : total / count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * @param fraction between 0 and 1, e.g. 0.999 for the 99.9th percentile
+     * @return the upper bound of the bucket holding the percentile
+     */
+    public synchronized long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(bucket));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Buckets: values below SUB_BUCKETS have one bucket each; above, the
+     * exponent picks a group of SUB_BUCKETS and the next bits the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,176 @@
+package ui.toolkit.behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LatencyMonitor {
+    /**
+     * LatencyMonitor class: input-to-pixel latency, per event type
+     *
+     * Every event is timed from the moment its listener published it to
+     * the moment each later stage of its frame completed: dispatch to the
+     * behaviors (DISPATCH), evaluation of the pending constraints
+     * (CONSTRAINTS, only separate from rendering when constraint tracking
+     * is on), rendering into the window buffer (RENDER) and painting the
+     * buffer on the canvas (PAINT, the end-to-end latency). Merged mouse
+     * motion counts once per original event.
+     *
+     * The InputQueue reports dispatched events, the window reports its
+     * frames. While disabled (the default, -Dui.toolkit.latency=true to
+     * enable), each of them costs one volatile read per frame.
+     */
+    public static final int DISPATCH = 0;
+    public static final int CONSTRAINTS = 1;
+    public static final int RENDER = 2;
+    public static final int PAINT = 3;
+
+    public static final String PROPERTY = "ui.toolkit.latency";
+
+    private static final int STAGES = 4;
+    private static final int EVENT_TYPES = 8;
+    private static final String[] EVENT_NAMES = {
+        "key down", "key up", "mouse down", "mouse up", "mouse move", "mouse drag", "click", "wheel"
+    };
+    private static final String[] STAGE_NAMES = { "dispatch", "constraints", "render", "paint" };
+
+    // events waiting for a frame that nobody renders are dropped past this
+    private static final int MAX_PENDING = 1 << 16;
+
+    private volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[EVENT_TYPES][STAGES];
+
+    // dispatched, waiting for the frame to be rendered
+    private int[] frameIds = new int[64];
+    private long[] frameReceived = new long[64];
+    private long[] frameDispatched = new long[64];
+    private int frameCount = 0;
+
+    // rendered, waiting for the frame to be painted
+    private int[] paintIds = new int[64];
+    private long[] paintReceived = new long[64];
+    private int paintCount = 0;
+
+    public LatencyMonitor() {
+        for (LatencyHistogram[] stages : histograms) {
+            for (int stage = 0; stage < STAGES; stage++) {
+                stages[stage] = new LatencyHistogram();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            frameCount = paintCount = 0;
+        }
+    }
+
+    /**
+     * Stage timestamps, from System.nanoTime()
+     */
+    synchronized void eventDispatched(int id, long received, long dispatched) {
+        if (!enabled || id < 0 || id >= EVENT_TYPES || frameCount == MAX_PENDING) {
+            return;
+        }
+        if (frameCount == frameIds.length) {
+            frameIds = Arrays.copyOf(frameIds, frameCount * 2);
+            frameReceived = Arrays.copyOf(frameReceived, frameCount * 2);
+            frameDispatched = Arrays.copyOf(frameDispatched, frameCount * 2);
+        }
+        frameIds[frameCount] = id;
+        frameReceived[frameCount] = received;
+        frameDispatched[frameCount] = dispatched;
+        frameCount++;
+    }
+
+    synchronized void frameRendered(long evaluated, long rendered) {
+        if (paintCount + frameCount > paintIds.length) {
+            int capacity = Math.max(paintIds.length * 2, paintCount + frameCount);
+            paintIds = Arrays.copyOf(paintIds, capacity);
+            paintReceived = Arrays.copyOf(paintReceived, capacity);
+        }
+        for (int i = 0; i < frameCount; i++) {
+            LatencyHistogram[] stages = histograms[frameIds[i]];
+            stages[DISPATCH].record(frameDispatched[i] - frameReceived[i]);
+            stages[CONSTRAINTS].record(evaluated - frameReceived[i]);
+            stages[RENDER].record(rendered - frameReceived[i]);
+            paintIds[paintCount] = frameIds[i];
+            paintReceived[paintCount] = frameReceived[i];
+            paintCount++;
+        }
+        frameCount = 0;
+        if (paintCount > MAX_PENDING) {
+            paintCount = 0; // rendered but never painted
+        }
+    }
+
+    synchronized void framePainted(long painted) {
+        for (int i = 0; i < paintCount; i++) {
+            histograms[paintIds[i]][PAINT].record(painted - paintReceived[i]);
+        }
+        paintCount = 0;
+    }
+
+    /**
+     * Results
+     *
+     * @param id    event id, e.g. BehaviorEvent.MOUSE_DRAG_ID
+     * @param stage DISPATCH, CONSTRAINTS, RENDER or PAINT
+     * @return a copy of the latencies from receipt to the end of the stage
+     */
+    public LatencyHistogram getHistogram(int id, int stage) {
+        if (id < 0 || id >= EVENT_TYPES || stage < DISPATCH || stage > PAINT) {
+            throw new RuntimeException("Unsupported event type or latency stage");
+        }
+        return histograms[id][stage].copy();
+    }
+
+    public synchronized void reset() {
+        for (LatencyHistogram[] stages : histograms) {
+            for (LatencyHistogram histogram : stages) {
+                histogram.reset();
+            }
+        }
+        frameCount = paintCount = 0;
+    }
+
+    /**
+     * One line per event type seen: count, then p50/p99/p999 of the
+     * end-to-end latency in milliseconds
+     */
+    public List<String> getSummary() {
+        List<String> lines = new ArrayList<>();
+        for (int id = 0; id < EVENT_TYPES; id++) {
+            LatencyHistogram paint = histograms[id][PAINT].copy();
+            if (paint.getCount() > 0) {
+                lines.add(String.format("%-10s %7d  p50 %6.2f  p99 %6.2f  p999 %6.2f ms", EVENT_NAMES[id],
+                        paint.getCount(), paint.getPercentile(0.5) / 1e6, paint.getPercentile(0.99) / 1e6,
+                        paint.getPercentile(0.999) / 1e6));
+            }
+        }
+        return lines;
+    }
+
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-10s %-12s %8s %10s %10s %10s %10s%n",
+                "event", "stage", "count", "p50 (ms)", "p99", "p999", "max"));
+        for (int id = 0; id < EVENT_TYPES; id++) {
+            for (int stage = DISPATCH; stage <= PAINT; stage++) {
+                LatencyHistogram histogram = histograms[id][stage].copy();
+                if (histogram.getCount() > 0) {
+                    report.append(String.format("%-10s %-12s %8d %10.2f %10.2f %10.2f %10.2f%n",
+                            EVENT_NAMES[id], STAGE_NAMES[stage], histogram.getCount(),
+                            histogram.getPercentile(0.5) / 1e6, histogram.getPercentile(0.99) / 1e6,
+                            histogram.getPercentile(0.999) / 1e6, histogram.getMax() / 1e6));
+                }
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,321 @@
+package ui.toolkit.behavior;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import ui.toolkit.graphics.SpatialIndex;
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.object.GraphicalObject;
+import ui.toolkit.graphics.object.OutlineRect;
+import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
+
+public class MarqueeBehavior implements Behavior {
+    /**
+     * MarqueeBehavior: select the objects of the group inside a rubber band
+     *
+     * Pressing on empty space in the group draws a rectangle from the press
+     * to the mouse; the selectable children it touches (INTERSECTS) or
+     * encloses (CONTAINS) are interim selected while it is dragged, and
+     * become the selection on release. A band started with SHIFT held adds
+     * to the selection instead (given start and stop events that accept
+     * the modifier, e.g. with ANY_MODIFIER).
+     *
+     * The bounding boxes of the selectable children are put in a
+     * SpatialIndex when the band starts. Only objects in the area between
+     * the previous and the current band can change their membership, so
+     * each frame queries those strips alone and calls setInterimSelected
+     * on the objects that entered or left. Children added or moved during
+     * the gesture are not seen until the next one.
+     *
+     * The default priority is -1, ahead of ChoiceBehavior: a SINGLE choice
+     * clears the selection on a release that started in empty space.
+     */
+    private Group group = null;
+    private int state = IDLE;
+    private int priority = -1;
+
+    private int type;
+    private int startX, startY; // where the band starts (wrt group)
+    private Rectangle band = null;
+    private OutlineRect bandObject = null;
+    private SpatialIndex<SelectableGraphicalObject> index = null;
+    private final Set<SelectableGraphicalObject> inside = new LinkedHashSet<>();
+    private boolean extending;
+
+    private Color color = Color.GRAY;
+
+    // Static constants for marquee type
+    public static final int INTERSECTS = 0;
+    public static final int CONTAINS = 1;
+
+    private static final int CELL_SIZE = 64;
+
+    private BehaviorEvent startEvent = BehaviorEvent.DEFAULT_START_EVENT;
+    private BehaviorEvent stopEvent = BehaviorEvent.DEFAULT_STOP_EVENT;
+    private BehaviorEvent cancelEvent = BehaviorEvent.DEFAULT_CANCEL_EVENT;
+
+    /**
+     * MarqueeBehavior constructor
+     *
+     * @param type which objects the band selects, INTERSECTS or CONTAINS
+     */
+    public MarqueeBehavior(int type) {
+        if (type != INTERSECTS && type != CONTAINS) {
+            throw new RuntimeException("Unsupported marquee behavior type");
+        }
+        this.type = type;
+    }
+
+    public MarqueeBehavior() {
+        this(INTERSECTS);
+    }
+
+    public MarqueeBehavior setColor(Color color) {
+        this.color = color;
+        return this;
+    }
+
+    /**
+     * Methods defined in the Behavior interface
+     */
+    public Group getGroup() {
+        return this.group;
+    }
+
+    public Behavior setGroup(Group group) {
+        this.group = group;
+        return this;
+    }
+
+    public int getState() {
+        return this.state;
+    }
+
+    public int getPriority() {
+        return this.priority;
+    }
+
+    public Behavior setPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public BehaviorEvent getStartEvent() {
+        return this.startEvent;
+    }
+
+    public Behavior setStartEvent(BehaviorEvent startEvent) {
+        this.startEvent = startEvent;
+        return this;
+    }
+
+    public BehaviorEvent getStopEvent() {
+        return this.stopEvent;
+    }
+
+    public Behavior setStopEvent(BehaviorEvent stopEvent) {
+        this.stopEvent = stopEvent;
+        return this;
+    }
+
+    public BehaviorEvent getCancelEvent() {
+        return this.cancelEvent;
+    }
+
+    public Behavior setCancelEvent(BehaviorEvent cancelEvent) {
+        this.cancelEvent = cancelEvent;
+        return this;
+    }
+
+    // Compare behavior based on their priorities
+    public int compareTo(Behavior behavior) {
+        return this.getPriority() - behavior.getPriority();
+    }
+
+    /**
+     * Utilities
+     */
+    // The objects inside the band, while it is dragged
+    public List<SelectableGraphicalObject> getInterimSelection() {
+        return new ArrayList<>(inside);
+    }
+
+    // Convert event coordinates from absolute to relative to group
+    private Point findCoordinates(Group group, int x, int y) {
+        Group parentGroup = group.getGroup();
+        if (parentGroup == null) {
+            return new Point(x, y);
+        }
+        return group.parentToChild(findCoordinates(parentGroup, x, y));
+    }
+
+    private boolean isInside(SelectableGraphicalObject object, Rectangle band) {
+        Rectangle box = object.getBoundingBox();
+        return (type == INTERSECTS) ? band.intersects(box) : band.contains(box);
+    }
+
+    // Add the parts of a not covered by b
+    private static void subtract(Rectangle a, Rectangle b, List<Rectangle> parts) {
+        Rectangle common = a.intersection(b);
+        if (common.isEmpty()) {
+            parts.add(a);
+            return;
+        }
+        int right = a.x + a.width, bottom = a.y + a.height;
+        int commonRight = common.x + common.width, commonBottom = common.y + common.height;
+        if (common.y > a.y) { // above
+            parts.add(new Rectangle(a.x, a.y, a.width, common.y - a.y));
+        }
+        if (commonBottom < bottom) { // below
+            parts.add(new Rectangle(a.x, commonBottom, a.width, bottom - commonBottom));
+        }
+        if (common.x > a.x) { // left
+            parts.add(new Rectangle(a.x, common.y, common.x - a.x, common.height));
+        }
+        if (commonRight < right) { // right
+            parts.add(new Rectangle(commonRight, common.y, right - commonRight, common.height));
+        }
+    }
+
+    // Move the band and update interimSelected of the objects that entered or left it
+    private void moveBand(Rectangle next) {
+        List<Rectangle> changed = new ArrayList<>(8);
+        subtract(band, next, changed);
+        subtract(next, band, changed);
+        Set<SelectableGraphicalObject> candidates = new LinkedHashSet<>();
+        for (Rectangle area : changed) {
+            index.query(area, candidates::add);
+        }
+        for (SelectableGraphicalObject candidate : candidates) {
+            boolean nowInside = isInside(candidate, next);
+            if (nowInside != inside.contains(candidate)) {
+                if (nowInside) {
+                    inside.add(candidate);
+                } else {
+                    inside.remove(candidate);
+                }
+                candidate.setInterimSelected(nowInside);
+            }
+        }
+        band = next;
+        bandObject.setX(band.x);
+        bandObject.setY(band.y);
+        bandObject.setWidth(band.width);
+        bandObject.setHeight(band.height);
+    }
+
+    private void finish() {
+        group.removeChild(bandObject);
+        bandObject.dispose();
+        bandObject = null;
+        index = null;
+        band = null;
+        inside.clear();
+        this.state = IDLE;
+    }
+
+    /**
+     * start - only on empty space in the group
+     */
+    public boolean start(BehaviorEvent event) {
+        if (event.matches(this.startEvent) && this.state == IDLE && this.group != null) {
+            int eventX = event.getX(), eventY = event.getY();
+            Point eventInGroup = findCoordinates(group, eventX, eventY);
+            Point eventBesideGroup = group.childToParent(eventInGroup);
+            if (!group.contains(eventBesideGroup)) {
+                return false;
+            }
+
+            index = new SpatialIndex<>(CELL_SIZE);
+            for (GraphicalObject child : group.getChildren()) {
+                if (child.contains(eventInGroup)) {
+                    index = null;
+                    return false;
+                }
+                if (child instanceof SelectableGraphicalObject) {
+                    index.put((SelectableGraphicalObject) child, child.getBoundingBox());
+                }
+            }
+
+            this.startX = eventInGroup.x;
+            this.startY = eventInGroup.y;
+            this.extending = (event.getModifiers() & BehaviorEvent.SHIFT_MODIFIER) != 0;
+            this.band = new Rectangle(startX, startY, 0, 0);
+            this.bandObject = new OutlineRect(startX, startY, 0, 0, color, 1);
+            this.group.addChild(bandObject);
+            this.state = RUNNING_INSIDE;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * running - update interimSelected of the objects the band crosses
+     */
+    public boolean running(BehaviorEvent event) {
+        if (event.matches(this.stopEvent) || event.matches(this.cancelEvent)) {
+            return false;
+        }
+
+        if (this.state != IDLE && event.isMouseMoved()) {
+            int eventX = event.getX(), eventY = event.getY();
+            Point eventInGroup = findCoordinates(group, eventX, eventY);
+            Point eventBesideGroup = group.childToParent(eventInGroup);
+            if (!group.contains(eventBesideGroup)) {
+                this.state = RUNNING_OUTSIDE;
+                return true;
+            }
+
+            this.state = RUNNING_INSIDE;
+            moveBand(new Rectangle(Math.min(startX, eventInGroup.x), Math.min(startY, eventInGroup.y),
+                    Math.abs(startX - eventInGroup.x) + 1, Math.abs(startY - eventInGroup.y) + 1));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * stop - the objects inside the band become the selection
+     */
+    public boolean stop(BehaviorEvent event) {
+        if (event.matches(this.stopEvent) && this.state != IDLE) {
+            if (!extending) {
+                for (SelectableGraphicalObject object : group.getSelectionModel().toList()) {
+                    if (!inside.contains(object)) {
+                        object.setSelected(false);
+                    }
+                }
+            }
+            for (SelectableGraphicalObject object : inside) {
+                object.setInterimSelected(false);
+                object.setSelected(true);
+            }
+            finish();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * cancel
+     */
+    public boolean cancel(BehaviorEvent event) {
+        if (event.matches(this.cancelEvent) && this.state != IDLE) {
+            for (SelectableGraphicalObject object : inside) {
+                object.setInterimSelected(false);
+            }
+            finish();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean check(BehaviorEvent event) {
+        return start(event) || running(event) || stop(event) || cancel(event);
+    }
+}
@@ -1,25 +1,73 @@
 package ui.toolkit.behavior;
 
+import java.awt.Color;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.group.Group;
 import ui.toolkit.graphics.object.BoundaryRectangle;
 import ui.toolkit.graphics.object.GraphicalObject;
+import ui.toolkit.graphics.object.Line;
+import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
 
 public class MoveBehavior implements Behavior {
     /**
      * MoveBehavior class: move objects around in the group
+     *
+     * Pressing on a selected object moves every selected object of the
+     * group (its SelectionModel) along with it, by the same delta. Without
+     * a drag layer, the moving objects are bound to one shared offset for
+     * the drag, so that each step is a single change of it; objects whose
+     * position is constrained elsewhere, or who have none (e.g. a Line),
+     * are moved one by one in the same batch.
+     *
+     * Unless disabled with setDragLayer(false), the moving object is lifted
+     * onto the DragLayer of its window during the drag and only moved when
+     * the drag stops; disable it for objects whose position drives other
+     * constraints, so that these follow the drag.
+     *
+     * With setSnapping(tolerance), the moving objects snap to the edges and
+     * centers of the other children of the group when one of theirs comes
+     * within the tolerance, and a guide is shown along each aligned edge.
+     * The guides are drawn by the DragLayer of the window, lifted or not,
+     * and never join the group.
+     * The edges are sorted once when the drag starts, so every step of the
+     * drag is a few binary searches, whatever the number of children.
      */
     private Group group = null;
     private int state = IDLE;
     private int priority = 0;
 
     private int gridSize = 1;
+    private int snapTolerance = 0;
+    private Color guideColor = Color.MAGENTA;
 
     private int startX, startY; // location of start event (wrt window)
     private int prevX, prevY;   // location of previous move (wrt window)
-    private GraphicalObject movingObject;
+    private GraphicalObject movingObject;       // the one under the cursor
+    private List<GraphicalObject> movingObjects; // with the rest of the selection
+
+    private boolean useDragLayer = true;
+    private DragLayer dragLayer = null; // holding the moving object, if any
+    private int originX, originY;       // position of the lifted object before the drag
+
+    private NoConstraint<Integer> offsetX, offsetY; // followed by the bound objects, while not lifted
+    private List<GraphicalObject> boundObjects;     // moving objects bound to the offset
+    private List<GraphicalObject> unboundObjects;   // the others, moved one by one
+
+    private SnapIndex snapIndex = null;  // edges of the other children, while snapping
+    private Rectangle movingBounds;      // of the moving objects, wrt the moving object
+    private List<Line> guides = Collections.emptyList();
+    private int[] guidesShown = null;    // entries and position the guides were made for
 
     private BehaviorEvent startEvent = BehaviorEvent.DEFAULT_START_EVENT;
     private BehaviorEvent stopEvent = BehaviorEvent.DEFAULT_STOP_EVENT;
@@ -39,6 +87,35 @@ public class MoveBehavior implements Behavior {
         this.gridSize = gridSize;
     }
 
+    /**
+     * @param tolerance distance in pixels within which edges snap, 0 for none
+     */
+    public MoveBehavior setSnapping(int tolerance) {
+        if (tolerance < 0) {
+            throw new RuntimeException("Snap tolerance must not be negative");
+        }
+        this.snapTolerance = tolerance;
+        return this;
+    }
+
+    public int getSnapTolerance() {
+        return this.snapTolerance;
+    }
+
+    public MoveBehavior setGuideColor(Color guideColor) {
+        this.guideColor = guideColor;
+        return this;
+    }
+
+    public boolean usesDragLayer() {
+        return this.useDragLayer;
+    }
+
+    public MoveBehavior setDragLayer(boolean useDragLayer) {
+        this.useDragLayer = useDragLayer;
+        return this;
+    }
+
     /**
      * Methods defined in the Behavior interface
      */
@@ -116,6 +193,227 @@ public class MoveBehavior implements Behavior {
         return group.parentToChild(findCoordinates(parentGroup, x, y));
     }
 
+    /**
+     * Drag layer
+     */
+    private void liftMovingObjects() {
+        DragLayer layer = useDragLayer ? DragLayer.of(group) : null;
+        if (layer != null && layer.lift(movingObjects)) {
+            BoundaryRectangle r = movingObject.getBoundingBox();
+            this.originX = r.x;
+            this.originY = r.y;
+            this.dragLayer = layer;
+        }
+    }
+
+    private void dropMovingObjects() {
+        dragLayer.drop();
+        dragLayer = null;
+    }
+
+    // Where the moving object is, or is shown while it is lifted
+    private Point getMovingPosition() {
+        if (dragLayer != null) {
+            return new Point(originX + dragLayer.getOffsetX(), originY + dragLayer.getOffsetY());
+        }
+        BoundaryRectangle r = movingObject.getBoundingBox();
+        return new Point(r.x, r.y);
+    }
+
+    // The object under the cursor, or the whole selection if it is selected
+    private List<GraphicalObject> findMovingObjects(GraphicalObject object) {
+        if (!(object instanceof SelectableGraphicalObject) || !((SelectableGraphicalObject) object).isSelected()) {
+            return Collections.singletonList(object);
+        }
+        return new ArrayList<>(group.getSelectionModel().toList());
+    }
+
+    /**
+     * Shared offset
+     */
+    // A position that follows the offset from where it was when bound
+    private static class OffsetPosition extends Constraint<Integer> {
+        private final Dependency<Integer> offset;
+        private Integer start = null;
+
+        OffsetPosition(Dependency<Integer> offset) {
+            super(offset);
+            this.offset = offset;
+        }
+
+        // setX and setY hand their new constraint the current position
+        @Override
+        public void setValue(Integer value) {
+            if (start == null) {
+                start = value;
+            }
+            super.setValue(value);
+        }
+
+        public Integer getValue() {
+            return start + offset.getValue();
+        }
+    }
+
+    private void bindToOffset() {
+        offsetX = new NoConstraint<>();
+        offsetY = new NoConstraint<>();
+        offsetX.setValue(0);
+        offsetY.setValue(0);
+        boundObjects = new ArrayList<>();
+        unboundObjects = new ArrayList<>();
+        for (GraphicalObject object : movingObjects) {
+            Constraint<Integer> x = object.useX(), y = object.useY();
+            if (x == null || y == null || x.isConstrained() || y.isConstrained()) {
+                unboundObjects.add(object);
+            } else {
+                boundObjects.add(object);
+            }
+        }
+        Dependency.batch(() -> {
+            for (GraphicalObject object : boundObjects) {
+                object.setX(new OffsetPosition(offsetX));
+                object.setY(new OffsetPosition(offsetY));
+            }
+        });
+    }
+
+    // Leave the bound objects where the offset took them, free again
+    private void unbindFromOffset() {
+        Dependency.batch(() -> {
+            for (GraphicalObject object : boundObjects) {
+                object.getBoundingBox(); // brings the position up to date
+                object.setX(new NoConstraint<>());
+                object.setY(new NoConstraint<>());
+            }
+        });
+        offsetX = offsetY = null;
+        boundObjects = unboundObjects = null;
+    }
+
+    private static void shift(NoConstraint<Integer> offset, int delta) {
+        if (delta != 0) {
+            offset.setValue(offset.getValue() + delta);
+            offset.notifyValueChange(false);
+        }
+    }
+
+    /**
+     * Snapping
+     */
+    private void buildSnapIndex(List<GraphicalObject> children) {
+        Set<GraphicalObject> moving = Collections.newSetFromMap(new IdentityHashMap<>());
+        moving.addAll(movingObjects);
+        Rectangle[] boxes = new Rectangle[children.size()];
+        int count = 0;
+        for (GraphicalObject child : children) {
+            if (!moving.contains(child)) {
+                boxes[count++] = child.getBoundingBox();
+            }
+        }
+        snapIndex = new SnapIndex(Arrays.copyOf(boxes, count));
+
+        BoundaryRectangle r = movingObject.getBoundingBox();
+        Rectangle bounds = new Rectangle(r);
+        for (GraphicalObject object : movingObjects) {
+            bounds = bounds.union(object.getBoundingBox());
+        }
+        bounds.translate(-r.x, -r.y);
+        movingBounds = bounds;
+    }
+
+    /**
+     * @param start position of the moving bounds on the axis
+     * @return the entry of the index the moving bounds snap to, or -1
+     */
+    private int findSnap(int axis, int start, int size, int[] delta) {
+        int[] features = { start, start + size / 2, start + size };
+        int best = -1;
+        for (int feature : features) {
+            int entry = snapIndex.nearest(axis, feature, snapTolerance);
+            if (entry >= 0) {
+                int d = snapIndex.getPosition(axis, entry) - feature;
+                if (best < 0 || Math.abs(d) < Math.abs(delta[0])) {
+                    best = entry;
+                    delta[0] = d;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Snap the free position of the moving object, or keep it on the grid
+    private Point snapToEdges(int freeX, int freeY, int gridX, int gridY) {
+        int[] delta = new int[1];
+        int entryX = findSnap(SnapIndex.X, freeX + movingBounds.x, movingBounds.width, delta);
+        int x = (entryX >= 0) ? freeX + delta[0] : gridX;
+        int entryY = findSnap(SnapIndex.Y, freeY + movingBounds.y, movingBounds.height, delta);
+        int y = (entryY >= 0) ? freeY + delta[0] : gridY;
+        showGuides(entryX, entryY, x + movingBounds.x, y + movingBounds.y);
+        return new Point(x, y);
+    }
+
+    // A line along each aligned edge, over the moving bounds and the object aligned with
+    private void showGuides(int entryX, int entryY, int left, int top) {
+        int[] shown = (entryX < 0 && entryY < 0) ? new int[] { -1, -1, 0, 0 } : new int[] { entryX, entryY, left, top };
+        if (Arrays.equals(shown, guidesShown)) {
+            return;
+        }
+        guidesShown = shown;
+        List<Line> lines = new ArrayList<>(2);
+        if (entryX >= 0) {
+            int x = snapIndex.getPosition(SnapIndex.X, entryX);
+            lines.add(new Line(x, Math.min(top, snapIndex.getSpanStart(SnapIndex.X, entryX)),
+                    x, Math.max(top + movingBounds.height, snapIndex.getSpanEnd(SnapIndex.X, entryX)), guideColor, 1));
+        }
+        if (entryY >= 0) {
+            int y = snapIndex.getPosition(SnapIndex.Y, entryY);
+            lines.add(new Line(Math.min(left, snapIndex.getSpanStart(SnapIndex.Y, entryY)), y,
+                    Math.max(left + movingBounds.width, snapIndex.getSpanEnd(SnapIndex.Y, entryY)), y, guideColor, 1));
+        }
+        setGuides(lines);
+    }
+
+    // Shown by the layer of the window, whether the moving objects are lifted or not
+    private void setGuides(List<Line> lines) {
+        DragLayer layer = (dragLayer != null) ? dragLayer : DragLayer.of(group);
+        if (layer != null) {
+            layer.setGuides(group, lines);
+        }
+        guides = lines;
+    }
+
+    private void stopSnapping() {
+        if (snapIndex != null) {
+            setGuides(Collections.emptyList());
+            snapIndex = null;
+            guidesShown = null;
+        }
+    }
+
+    // The guides shown for the current drag
+    public List<Line> getGuides() {
+        return Collections.unmodifiableList(guides);
+    }
+
+    // Move all the moving objects by the same delta, through the offset if they follow one
+    private void moveObjectsBy(int dx, int dy) {
+        Dependency.batch(() -> {
+            if (offsetX != null) {
+                shift(offsetX, dx);
+                shift(offsetY, dy);
+            }
+            for (GraphicalObject object : (offsetX != null) ? unboundObjects : movingObjects) {
+                BoundaryRectangle r = object.getBoundingBox();
+                object.moveTo(r.x + dx, r.y + dy);
+            }
+        });
+    }
+
+    public List<GraphicalObject> getMovingObjects() {
+        return (state == IDLE) ? Collections.emptyList() : Collections.unmodifiableList(movingObjects);
+    }
+
     /**
      * start
      */
@@ -136,7 +434,15 @@ public class MoveBehavior implements Behavior {
                     this.startX = this.prevX = eventX;
                     this.startY = this.prevY = eventY;
                     this.movingObject = child;
+                    this.movingObjects = findMovingObjects(child);
                     this.state = RUNNING_INSIDE;
+                    liftMovingObjects();
+                    if (dragLayer == null) {
+                        bindToOffset();
+                    }
+                    if (snapTolerance > 0) {
+                        buildSnapIndex(children);
+                    }
                     return true;
                 }
             }
@@ -162,15 +468,24 @@ public class MoveBehavior implements Behavior {
 
             // move the object with mouse
             this.state = RUNNING_INSIDE;
-            BoundaryRectangle r = movingObject.getBoundingBox();
+            Point r = getMovingPosition();
             int newX = r.x - prevX + eventX;
             int newY = r.y - prevY + eventY;
             int fixedNewX = fixToGrid(newX, r.x);
             int fixedNewY = fixToGrid(newY, r.y);
+            if (snapIndex != null) {
+                Point snapped = snapToEdges(newX, newY, fixedNewX, fixedNewY);
+                fixedNewX = snapped.x;
+                fixedNewY = snapped.y;
+            }
             if (fixedNewX != r.x || fixedNewY != r.y) {
                 prevX += fixedNewX - r.x;
                 prevY += fixedNewY - r.y;
-                movingObject.moveTo(fixedNewX, fixedNewY);
+                if (dragLayer != null) {
+                    dragLayer.setOffset(fixedNewX - originX, fixedNewY - originY);
+                } else {
+                    moveObjectsBy(fixedNewX - r.x, fixedNewY - r.y);
+                }
             }
             return true;
         }
@@ -182,6 +497,15 @@ public class MoveBehavior implements Behavior {
      */
     public boolean stop(BehaviorEvent event) {
         if (event.matches(this.stopEvent) && this.state != IDLE) {
+            stopSnapping();
+            if (dragLayer != null) {
+                // commit the drag
+                int dx = dragLayer.getOffsetX(), dy = dragLayer.getOffsetY();
+                dropMovingObjects();
+                moveObjectsBy(dx, dy);
+            } else {
+                unbindFromOffset();
+            }
             this.state = IDLE;
             return true;
         }
@@ -193,10 +517,15 @@ public class MoveBehavior implements Behavior {
      */
     public boolean cancel(BehaviorEvent event) {
         if (event.matches(this.cancelEvent) && this.state != IDLE) {
-            BoundaryRectangle r = movingObject.getBoundingBox();
-            int originalX = r.x - prevX + startX;
-            int originalY = r.y - prevY + startY;
-            movingObject.moveTo(originalX, originalY);
+            stopSnapping();
+            if (dragLayer != null) {
+                // the object never moved
+                dropMovingObjects();
+                this.state = IDLE;
+                return true;
+            }
+            moveObjectsBy(startX - prevX, startY - prevY);
+            unbindFromOffset();
             this.state = IDLE;
             return true;
         }
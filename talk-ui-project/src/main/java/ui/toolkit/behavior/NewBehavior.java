@@ -100,6 +100,11 @@ public abstract class NewBehavior implements Behavior {
         return group.parentToChild(findCoordinates(parentGroup, x, y));
     }
 
+    // Event coordinates relative to the group of the behavior
+    protected Point toGroup(int x, int y) {
+        return findCoordinates(group, x, y);
+    }
+
     /**
      * Abstract classes to be implemented by subclasses
      */
@@ -107,6 +112,16 @@ public abstract class NewBehavior implements Behavior {
     public abstract void resize(GraphicalObject object, int a, int b, int c, int d);
     public abstract boolean isTrivial(GraphicalObject object);
 
+    // Resize with the motion event that ended at (c, d); merged events carry
+    // the positions before it (see BehaviorEvent), for behaviors that trace them
+    public void resize(GraphicalObject object, int a, int b, int c, int d, BehaviorEvent event) {
+        resize(object, a, b, c, d);
+    }
+
+    // Called on the new object once it is drawn, unless trivial
+    public void finish(GraphicalObject object) {
+    }
+
     /**
      * start
      */
@@ -152,7 +167,7 @@ public abstract class NewBehavior implements Behavior {
 
             // resize the newly created object with mouse move
             this.state = RUNNING_INSIDE;
-            resize(newObject, startX, startY, eventInGroup.x, eventInGroup.y);
+            resize(newObject, startX, startY, eventInGroup.x, eventInGroup.y, event);
             return true;
         }
         return false;
@@ -165,6 +180,9 @@ public abstract class NewBehavior implements Behavior {
         if (event.matches(this.stopEvent) && this.state != IDLE) {
             if (isTrivial(newObject)) { // zero-sized objects not allowed
                 this.group.removeChild(newObject);
+                newObject.dispose();
+            } else {
+                finish(newObject);
             }
             this.state = IDLE;
             return true;
@@ -178,6 +196,7 @@ public abstract class NewBehavior implements Behavior {
     public boolean cancel(BehaviorEvent event) {
         if (event.matches(this.cancelEvent) && this.state != IDLE) {
             this.group.removeChild(newObject);
+            newObject.dispose();
             this.state = IDLE;
             return true;
         }
@@ -16,8 +16,8 @@ public class NewLineBehavior extends NewBehavior {
     private Color color;
     private int lineThickness;
 
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
-    private Constraint<Integer> lineThicknessConstraint = new NoConstraint<>();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
 
     /**
      * NewLineBehavior constructor
@@ -94,6 +94,9 @@ public class NewLineBehavior extends NewBehavior {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -126,6 +129,9 @@ public class NewLineBehavior extends NewBehavior {
     }
 
     public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
         return this.lineThicknessConstraint;
     }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package ui.toolkit.behavior;
+
+import java.awt.Color;
+import java.awt.Point;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.constraint.SetupConstraint;
+import ui.toolkit.graphics.object.GraphicalObject;
+import ui.toolkit.graphics.object.Polyline;
+import ui.toolkit.graphics.object.selectable.SelectablePolyline;
+
+public class NewPolylineBehavior extends NewBehavior {
+    /**
+     * NewPolylineBehavior: draw freehand strokes in the group
+     *
+     * Every mouse move adds a point to the stroke, and so does every earlier
+     * position a merged move carries in its history; the stroke leaves out the
+     * points within the tolerance of the stroke (see Polyline), and the
+     * stroke is finished when the behavior stops.
+     */
+    private Color color;
+    private int lineThickness;
+    private double tolerance;
+
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
+
+    /**
+     * NewPolylineBehavior constructor
+     * 
+     * @param color         color of the new strokes
+     * @param lineThickness line thickness of the new strokes
+     * @param tolerance     how far the new strokes may pass from the points
+     *                      they leave out
+     * @param constraint    optional, constraint for the new strokes
+     */
+    public NewPolylineBehavior(Color color, int lineThickness, double tolerance, SetupConstraint constraint) {
+        super(false, constraint);
+        if (tolerance < 0) {
+            throw new RuntimeException("Tolerance must not be negative");
+        }
+        this.color = color;
+        this.lineThickness = lineThickness;
+        this.tolerance = tolerance;
+    }
+
+    public NewPolylineBehavior(Color color, int lineThickness, double tolerance) {
+        this(color, lineThickness, tolerance, null);
+    }
+
+    public NewPolylineBehavior(Color color, int lineThickness) {
+        this(color, lineThickness, 1);
+    }
+
+    public NewPolylineBehavior() {
+        this(Color.BLACK, 1);
+    }
+
+    /**
+     * Implement abstract methods in NewBehavior class
+     */
+    public GraphicalObject make(int x1, int y1, int x2, int y2, SetupConstraint constraint) {
+        SelectablePolyline p = new SelectablePolyline(x1, y1, getColor(), getLineThickness(), tolerance);
+        if (constraint != null) {
+            constraint.setup(p);
+        }
+        return p;
+    }
+
+    public void resize(GraphicalObject object, int x1, int y1, int x2, int y2) {
+        Polyline p = (Polyline) object;
+        p.addPoint(x2, y2);
+    }
+
+    @Override
+    public void resize(GraphicalObject object, int x1, int y1, int x2, int y2, BehaviorEvent event) {
+        Polyline p = (Polyline) object;
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            Point sample = toGroup(event.getHistoricalX(i), event.getHistoricalY(i));
+            p.addPoint(sample.x, sample.y);
+        }
+        p.addPoint(x2, y2);
+    }
+
+    public boolean isTrivial(GraphicalObject object) {
+        Polyline p = (Polyline) object;
+        return p.getPointCount() < 2;
+    }
+
+    // The stroke keeps no raster once drawn
+    public void finish(GraphicalObject object) {
+        ((Polyline) object).finish();
+    }
+
+    public double getTolerance() {
+        return this.tolerance;
+    }
+
+    /**
+     * Getters and setters
+     */
+    public Color getColor() {
+        if (colorConstraint.isConstrained()) {
+            this.color = colorConstraint.evaluate();
+        }
+        return this.color;
+    }
+
+    public NewPolylineBehavior setColor(Color color) {
+        if (this.color != color) {
+            if (!colorConstraint.isConstrained()) {
+                this.color = color;
+                colorConstraint.notifyValueChange(false);
+            } else if (colorConstraint.hasCycle()) {
+                colorConstraint.setValue(color);
+                colorConstraint.notifyValueChange(false);
+            }
+        }
+        return this;
+    }
+
+    public NewPolylineBehavior setColor(Constraint<Color> constraint) {
+        colorConstraint.replaceWithConstraint(constraint);
+        colorConstraint = constraint;
+        colorConstraint.setValue(this.color);
+        colorConstraint.notifyValueChange(true);
+        return this;
+    }
+
+    public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
+        return this.colorConstraint;
+    }
+
+    public int getLineThickness() {
+        if (lineThicknessConstraint.isConstrained()) {
+            this.lineThickness = lineThicknessConstraint.evaluate();
+        }
+        return this.lineThickness;
+    }
+
+    public NewPolylineBehavior setLineThickness(int lineThickness) {
+        if (this.lineThickness != lineThickness) {
+            if (!lineThicknessConstraint.isConstrained()) {
+                this.lineThickness = lineThickness;
+                lineThicknessConstraint.notifyValueChange(false);
+            } else if (lineThicknessConstraint.hasCycle()) {
+                lineThicknessConstraint.setValue(lineThickness);
+                lineThicknessConstraint.notifyValueChange(false);
+            }
+        }
+        return this;
+    }
+
+    public NewPolylineBehavior setLineThickness(Constraint<Integer> constraint) {
+        lineThicknessConstraint.replaceWithConstraint(constraint);
+        lineThicknessConstraint = constraint;
+        lineThicknessConstraint.setValue(this.lineThickness);
+        lineThicknessConstraint.notifyValueChange(true);
+        return this;
+    }
+
+    public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
+        return this.lineThicknessConstraint;
+    }
+}
\ No newline at end of file
@@ -19,9 +19,9 @@ public class NewRectBehavior extends NewBehavior {
     private Color color;
     private int lineThickness;
 
-    private Constraint<Integer> typeConstraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
-    private Constraint<Integer> lineThicknessConstraint = new NoConstraint<>();
+    private Constraint<Integer> typeConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
 
     public static final int OUTLINE_RECT = 0;
     public static final int FILLED_RECT = 1;
@@ -116,6 +116,9 @@ public class NewRectBehavior extends NewBehavior {
     }
 
     public Constraint<Integer> useType() {
+        if (NoConstraint.isNone(typeConstraint)) {
+            typeConstraint = new NoConstraint<>();
+        }
         return this.typeConstraint;
     }
 
@@ -148,6 +151,9 @@ public class NewRectBehavior extends NewBehavior {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -180,6 +186,9 @@ public class NewRectBehavior extends NewBehavior {
     }
 
     public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
         return this.lineThicknessConstraint;
     }
 }
\ No newline at end of file
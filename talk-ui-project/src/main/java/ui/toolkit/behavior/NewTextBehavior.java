@@ -18,9 +18,9 @@ public class NewTextBehavior extends NewBehavior {
     private Font font;
     private Color color;
 
-    private Constraint<String> textConstraint = new NoConstraint<>();
-    private Constraint<Font> fontConstraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
+    private Constraint<String> textConstraint = NoConstraint.none();
+    private Constraint<Font> fontConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
 
     public NewTextBehavior(String text, Font font, Color color, SetupConstraint constraint) {
         super(false, constraint);
@@ -92,6 +92,9 @@ public class NewTextBehavior extends NewBehavior {
     }
 
     public Constraint<String> useText() {
+        if (NoConstraint.isNone(textConstraint)) {
+            textConstraint = new NoConstraint<>();
+        }
         return this.textConstraint;
     }
 
@@ -122,6 +125,9 @@ public class NewTextBehavior extends NewBehavior {
     }
 
     public Constraint<Font> useFont() {
+        if (NoConstraint.isNone(fontConstraint)) {
+            fontConstraint = new NoConstraint<>();
+        }
         return this.fontConstraint;
     }
 
@@ -152,6 +158,9 @@ public class NewTextBehavior extends NewBehavior {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package ui.toolkit.behavior;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+import ui.toolkit.constraint.ConstraintEvaluator;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.graphics.DamageRegion;
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.object.BoundaryRectangle;
+
+public class ReplayDriver {
+    /**
+     * ReplayDriver class: replay recorded input against a scene, without a window
+     *
+     * Events go through the same path as in InteractiveWindowGroup: an
+     * InputQueue (drained on the calling thread) hands them to an EventRouter
+     * over the root group, and every frame evaluates the pending constraints
+     * and renders the root into an off-screen buffer. Each stage is timed
+     * into a ReplayReport.
+     *
+     * AS_FAST_AS_POSSIBLE gives every event a frame of its own, which
+     * measures throughput; ORIGINAL_TIMING waits for the recorded time of
+     * every event and drains whatever is due, so motion merges as it would
+     * have in the session. Constraint tracking is switched on during a
+     * replay, so that constraint evaluation is timed apart from rendering.
+     *
+     * The latency monitor of the driver sees each frame as painted once it
+     * is rendered, and keeps adding up across replays until it is reset.
+     * The driver hosts the drag layer of the root, like a window.
+     */
+    public static final int AS_FAST_AS_POSSIBLE = 0;
+    public static final int ORIGINAL_TIMING = 1;
+
+    private final Group root;
+    private final EventRouter router;
+    private final BufferedImage buffer;
+    private final BoundaryRectangle bounds;
+    private final LatencyMonitor latencyMonitor = new LatencyMonitor();
+    private final DragLayer dragLayer = new DragLayer();
+    private final DamageRegion damageRegion = new DamageRegion();
+    private ReplayReport report = null;
+
+    /**
+     * ReplayDriver constructor
+     *
+     * @param root   the top-level group, standing for the window
+     * @param width  the width of the off-screen buffer
+     * @param height the height of the off-screen buffer
+     */
+    public ReplayDriver(Group root, int width, int height) {
+        this.root = root;
+        this.router = new EventRouter(root);
+        this.buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.bounds = new BoundaryRectangle(0, 0, width, height);
+        this.latencyMonitor.setEnabled(true);
+        DragLayer.register(root, dragLayer);
+        DamageRegion.register(root, damageRegion);
+    }
+
+    /**
+     * Replay the recording on the calling thread
+     *
+     * @param timing AS_FAST_AS_POSSIBLE or ORIGINAL_TIMING
+     */
+    public ReplayReport replay(InputRecording recording, int timing) {
+        if (timing != AS_FAST_AS_POSSIBLE && timing != ORIGINAL_TIMING) {
+            throw new RuntimeException("Unsupported replay timing");
+        }
+        report = new ReplayReport();
+        InputQueue queue = new InputQueue(this::dispatch, this::renderFrame,
+                InputQueue.DEFAULT_CAPACITY, InputQueue.MANUAL);
+        queue.setLatencyMonitor(latencyMonitor);
+        boolean tracking = ConstraintEvaluator.isTracking();
+        ConstraintEvaluator.setTracking(true);
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < recording.size(); i++) {
+                if (timing == ORIGINAL_TIMING) {
+                    long due = start + recording.getTime(i);
+                    if (System.nanoTime() < due) {
+                        queue.drain();
+                        waitUntil(due);
+                    }
+                }
+                queue.post(recording.getModifiers(i), recording.getKey(i), recording.getID(i),
+                        recording.getX(i), recording.getY(i));
+                if (timing == AS_FAST_AS_POSSIBLE) {
+                    queue.drain();
+                }
+            }
+            queue.drain();
+        } finally {
+            queue.close();
+            ConstraintEvaluator.setTracking(tracking);
+        }
+        report.finish(System.nanoTime() - start, recording.getDuration());
+        return report;
+    }
+
+    /**
+     * The scene changed outside of the replayed input (e.g. from a test):
+     * the next frame renders it anew, like a redraw request to a window
+     */
+    public void requestRedraw() {
+        dragLayer.markDirty();
+        damageRegion.markWhole();
+    }
+
+    private void dispatch(BehaviorEvent event) {
+        long start = System.nanoTime();
+        long epoch = Dependency.getEpoch();
+        router.route(event);
+        if (Dependency.getEpoch() != epoch) {
+            dragLayer.markDirty(); // a behavior changed the scene
+        }
+        report.recordDispatch(event.getID(), System.nanoTime() - start);
+    }
+
+    private void renderFrame() {
+        long start = System.nanoTime();
+        if (ConstraintEvaluator.getDefault().evaluatePending() > 0) {
+            dragLayer.markDirty();
+            damageRegion.markWhole();
+        }
+        long evaluated = System.nanoTime();
+
+        Rectangle changed = damageRegion.take();
+        if (dragLayer.composite(buffer, this::drawScene) == null) {
+            Graphics2D graphics = buffer.createGraphics();
+            if (changed != null && dragLayer.getGuides().isEmpty()) {
+                drawScene(graphics, new BoundaryRectangle(changed.intersection(bounds)));
+            } else {
+                drawScene(graphics);
+                dragLayer.drawGuides(graphics, buffer.getWidth(), buffer.getHeight());
+            }
+            graphics.dispose();
+        }
+        long rendered = System.nanoTime();
+        latencyMonitor.frameRendered(evaluated, rendered);
+        latencyMonitor.framePainted(rendered);
+        report.recordFrame(evaluated - start, rendered - evaluated);
+    }
+
+    private void drawScene(Graphics2D graphics) {
+        drawScene(graphics, bounds);
+    }
+
+    private void drawScene(Graphics2D graphics, BoundaryRectangle area) {
+        graphics.setColor(Color.white);
+        graphics.fill(area);
+        root.draw(graphics, area);
+    }
+
+    private static void waitUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    public DragLayer getDragLayer() {
+        return dragLayer;
+    }
+
+    public DamageRegion getDamageRegion() {
+        return damageRegion;
+    }
+
+    public LatencyMonitor getLatencyMonitor() {
+        return latencyMonitor;
+    }
+
+    // The off-screen buffer, as rendered by the last frame
+    public BufferedImage getBufferedImage() {
+        return buffer;
+    }
+}
@@ -0,0 +1,149 @@
+package ui.toolkit.behavior;
+
+import java.util.Arrays;
+
+public class ReplayReport {
+    /**
+     * ReplayReport class: timings of one replay by ReplayDriver
+     *
+     * Dispatch times are kept per dispatched event, constraint evaluation and
+     * render times per frame; when events are replayed as fast as possible
+     * every event gets a frame of its own. All times are in nanoseconds.
+     */
+    public static final int DISPATCH = 0;
+    public static final int CONSTRAINTS = 1;
+    public static final int RENDER = 2;
+
+    private static final String[] STAGE_NAMES = { "dispatch", "constraints", "render" };
+
+    private int events = 0;
+    private int[] eventIds = new int[256];
+    private long[] dispatchTimes = new long[256];
+    private int frames = 0;
+    private long[] constraintTimes = new long[256];
+    private long[] renderTimes = new long[256];
+    private long wallTime = 0;
+    private long recordedDuration = 0;
+
+    void recordDispatch(int id, long nanos) {
+        if (events == eventIds.length) {
+            eventIds = Arrays.copyOf(eventIds, events * 2);
+            dispatchTimes = Arrays.copyOf(dispatchTimes, events * 2);
+        }
+        eventIds[events] = id;
+        dispatchTimes[events] = nanos;
+        events++;
+    }
+
+    void recordFrame(long constraintNanos, long renderNanos) {
+        if (frames == constraintTimes.length) {
+            constraintTimes = Arrays.copyOf(constraintTimes, frames * 2);
+            renderTimes = Arrays.copyOf(renderTimes, frames * 2);
+        }
+        constraintTimes[frames] = constraintNanos;
+        renderTimes[frames] = renderNanos;
+        frames++;
+    }
+
+    void finish(long wallTime, long recordedDuration) {
+        this.wallTime = wallTime;
+        this.recordedDuration = recordedDuration;
+    }
+
+    /**
+     * Getters
+     */
+    // Events handed to the behaviors, after motion was merged
+    public int getEvents() {
+        return events;
+    }
+
+    public int getEventID(int index) {
+        return eventIds[index];
+    }
+
+    public long getDispatchTime(int index) {
+        return dispatchTimes[index];
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public long getConstraintTime(int frame) {
+        return constraintTimes[frame];
+    }
+
+    public long getRenderTime(int frame) {
+        return renderTimes[frame];
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public long getRecordedDuration() {
+        return recordedDuration;
+    }
+
+    // Dispatched events per second of wall time
+    public double getThroughput() {
+        return (wallTime == 0) ? 0 : events * 1e9 / wallTime;
+    }
+
+    /**
+     * Statistics of one stage
+     *
+     * @param stage DISPATCH, CONSTRAINTS or RENDER
+     */
+    public long getTotal(int stage) {
+        long[] times = timesOf(stage);
+        long total = 0;
+        for (long time : times) {
+            total += time;
+        }
+        return total;
+    }
+
+    public long getMean(int stage) {
+        long[] times = timesOf(stage);
+        return (times.length == 0) ? 0 : getTotal(stage) / times.length;
+    }
+
+    /**
+     * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     */
+    public long getPercentile(int stage, double fraction) {
+        long[] times = timesOf(stage);
+        if (times.length == 0) {
+            return 0;
+        }
+        Arrays.sort(times);
+        int rank = (int) Math.ceil(fraction * times.length) - 1;
+        return times[Math.max(0, Math.min(times.length - 1, rank))];
+    }
+
+    private long[] timesOf(int stage) {
+        if (stage == DISPATCH) {
+            return Arrays.copyOf(dispatchTimes, events);
+        } else if (stage == CONSTRAINTS) {
+            return Arrays.copyOf(constraintTimes, frames);
+        } else if (stage == RENDER) {
+            return Arrays.copyOf(renderTimes, frames);
+        }
+        throw new RuntimeException("Unsupported replay stage");
+    }
+
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("events: %d in %d frames, %.1f ms (recorded %.1f ms), %.0f events/s%n",
+                events, frames, wallTime / 1e6, recordedDuration / 1e6, getThroughput()));
+        report.append(String.format("%-12s %10s %10s %10s %10s%n", "stage (us)", "mean", "p50", "p99", "max"));
+        for (int stage = DISPATCH; stage <= RENDER; stage++) {
+            report.append(String.format("%-12s %10.1f %10.1f %10.1f %10.1f%n", STAGE_NAMES[stage],
+                    getMean(stage) / 1e3, getPercentile(stage, 0.5) / 1e3,
+                    getPercentile(stage, 0.99) / 1e3, getPercentile(stage, 1.0) / 1e3));
+        }
+        return report.toString();
+    }
+}
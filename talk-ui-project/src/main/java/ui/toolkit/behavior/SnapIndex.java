@@ -0,0 +1,92 @@
+package ui.toolkit.behavior;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+class SnapIndex {
+    /**
+     * SnapIndex class: the edges and centers of a set of boxes, sorted per axis
+     *
+     * Each axis keeps the positions (left, center and right edges for X,
+     * top, middle and bottom for Y) in one sorted array, with the extent
+     * of their box on the other axis, so the position nearest to a value
+     * is a binary search away.
+     */
+    static final int X = 0;
+    static final int Y = 1;
+
+    private final int[][] positions = new int[2][];
+    private final int[][] spanStarts = new int[2][]; // extent of the box across the axis
+    private final int[][] spanEnds = new int[2][];
+
+    SnapIndex(Rectangle[] boxes) {
+        for (int axis = X; axis <= Y; axis++) {
+            long[] keys = new long[boxes.length * 3];
+            for (int i = 0; i < boxes.length; i++) {
+                Rectangle box = boxes[i];
+                int start = (axis == X) ? box.x : box.y;
+                int size = (axis == X) ? box.width : box.height;
+                keys[3 * i] = key(start, i);
+                keys[3 * i + 1] = key(start + size / 2, i);
+                keys[3 * i + 2] = key(start + size, i);
+            }
+            Arrays.sort(keys);
+
+            positions[axis] = new int[keys.length];
+            spanStarts[axis] = new int[keys.length];
+            spanEnds[axis] = new int[keys.length];
+            for (int k = 0; k < keys.length; k++) {
+                Rectangle box = boxes[(int) keys[k]];
+                positions[axis][k] = (int) (keys[k] >> 32);
+                spanStarts[axis][k] = (axis == X) ? box.y : box.x;
+                spanEnds[axis][k] = (axis == X) ? box.y + box.height : box.x + box.width;
+            }
+        }
+    }
+
+    // position in the high bits, so that keys sort by position
+    private static long key(int position, int box) {
+        return ((long) position << 32) | box;
+    }
+
+    int size() {
+        return positions[X].length;
+    }
+
+    /**
+     * @return the entry nearest to the value on the axis, if it is at most
+     *         tolerance away, or -1
+     */
+    int nearest(int axis, int value, int tolerance) {
+        int[] sorted = positions[axis];
+        int high = Arrays.binarySearch(sorted, value);
+        if (high >= 0) {
+            return high;
+        }
+        high = -high - 1; // first position above the value
+        int best = -1;
+        if (high < sorted.length && sorted[high] - value <= tolerance) {
+            best = high;
+        }
+        if (high > 0 && value - sorted[high - 1] <= tolerance
+                && (best < 0 || value - sorted[high - 1] <= sorted[high] - value)) {
+            best = high - 1;
+        }
+        return best;
+    }
+
+    /**
+     * Getters
+     */
+    int getPosition(int axis, int entry) {
+        return positions[axis][entry];
+    }
+
+    int getSpanStart(int axis, int entry) {
+        return spanStarts[axis][entry];
+    }
+
+    int getSpanEnd(int axis, int entry) {
+        return spanEnds[axis][entry];
+    }
+}
@@ -0,0 +1,424 @@
+package ui.toolkit.behavior;
+
+import java.awt.Point;
+import java.util.Collections;
+
+import javax.swing.Timer;
+
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.group.ScaledGroup;
+
+public class ZoomPanBehavior implements Behavior {
+    /**
+     * ZoomPanBehavior: zoom a scaled group with the wheel and pan it by dragging
+     *
+     * Add it to the group that holds the scaled group, which then acts as
+     * the viewport: every wheel notch scales the content by the zoom step
+     * around the cursor, and dragging from the start event (the middle
+     * button by default) to the stop event moves it.
+     *
+     * While a gesture goes on, the scaled group is lifted onto the DragLayer
+     * of its window and its cached raster is moved and stretched there, so
+     * a dense scene is not rendered again for every step; the scale and
+     * position of the group are only set, and the content rendered at full
+     * quality, once the gesture settles. A pan settles when it stops; a run
+     * of wheel notches the settle time after the last notch (from a Swing
+     * timer, on the input thread of the window), on the first mouse move
+     * after that, when the mouse leaves the viewport, before any other
+     * event (e.g. a click) is routed, so that it hits the new geometry, or
+     * with settle(). Without a drag layer, every step is applied to the
+     * group.
+     */
+    private Group group = null;
+    private int state = IDLE;
+    private int priority = 0;
+
+    private final ScaledGroup content;
+    private double zoomStep = 1.1;
+    private double minScale = 0.05, maxScale = 20;
+    private long settleNanos = 150_000_000L;
+
+    // the gesture: content at zoom * (position before the gesture) + pan
+    private boolean panning = false;
+    private double zoom = 1, panX = 0, panY = 0;
+    private double startScaleX, startScaleY; // the group before the gesture, for cancel
+    private int startX, startY;
+    private int prevX, prevY;  // location of previous move (wrt viewport)
+    private long lastNotch;    // System.nanoTime() of the last wheel notch
+    private DragLayer dragLayer = null;
+    private Timer settleTimer = null;
+
+    private long settled = 0;
+
+    private BehaviorEvent startEvent = new BehaviorEvent(
+        BehaviorEvent.NO_MODIFIER, BehaviorEvent.MIDDLE_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID);
+    private BehaviorEvent stopEvent = new BehaviorEvent(
+        BehaviorEvent.NO_MODIFIER, BehaviorEvent.MIDDLE_MOUSE_KEY, BehaviorEvent.MOUSE_UP_ID);
+    private BehaviorEvent cancelEvent = BehaviorEvent.DEFAULT_CANCEL_EVENT;
+    private BehaviorEvent zoomInEvent = new BehaviorEvent(
+        BehaviorEvent.NO_MODIFIER, BehaviorEvent.SCROLLWHEEL_UP_KEY, BehaviorEvent.SCROLLWHEEL_ID);
+    private BehaviorEvent zoomOutEvent = new BehaviorEvent(
+        BehaviorEvent.NO_MODIFIER, BehaviorEvent.SCROLLWHEEL_DOWN_KEY, BehaviorEvent.SCROLLWHEEL_ID);
+
+    /**
+     * ZoomPanBehavior constructor
+     *
+     * @param content the scaled group to zoom and pan, a child of the group
+     *                the behavior is added to
+     */
+    public ZoomPanBehavior(ScaledGroup content) {
+        if (content == null) {
+            throw new RuntimeException("Zoom and pan need a scaled group");
+        }
+        this.content = content;
+    }
+
+    public ScaledGroup getContent() {
+        return content;
+    }
+
+    // Scale factor of one wheel notch, above 1
+    public ZoomPanBehavior setZoomStep(double zoomStep) {
+        if (zoomStep <= 1) {
+            throw new RuntimeException("Zoom step must be above 1");
+        }
+        this.zoomStep = zoomStep;
+        return this;
+    }
+
+    public ZoomPanBehavior setScaleLimits(double minScale, double maxScale) {
+        if (minScale <= 0 || minScale > maxScale) {
+            throw new RuntimeException("Unsupported scale limits");
+        }
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        return this;
+    }
+
+    public ZoomPanBehavior setSettleTime(long millis) {
+        this.settleNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    // Gestures applied to the scaled group so far
+    public long getSettledGestures() {
+        return settled;
+    }
+
+    /**
+     * Methods defined in the Behavior interface
+     */
+    public Group getGroup() {
+        return this.group;
+    }
+
+    public Behavior setGroup(Group group) {
+        this.group = group;
+        return this;
+    }
+
+    public int getState() {
+        return this.state;
+    }
+
+    public int getPriority() {
+        return this.priority;
+    }
+
+    public Behavior setPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public BehaviorEvent getStartEvent() {
+        return this.startEvent;
+    }
+
+    public Behavior setStartEvent(BehaviorEvent startEvent) {
+        this.startEvent = startEvent;
+        return this;
+    }
+
+    public BehaviorEvent getStopEvent() {
+        return this.stopEvent;
+    }
+
+    public Behavior setStopEvent(BehaviorEvent stopEvent) {
+        this.stopEvent = stopEvent;
+        return this;
+    }
+
+    public BehaviorEvent getCancelEvent() {
+        return this.cancelEvent;
+    }
+
+    public Behavior setCancelEvent(BehaviorEvent cancelEvent) {
+        this.cancelEvent = cancelEvent;
+        return this;
+    }
+
+    public BehaviorEvent[] getOtherEvents() {
+        return new BehaviorEvent[] { zoomInEvent, zoomOutEvent };
+    }
+
+    public ZoomPanBehavior setZoomEvents(BehaviorEvent zoomInEvent, BehaviorEvent zoomOutEvent) {
+        this.zoomInEvent = zoomInEvent;
+        this.zoomOutEvent = zoomOutEvent;
+        return this;
+    }
+
+    // Compare behavior based on their priorities
+    public int compareTo(Behavior behavior) {
+        return this.getPriority() - behavior.getPriority();
+    }
+
+    // Convert event coordinates from absolute to relative to group
+    private Point findCoordinates(Group group, int x, int y) {
+        Group parentGroup = group.getGroup();
+        if (parentGroup == null) {
+            return new Point(x, y);
+        }
+        return group.parentToChild(findCoordinates(parentGroup, x, y));
+    }
+
+    /**
+     * Gesture
+     */
+    private void begin() {
+        zoom = 1;
+        panX = panY = 0;
+        startScaleX = content.getScaleX();
+        startScaleY = content.getScaleY();
+        startX = content.getX();
+        startY = content.getY();
+        DragLayer layer = DragLayer.of(group);
+        if (layer != null && layer.lift(Collections.singletonList(content))) {
+            dragLayer = layer;
+        }
+    }
+
+    // Scale by the factor around a point of the viewport
+    private void zoomBy(double factor, int x, int y) {
+        double scale = content.getScaleX() * zoom;
+        factor = Math.max(minScale / scale, Math.min(maxScale / scale, factor));
+        zoom *= factor;
+        panX = panX * factor + x * (1 - factor);
+        panY = panY * factor + y * (1 - factor);
+        show();
+    }
+
+    private void panBy(int dx, int dy) {
+        panX += dx;
+        panY += dy;
+        show();
+    }
+
+    private void show() {
+        if (dragLayer != null) {
+            dragLayer.setScale(zoom);
+            dragLayer.setOffset((int) Math.round(panX), (int) Math.round(panY));
+        } else {
+            apply();
+            zoom = 1;
+            panX = panY = 0;
+        }
+    }
+
+    // Set the scale and position of the group to what the gesture shows
+    private void apply() {
+        if (zoom == 1 && panX == 0 && panY == 0) {
+            return;
+        }
+        int x = (int) Math.round(content.getX() * zoom + panX);
+        int y = (int) Math.round(content.getY() * zoom + panY);
+        double scaleX = content.getScaleX() * zoom, scaleY = content.getScaleY() * zoom;
+        Dependency.batch(() -> {
+            content.setScaleX(scaleX);
+            content.setScaleY(scaleY);
+            content.moveTo(x, y);
+        });
+    }
+
+    // Settle the zoom the settle time after the last notch, in a window
+    private void armSettleTimer() {
+        if (windowOf(group) == null) {
+            return;
+        }
+        if (settleTimer == null) {
+            settleTimer = new Timer(0, e -> {
+                InteractiveWindowGroup window = windowOf(group);
+                if (window != null) {
+                    window.runOnInput(this::settleZoom);
+                }
+            });
+            settleTimer.setRepeats(false);
+        }
+        settleTimer.setInitialDelay((int) (settleNanos / 1_000_000L));
+        settleTimer.restart();
+    }
+
+    private static InteractiveWindowGroup windowOf(Group group) {
+        while (group != null && group.getGroup() != null) {
+            group = group.getGroup();
+        }
+        return (group instanceof InteractiveWindowGroup) ? (InteractiveWindowGroup) group : null;
+    }
+
+    private void settleZoom() {
+        if (this.state != IDLE && !panning) {
+            settle();
+        }
+    }
+
+    private void stopSettleTimer() {
+        if (settleTimer != null) {
+            settleTimer.stop();
+        }
+    }
+
+    // Apply the gesture going on, if any
+    public void settle() {
+        if (this.state == IDLE) {
+            return;
+        }
+        stopSettleTimer();
+        if (dragLayer != null) {
+            dragLayer.drop();
+            dragLayer = null;
+        }
+        apply();
+        panning = false;
+        settled++;
+        this.state = IDLE;
+    }
+
+    /**
+     * start - pan
+     */
+    public boolean start(BehaviorEvent event) {
+        if (event.matches(this.startEvent) && !panning && this.group != null && content.getGroup() != null) {
+            Point eventInViewport = findCoordinates(content.getGroup(), event.getX(), event.getY());
+            Point eventBesideGroup = group.childToParent(findCoordinates(group, event.getX(), event.getY()));
+            if (!group.contains(eventBesideGroup)) {
+                return false;
+            }
+            if (this.state == IDLE) {
+                begin();
+            }
+            this.prevX = eventInViewport.x;
+            this.prevY = eventInViewport.y;
+            this.panning = true;
+            this.state = RUNNING_INSIDE;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * running - pan with the mouse, settle wheel notches
+     */
+    public boolean running(BehaviorEvent event) {
+        if (event.matches(this.stopEvent) || event.matches(this.cancelEvent)) {
+            return false;
+        }
+
+        if (this.state != IDLE && event.isMouseMoved()) {
+            Point eventBesideGroup = group.childToParent(findCoordinates(group, event.getX(), event.getY()));
+            if (!group.contains(eventBesideGroup)) {
+                if (panning) {
+                    this.state = RUNNING_OUTSIDE;
+                } else {
+                    settle();
+                }
+                return true;
+            }
+            this.state = RUNNING_INSIDE;
+            if (panning) {
+                Point eventInViewport = findCoordinates(content.getGroup(), event.getX(), event.getY());
+                panBy(eventInViewport.x - prevX, eventInViewport.y - prevY);
+                prevX = eventInViewport.x;
+                prevY = eventInViewport.y;
+            } else if (System.nanoTime() - lastNotch >= settleNanos) {
+                settle();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * zoom - one wheel notch
+     */
+    public boolean zoom(BehaviorEvent event) {
+        boolean zoomIn = event.matches(this.zoomInEvent);
+        if ((zoomIn || event.matches(this.zoomOutEvent)) && this.group != null && content.getGroup() != null) {
+            Point eventBesideGroup = group.childToParent(findCoordinates(group, event.getX(), event.getY()));
+            if (!group.contains(eventBesideGroup)) {
+                return false;
+            }
+            if (this.state == IDLE) {
+                begin();
+                this.state = RUNNING_INSIDE;
+            }
+            Point eventInViewport = findCoordinates(content.getGroup(), event.getX(), event.getY());
+            zoomBy(zoomIn ? zoomStep : 1 / zoomStep, eventInViewport.x, eventInViewport.y);
+            lastNotch = System.nanoTime();
+            armSettleTimer();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * stop - apply the pan (and the zoom before it)
+     */
+    public boolean stop(BehaviorEvent event) {
+        if (event.matches(this.stopEvent) && panning) {
+            settle();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * cancel - leave the group as it was before the gesture
+     */
+    public boolean cancel(BehaviorEvent event) {
+        if (event.matches(this.cancelEvent) && this.state != IDLE) {
+            stopSettleTimer();
+            if (dragLayer != null) {
+                dragLayer.drop();
+                dragLayer = null;
+            } else {
+                // the steps went to the group: take them back
+                Dependency.batch(() -> {
+                    content.setScaleX(startScaleX);
+                    content.setScaleY(startScaleY);
+                    content.moveTo(startX, startY);
+                });
+            }
+            zoom = 1;
+            panX = panY = 0;
+            panning = false;
+            this.state = IDLE;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * A zoom settles before events it does not handle reach the scene
+     */
+    public void beforeRouting(BehaviorEvent event) {
+        if (!event.matches(this.startEvent) && !event.matches(this.stopEvent)
+                && !event.matches(this.cancelEvent) && !event.matches(this.zoomInEvent)
+                && !event.matches(this.zoomOutEvent)) {
+            settleZoom();
+        }
+    }
+
+    public boolean check(BehaviorEvent event) {
+        return start(event) || running(event) || zoom(event) || stop(event) || cancel(event);
+    }
+}
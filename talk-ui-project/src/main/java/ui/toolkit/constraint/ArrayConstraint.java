@@ -0,0 +1,146 @@
+package ui.toolkit.constraint;
+
+import java.util.Arrays;
+
+public abstract class ArrayConstraint<E> extends Constraint<E[]> {
+    /**
+     * ArrayConstraint class: one node computing the values of a whole row of
+     * homogeneous properties (e.g. all indicator colors of a panel), each of
+     * which binds to its index with element(i)
+     * 
+     * An element is not a vertex of the graph: it reads the array when the
+     * array is out of date or has a new version, so binding N properties
+     * adds no edges and a change only invalidates the array node. An element
+     * that other constraints depend on, or that is subscribed to, is linked
+     * to the array like a normal constraint, so that out-of-date signals
+     * still reach its dependents and subscribers
+     */
+    public ArrayConstraint(Dependency<?>... dependencies) {
+        super(dependencies);
+    }
+
+    public ArrayConstraint(String name, Dependency<?>... dependencies) {
+        super(name, dependencies);
+    }
+
+    /**
+     * Add or remove an input after construction, e.g. when a widget gets a
+     * new child or loses one
+     */
+    public ArrayConstraint<E> addInput(Dependency<?> dependency) {
+        Edge edge = new Edge(dependency, this);
+        this.addInEdge(edge);
+        dependency.addOutEdge(edge);
+        this.setOutOfDate(true);
+        return this;
+    }
+
+    public ArrayConstraint<E> removeInput(Dependency<?> dependency) {
+        for (Edge edge : inEdges()) {
+            if (edge.getStart() == dependency) {
+                this.removeInEdge(edge);
+                dependency.removeOutEdge(edge);
+                // no version of the other inputs changed: have them read again
+                for (Edge inEdge : inEdges()) {
+                    inEdge.setConsumedVersion(-1);
+                }
+                this.setOutOfDate(true);
+                break;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected boolean valueEquals(E[] newValue, E[] oldValue) {
+        return Arrays.equals(newValue, oldValue);
+    }
+
+    /**
+     * @return a constraint whose value is the index-th entry of the array
+     */
+    public Constraint<E> element(int index) {
+        return new Element(index);
+    }
+
+    private class Element extends Constraint<E> {
+        private final int index;
+        private volatile long consumedVersion = -1;
+        private volatile boolean linked = false;
+
+        Element(int index) {
+            super();
+            this.index = index;
+        }
+
+        public E getValue() {
+            E[] values = ArrayConstraint.this.evaluate();
+            return (values != null && index < values.length) ? values[index] : null;
+        }
+
+        @Override
+        public boolean isConstrained() {
+            return true;
+        }
+
+        @Override
+        public boolean isOutOfDate() {
+            if (linked) {
+                return super.isOutOfDate();
+            }
+            return ArrayConstraint.this.isOutOfDate()
+                || this.consumedVersion != ArrayConstraint.this.getVersion();
+        }
+
+        @Override
+        public E evaluate() {
+            if (linked) {
+                return super.evaluate();
+            }
+            if (isOutOfDate()) {
+                E value = getValue();
+                this.consumedVersion = ArrayConstraint.this.getVersion();
+                this.value = value;
+            }
+            return this.value;
+        }
+
+        @Override
+        public void setValue(E value) {
+            super.setValue(value);
+            // properties pass their old value on binding: read the array again
+            this.consumedVersion = -1;
+            for (Edge inEdge : inEdges()) {
+                inEdge.setConsumedVersion(-1);
+            }
+        }
+
+        private synchronized void link() {
+            if (!linked) {
+                Edge inEdge = new Edge(ArrayConstraint.this, this);
+                this.addInEdge(inEdge);
+                ArrayConstraint.this.addOutEdge(inEdge);
+                this.setOutOfDate(true);
+                linked = true;
+            }
+        }
+
+        @Override
+        public void addOutEdge(Edge edge) {
+            link();
+            super.addOutEdge(edge);
+        }
+
+        @Override
+        void addSubscription(Subscription<E> subscription) {
+            link();
+            super.addSubscription(subscription);
+            evaluate(); // only an up-to-date element hears of the next change
+        }
+
+        @Override
+        public String toString() {
+            return ArrayConstraint.this + "[" + index + "]";
+        }
+    }
+}
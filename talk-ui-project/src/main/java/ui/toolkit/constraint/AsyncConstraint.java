@@ -0,0 +1,163 @@
+package ui.toolkit.constraint;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public abstract class AsyncConstraint<T> extends Constraint<T> {
+    /**
+     * AsyncConstraint class: a constraint whose slow computation (e.g. image
+     * loading or measuring huge strings) runs on a background executor
+     * 
+     * Implement compute() instead of getValue(). Until a result is ready the
+     * constraint keeps its last value, or the placeholder the first time (a
+     * null placeholder keeps the old value of the property it is bound to).
+     * A finished computation sets the value, marks the dependents out of date
+     * and asks the window that started it to redraw; a computation whose
+     * inputs changed again meanwhile is cancelled
+     *
+     * Windows set their redraw handler on the thread while they handle input
+     * and render (setFrameRedrawHandler), and a constraint remembers the one
+     * of the last frame that computed it. One never computed in a frame (e.g.
+     * read by a test or a headless host) asks the handlers registered with
+     * addRedrawHandler instead.
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "AsyncConstraint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final List<Runnable> redrawHandlers = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Runnable> frameRedrawHandler = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private Future<?> pending = null;
+    private long generation = 0;
+    private boolean showingPlaceholder; // no result yet: bindings keep the placeholder
+    private volatile Runnable redrawHandler = null; // of the last frame that computed it
+
+    public AsyncConstraint(T placeholder, Dependency<?>... dependencies) {
+        this(DEFAULT_EXECUTOR, placeholder, dependencies);
+    }
+
+    public AsyncConstraint(ExecutorService executor, T placeholder, Dependency<?>... dependencies) {
+        super(dependencies);
+        this.executor = executor;
+        this.value = placeholder;
+        this.showingPlaceholder = (placeholder != null);
+    }
+
+    /**
+     * The slow computation, called on the executor; it must only read
+     * values that are safe to read from another thread
+     */
+    public abstract T compute();
+
+    /**
+     * Start a computation for the current inputs and keep the current value
+     */
+    public final synchronized T getValue() {
+        Runnable frameHandler = frameRedrawHandler.get();
+        if (frameHandler != null) {
+            redrawHandler = frameHandler;
+        }
+        cancel();
+        long currentGeneration = ++generation;
+        pending = executor.submit(() -> {
+            T result;
+            try {
+                result = compute();
+            } catch (Exception e) {
+                if (isCurrent(currentGeneration)) {
+                    System.err.println(String.format("ERROR: in %s.compute(): %s", this, e));
+                }
+                return;
+            }
+            complete(currentGeneration, result);
+        });
+        return this.value;
+    }
+
+    @Override
+    public synchronized void setValue(T value) {
+        // properties pass their old value on binding: the placeholder stays
+        if (!showingPlaceholder) {
+            super.setValue(value);
+        }
+    }
+
+    private synchronized boolean isCurrent(long resultGeneration) {
+        return resultGeneration == generation;
+    }
+
+    private void complete(long resultGeneration, T result) {
+        synchronized (this) {
+            if (resultGeneration != generation) {
+                return;
+            }
+            pending = null;
+            showingPlaceholder = false;
+            this.value = result;
+        }
+        // publish, keeping the constraint out of date if its inputs changed
+        notifyValueChange(isOutOfDate());
+        Runnable handler = redrawHandler;
+        if (handler != null) {
+            handler.run();
+        } else {
+            for (Runnable globalHandler : redrawHandlers) {
+                globalHandler.run();
+            }
+        }
+    }
+
+    public synchronized boolean isComputing() {
+        return pending != null;
+    }
+
+    // Inputs changed: the running computation is stale
+    @Override
+    protected synchronized void onOutOfDate() {
+        cancel();
+    }
+
+    private void cancel() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+            generation++;
+        }
+    }
+
+    /**
+     * Redraw handlers are run on the executor thread after a computation
+     * finished; they should only schedule the actual redraw
+     *
+     * @return the handler set on the thread before, to restore when the
+     *         frame is done
+     */
+    public static Runnable setFrameRedrawHandler(Runnable handler) {
+        Runnable previous = frameRedrawHandler.get();
+        if (handler == null) {
+            frameRedrawHandler.remove();
+        } else {
+            frameRedrawHandler.set(handler);
+        }
+        return previous;
+    }
+
+    static Runnable getFrameRedrawHandler() {
+        return frameRedrawHandler.get();
+    }
+
+    // For constraints computed outside any frame
+    public static void addRedrawHandler(Runnable handler) {
+        redrawHandlers.add(handler);
+    }
+
+    public static void removeRedrawHandler(Runnable handler) {
+        redrawHandlers.remove(handler);
+    }
+}
@@ -0,0 +1,246 @@
+package ui.toolkit.constraint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ConstraintEvaluator {
+    /**
+     * ConstraintEvaluator class: eager "evaluate all out-of-date" pass
+     *
+     * The out-of-date part of the graph above the given targets is split
+     * into weakly connected components, which share no dependency and are
+     * therefore evaluated concurrently on a ForkJoinPool; inside a component
+     * the usual lazy evaluation keeps inputs ahead of their users.
+     *
+     * With tracking enabled (-Dui.toolkit.constraint.parallel=true or
+     * setTracking), every sink dependency that becomes out of date is queued
+     * and InteractiveWindowGroup drains the queue before it renders a frame
+     */
+    public static final String TRACKING_PROPERTY = "ui.toolkit.constraint.parallel";
+
+    // number of out-of-date dependencies packed into one task
+    private static final int BATCH_SIZE = 256;
+
+    private static final ConstraintEvaluator DEFAULT = new ConstraintEvaluator();
+    private static volatile boolean tracking = Boolean.getBoolean(TRACKING_PROPERTY);
+    private static final Queue<Dependency<?>> pending = new ConcurrentLinkedQueue<>();
+
+    private final ForkJoinPool pool;
+
+    public ConstraintEvaluator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ConstraintEvaluator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static ConstraintEvaluator getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Pending sinks tracking
+     */
+    public static boolean isTracking() {
+        return tracking;
+    }
+
+    public static void setTracking(boolean tracking) {
+        ConstraintEvaluator.tracking = tracking;
+        if (!tracking) {
+            pending.clear();
+        }
+    }
+
+    // Called by Dependency when a dependency without successors goes out of date
+    static void enqueue(Dependency<?> dependency) {
+        pending.add(dependency);
+    }
+
+    /**
+     * Evaluate every sink queued since the last pass
+     *
+     * @return the number of queued sinks that were out of date
+     */
+    public int evaluatePending() {
+        List<Dependency<?>> targets = new ArrayList<>();
+        Dependency<?> dependency;
+        while ((dependency = pending.poll()) != null) {
+            targets.add(dependency);
+        }
+        return evaluateAll(targets);
+    }
+
+    /**
+     * Bring the targets and all their out-of-date inputs up to date
+     *
+     * @param targets dependencies whose values are about to be read
+     * @return the number of targets that were out of date
+     */
+    public int evaluateAll(Collection<? extends Dependency<?>> targets) {
+        if (pool.getParallelism() == 1) {
+            // nothing to gain from partitioning: evaluate on the caller
+            int count = 0;
+            for (Dependency<?> target : targets) {
+                if (target.isOutOfDate()) {
+                    target.evaluate();
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // collect the out-of-date subgraph above the targets
+        Map<Dependency<?>, Integer> index = new IdentityHashMap<>(targets.size() * 4);
+        List<Dependency<?>> nodes = new ArrayList<>();
+        Deque<Dependency<?>> stack = new ArrayDeque<>();
+        for (Dependency<?> target : targets) {
+            if (target.isOutOfDate() && !index.containsKey(target)) {
+                index.put(target, nodes.size());
+                nodes.add(target);
+                stack.push(target);
+            }
+        }
+        int targetCount = nodes.size();
+        if (targetCount == 0) {
+            return 0;
+        }
+
+        // link every node with its out-of-date inputs (union-find)
+        int[] parent = new int[Math.max(16, nodes.size())];
+        for (int i = 0; i < nodes.size(); i++) {
+            parent[i] = i;
+        }
+        while (!stack.isEmpty()) {
+            Dependency<?> node = stack.pop();
+            int nodeIndex = index.get(node);
+            for (Edge inEdge : node.inEdges()) {
+                Dependency<?> start = inEdge.getStart();
+                if (!start.isOutOfDate()) {
+                    continue;
+                }
+                Integer startIndex = index.get(start);
+                if (startIndex == null) {
+                    startIndex = nodes.size();
+                    index.put(start, startIndex);
+                    nodes.add(start);
+                    stack.push(start);
+                    if (startIndex == parent.length) {
+                        parent = Arrays.copyOf(parent, parent.length * 2);
+                    }
+                    parent[startIndex] = startIndex;
+                }
+                union(parent, nodeIndex, startIndex);
+            }
+        }
+
+        // group the targets by component, remembering component sizes
+        int[] componentSize = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            componentSize[find(parent, i)]++;
+        }
+        Map<Integer, List<Dependency<?>>> components = new LinkedHashMap<>();
+        for (Dependency<?> target : targets) {
+            Integer targetIndex = index.get(target);
+            if (targetIndex != null) {
+                components.computeIfAbsent(find(parent, targetIndex), k -> new ArrayList<>()).add(target);
+            }
+        }
+
+        // pack small components together so that tasks are not too fine
+        List<Batch> batches = new ArrayList<>();
+        Batch batch = new Batch();
+        for (Map.Entry<Integer, List<Dependency<?>>> component : components.entrySet()) {
+            batch.targets.addAll(component.getValue());
+            batch.size += componentSize[component.getKey()];
+            if (batch.size >= BATCH_SIZE) {
+                batches.add(batch);
+                batch = new Batch();
+            }
+        }
+        if (!batch.targets.isEmpty()) {
+            batches.add(batch);
+        }
+
+        if (batches.size() == 1) {
+            batches.get(0).evaluate();
+        } else {
+            pool.invoke(new BatchTask(batches, 0, batches.size(), AsyncConstraint.getFrameRedrawHandler()));
+        }
+        return targetCount;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[rootB] = rootA;
+        }
+    }
+
+    /**
+     * A set of whole components evaluated on one thread
+     */
+    private static class Batch {
+        private final List<Dependency<?>> targets = new ArrayList<>();
+        private int size = 0;
+
+        private void evaluate() {
+            for (Dependency<?> target : targets) {
+                target.evaluate();
+            }
+        }
+    }
+
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Batch> batches;
+        private final int from;
+        private final int to;
+        private final Runnable redrawHandler; // of the frame the evaluation is for
+
+        BatchTask(List<Batch> batches, int from, int to, Runnable redrawHandler) {
+            this.batches = batches;
+            this.from = from;
+            this.to = to;
+            this.redrawHandler = redrawHandler;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Runnable previous = AsyncConstraint.setFrameRedrawHandler(redrawHandler);
+                try {
+                    batches.get(from).evaluate();
+                } finally {
+                    AsyncConstraint.setFrameRedrawHandler(previous);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(batches, from, middle, redrawHandler),
+                        new BatchTask(batches, middle, to, redrawHandler));
+            }
+        }
+    }
+}
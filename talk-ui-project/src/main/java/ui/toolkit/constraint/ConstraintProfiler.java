@@ -0,0 +1,218 @@
+package ui.toolkit.constraint;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class ConstraintProfiler implements ConstraintProfilerMBean {
+    /**
+     * ConstraintProfiler class: opt-in instrumentation of the dependency graph
+     * 
+     * Enable with -Dui.toolkit.constraint.profile=true or setEnabled(true).
+     * Statistics are reported per dependency (by name for named constraints)
+     * through the JMX bean ui.toolkit.constraint:type=ConstraintProfiler
+     * or as CSV through dumpCsv()
+     *
+     * Each dependency holds its own statistics; the profiler only refers to
+     * them weakly, so the statistics of a collected or detached dependency
+     * leave the reports with it
+     */
+    public static final String PROFILE_PROPERTY = "ui.toolkit.constraint.profile";
+    public static final String OBJECT_NAME = "ui.toolkit.constraint:type=ConstraintProfiler";
+
+    private static final ConstraintProfiler INSTANCE = new ConstraintProfiler();
+    private static volatile boolean profiling = false;
+    private static volatile long generation = 0;
+
+    private static final int MIN_PRUNE_SIZE = 1024;
+
+    private final List<WeakReference<ConstraintStats>> stats = new ArrayList<>();
+    private int pruneAt = MIN_PRUNE_SIZE; // prune the cleared references when this many
+    private boolean registered = false;
+
+    static {
+        if (Boolean.getBoolean(PROFILE_PROPERTY)) {
+            INSTANCE.setEnabled(true);
+        }
+    }
+
+    private ConstraintProfiler() {}
+
+    public static ConstraintProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Fast-path check used by Dependency on every evaluation and notification
+     */
+    static boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Return the statistics of a dependency, creating and registering them
+     * if this is the first record since profiling was enabled or reset
+     */
+    static ConstraintStats statsFor(Dependency<?> dependency, ConstraintStats current) {
+        long currentGeneration = generation;
+        if (current != null && current.generation == currentGeneration) {
+            return current;
+        }
+        ConstraintStats newStats = new ConstraintStats(dependency.toString(), currentGeneration);
+        INSTANCE.register(newStats);
+        return newStats;
+    }
+
+    private void register(ConstraintStats newStats) {
+        synchronized (stats) {
+            stats.add(new WeakReference<>(newStats));
+            if (stats.size() >= pruneAt) {
+                prune(null);
+                pruneAt = Math.max(MIN_PRUNE_SIZE, 2 * stats.size());
+            }
+        }
+    }
+
+    // Drop the cleared references, collecting the live statistics if asked to
+    private void prune(List<ConstraintStats> live) {
+        for (Iterator<WeakReference<ConstraintStats>> i = stats.iterator(); i.hasNext();) {
+            ConstraintStats s = i.next().get();
+            if (s == null) {
+                i.remove();
+            } else if (live != null) {
+                live.add(s);
+            }
+        }
+    }
+
+    /**
+     * Methods defined in the ConstraintProfilerMBean interface
+     */
+    public boolean isEnabled() {
+        return profiling;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        if (enabled && !registered) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(this, new ObjectName(OBJECT_NAME));
+                registered = true;
+            } catch (JMException e) {
+                System.err.println("ERROR: cannot register constraint profiler: " + e);
+            }
+        }
+        profiling = enabled;
+    }
+
+    public void reset() {
+        synchronized (stats) {
+            generation++;
+            stats.clear();
+        }
+    }
+
+    public int getConstraintCount() {
+        return getStats().size();
+    }
+
+    public long getTotalEvaluations() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getEvaluations();
+        }
+        return total;
+    }
+
+    public long getTotalWastedEvaluations() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getWastedEvaluations();
+        }
+        return total;
+    }
+
+    public long getTotalErrors() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getErrors();
+        }
+        return total;
+    }
+
+    public long getTotalEvaluationTime() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getTotalTime();
+        }
+        return total;
+    }
+
+    public long getTotalNotifications() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getNotifications();
+        }
+        return total;
+    }
+
+    public long getTotalFanOut() {
+        long total = 0;
+        for (ConstraintStats s : getStats()) {
+            total += s.getTotalFanOut();
+        }
+        return total;
+    }
+
+    public String[] getTopConstraints(int n) {
+        List<ConstraintStats> sorted = getStats();
+        sorted.sort(Comparator.comparingLong(ConstraintStats::getTotalTime).reversed());
+        return sorted.stream().limit(n).map(ConstraintStats::toString).toArray(String[]::new);
+    }
+
+    public void dumpCsv(String fileName) throws IOException {
+        try (Writer writer = new FileWriter(fileName)) {
+            dumpCsv(writer);
+        }
+    }
+
+    /**
+     * Write one line per dependency, most expensive first
+     */
+    public void dumpCsv(Writer writer) {
+        List<ConstraintStats> sorted = getStats();
+        sorted.sort(Comparator.comparingLong(ConstraintStats::getTotalTime).reversed());
+
+        PrintWriter out = new PrintWriter(writer);
+        out.println("name,evaluations,wasted_evaluations,errors,total_time_ns,max_time_ns,"
+                + "notifications,total_fan_out,max_fan_out");
+        for (ConstraintStats s : sorted) {
+            out.println(String.format("\"%s\",%d,%d,%d,%d,%d,%d,%d,%d",
+                s.getName().replace("\"", "\"\""),
+                s.getEvaluations(), s.getWastedEvaluations(), s.getErrors(),
+                s.getTotalTime(), s.getMaxTime(),
+                s.getNotifications(), s.getTotalFanOut(), s.getMaxFanOut()
+            ));
+        }
+        out.flush();
+    }
+
+    public List<ConstraintStats> getStats() {
+        List<ConstraintStats> live = new ArrayList<>();
+        synchronized (stats) {
+            prune(live);
+        }
+        return live;
+    }
+}
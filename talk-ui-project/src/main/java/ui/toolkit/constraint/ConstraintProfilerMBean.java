@@ -0,0 +1,20 @@
+package ui.toolkit.constraint;
+
+import java.io.IOException;
+
+public interface ConstraintProfilerMBean {
+    public boolean isEnabled();
+    public void setEnabled(boolean enabled);
+    public void reset();
+
+    public int getConstraintCount();
+    public long getTotalEvaluations();
+    public long getTotalWastedEvaluations();
+    public long getTotalErrors();
+    public long getTotalEvaluationTime();
+    public long getTotalNotifications();
+    public long getTotalFanOut();
+
+    public String[] getTopConstraints(int n);
+    public void dumpCsv(String fileName) throws IOException;
+}
@@ -0,0 +1,103 @@
+package ui.toolkit.constraint;
+
+public class ConstraintStats {
+    /**
+     * ConstraintStats class: profiling counters of a single dependency,
+     * collected by the ConstraintProfiler while profiling is enabled
+     */
+    private final String name;
+    final long generation;
+    private long evaluations = 0;
+    private long wastedEvaluations = 0;
+    private long errors = 0;
+    private long totalTime = 0;
+    private long maxTime = 0;
+    private long notifications = 0;
+    private long totalFanOut = 0;
+    private long maxFanOut = 0;
+
+    ConstraintStats(String name, long generation) {
+        this.name = name;
+        this.generation = generation;
+    }
+
+    /**
+     * Record one call to the user-implemented getValue()
+     * 
+     * @param nanos   time spent in getValue(), including nested evaluations
+     * @param changed whether the value returned differs from the previous one
+     */
+    public synchronized void recordEvaluation(long nanos, boolean changed) {
+        this.evaluations++;
+        this.wastedEvaluations += changed ? 0 : 1;
+        this.totalTime += nanos;
+        this.maxTime = Math.max(this.maxTime, nanos);
+    }
+
+    public synchronized void recordError(long nanos) {
+        this.evaluations++;
+        this.errors++;
+        this.totalTime += nanos;
+        this.maxTime = Math.max(this.maxTime, nanos);
+    }
+
+    /**
+     * Record one value change notification
+     * 
+     * @param fanOut number of dependencies newly marked as out-of-date
+     */
+    public synchronized void recordNotification(int fanOut) {
+        this.notifications++;
+        this.totalFanOut += fanOut;
+        this.maxFanOut = Math.max(this.maxFanOut, fanOut);
+    }
+
+    /**
+     * Getters
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public synchronized long getEvaluations() {
+        return this.evaluations;
+    }
+
+    public synchronized long getWastedEvaluations() {
+        return this.wastedEvaluations;
+    }
+
+    public synchronized long getErrors() {
+        return this.errors;
+    }
+
+    public synchronized long getTotalTime() {
+        return this.totalTime;
+    }
+
+    public synchronized long getMaxTime() {
+        return this.maxTime;
+    }
+
+    public synchronized long getNotifications() {
+        return this.notifications;
+    }
+
+    public synchronized long getTotalFanOut() {
+        return this.totalFanOut;
+    }
+
+    public synchronized long getMaxFanOut() {
+        return this.maxFanOut;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "ConstraintStats[%s: evaluations=%d, wasted=%d, errors=%d, time=%dns (max %dns), "
+                + "notifications=%d, fan-out=%d (max %d)]",
+            name, evaluations, wastedEvaluations, errors, totalTime, maxTime,
+            notifications, totalFanOut, maxFanOut
+        );
+    }
+}
@@ -0,0 +1,39 @@
+package ui.toolkit.constraint;
+
+import java.util.concurrent.Executor;
+
+public final class Delivery {
+    /**
+     * Delivery class: how a subscription hands new values to its listener
+     * 
+     * SYNCHRONOUS calls the listener on the thread that changed the value,
+     * on(executor) hands every value to the executor and latestOn(executor)
+     * only the latest one, dropping values the listener has not seen yet
+     * (e.g. Delivery.latestOn(SwingUtilities::invokeLater))
+     */
+    public static final Delivery SYNCHRONOUS = new Delivery(null, false);
+
+    private final Executor executor;
+    private final boolean latestOnly;
+
+    private Delivery(Executor executor, boolean latestOnly) {
+        this.executor = executor;
+        this.latestOnly = latestOnly;
+    }
+
+    public static Delivery on(Executor executor) {
+        return new Delivery(executor, false);
+    }
+
+    public static Delivery latestOn(Executor executor) {
+        return new Delivery(executor, true);
+    }
+
+    Executor getExecutor() {
+        return this.executor;
+    }
+
+    boolean isLatestOnly() {
+        return this.latestOnly;
+    }
+}
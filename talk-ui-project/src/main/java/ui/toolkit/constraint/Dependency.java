@@ -1,19 +1,44 @@
 package ui.toolkit.constraint;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 public abstract class Dependency<T> {
     /**
      * Dependency class: vertices in the dependency graph
+     * 
+     * The graph may be read and updated from several threads (e.g. the
+     * Swing EDT and the TalkUI voice thread): traversal bookkeeping lives
+     * in per-call sets and per-thread evaluation contexts instead of the
+     * nodes, edges are copy-on-write arrays, and out-of-date state is kept
+     * as epochs so that a concurrent evaluation never erases an invalidation
      */
-    protected T value;
-    private boolean outOfDate = true;
-    private boolean visited = false;
-    private boolean evaluated = true;
-    private List<Edge> outEdges = new ArrayList<>();
-    private List<Edge> inEdges = new ArrayList<>();
+    protected volatile T value;
+    private volatile long version = 0;
+    private volatile long invalidatedAt = 0;
+    private volatile long evaluatedAt = -1;
+    private long settledAt = -1; // epoch the newest finished evaluation started at (guarded by this)
+    private volatile Edge[] outEdges = NO_EDGES;
+    private volatile Edge[] inEdges = NO_EDGES;
     private String name = null;
+    private ConstraintStats stats = null;
+    private volatile List<Subscription<T>> subscriptions = null;
+
+    private static final Edge[] NO_EDGES = new Edge[0];
+    private static final AtomicLong EPOCH = new AtomicLong();
+    // number of live subscriptions: propagation skips their bookkeeping if 0
+    private static final AtomicInteger SUBSCRIPTIONS = new AtomicInteger();
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<Dependency> VERSION =
+        AtomicLongFieldUpdater.newUpdater(Dependency.class, "version");
 
     public Dependency() {}
 
@@ -21,8 +46,8 @@ public abstract class Dependency<T> {
         // set up incoming and outgoing edges in the dependency graph
         for (Dependency<?> dependency: dependencies) {
             Edge edge = new Edge(dependency, this);
-            this.inEdges.add(edge);
-            dependency.outEdges.add(edge);
+            this.addInEdge(edge);
+            dependency.addOutEdge(edge);
         }
     }
 
@@ -42,39 +67,113 @@ public abstract class Dependency<T> {
     }
 
     public boolean isOutOfDate() {
-        return this.outOfDate;
+        return this.evaluatedAt < this.invalidatedAt;
     }
 
     public void setOutOfDate(boolean outOfDate) {
-        this.outOfDate = outOfDate;
+        if (outOfDate) {
+            invalidate(EPOCH.incrementAndGet());
+        } else {
+            this.evaluatedAt = Math.max(EPOCH.get(), this.invalidatedAt);
+        }
     }
 
     public List<Edge> getOutEdges() {
-        return this.outEdges;
+        return Collections.unmodifiableList(Arrays.asList(this.outEdges));
     }
 
-    public void addOutEdge(Edge edge) {
-        this.outEdges.add(edge);
+    public synchronized void addOutEdge(Edge edge) {
+        this.outEdges = append(this.outEdges, edge);
     }
 
-    public void removeOutEdge(Edge edge) {
-        this.outEdges.remove(edge);
+    public synchronized void removeOutEdge(Edge edge) {
+        this.outEdges = remove(this.outEdges, edge);
     }
 
     public List<Edge> getInEdges() {
+        return Collections.unmodifiableList(Arrays.asList(this.inEdges));
+    }
+
+    // Snapshot of the incoming edges without the list view, for traversals
+    Edge[] inEdges() {
         return this.inEdges;
     }
 
-    public void addInEdge(Edge edge) {
-        this.inEdges.add(edge);
+    public synchronized void addInEdge(Edge edge) {
+        this.inEdges = append(this.inEdges, edge);
     }
 
-    public void removeInEdge(Edge edge) {
-        this.inEdges.remove(edge);
+    public synchronized void removeInEdge(Edge edge) {
+        this.inEdges = remove(this.inEdges, edge);
+    }
+
+    private static Edge[] append(Edge[] edges, Edge edge) {
+        Edge[] newEdges = Arrays.copyOf(edges, edges.length + 1);
+        newEdges[edges.length] = edge;
+        return newEdges;
+    }
+
+    private static Edge[] remove(Edge[] edges, Edge edge) {
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] == edge) {
+                if (edges.length == 1) {
+                    return NO_EDGES;
+                }
+                Edge[] newEdges = new Edge[edges.length - 1];
+                System.arraycopy(edges, 0, newEdges, 0, i);
+                System.arraycopy(edges, i + 1, newEdges, i, edges.length - i - 1);
+                return newEdges;
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * The version increases every time the value of this dependency changes,
+     * either by re-evaluation or by an external write (notifyValueChange)
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * The global epoch increases with every value change notification,
+     * including writes to unconstrained properties; a dependency is out of
+     * date if it was invalidated at a later epoch than the one its current
+     * value was evaluated at
+     */
+    public static long getEpoch() {
+        return EPOCH.get();
+    }
+
+    static void advanceEpoch() {
+        EPOCH.incrementAndGet();
+    }
+
+    /**
+     * Profiling statistics of this dependency (see ConstraintProfiler)
+     */
+    public ConstraintStats getStats() {
+        this.stats = ConstraintProfiler.statsFor(this, this.stats);
+        return this.stats;
+    }
+
+    /**
+     * Whether a re-evaluated value is the same as the current one, in which
+     * case the version is kept and dependents skip their re-evaluation
+     */
+    protected boolean valueEquals(T newValue, T oldValue) {
+        return Objects.equals(newValue, oldValue);
     }
 
     public boolean isConstrained() {
-        return (this.inEdges.size() > 0);
+        return (this.inEdges.length > 0);
+    }
+
+    // Whether any constraint depends on this one or anything subscribed to it
+    public boolean hasDependents() {
+        List<Subscription<T>> subscriptions = this.subscriptions;
+        return (this.outEdges.length > 0) || (subscriptions != null && !subscriptions.isEmpty());
     }
 
     @Override
@@ -103,26 +202,126 @@ public abstract class Dependency<T> {
         for (Edge inEdge: this.inEdges) {
             inEdge.getStart().removeOutEdge(inEdge);
         }
+
+        synchronized (this) {
+            this.inEdges = NO_EDGES;
+            this.outEdges = NO_EDGES;
+        }
+
+        // subscriptions follow the property to its new constraint
+        List<Subscription<T>> moved = this.subscriptions;
+        if (moved != null) {
+            for (Subscription<T> subscription : moved) {
+                removeSubscription(subscription);
+                subscription.setDependency(newConstraint);
+                newConstraint.addSubscription(subscription);
+            }
+        }
     }
     
+    /**
+     * Unlink this dependency from all its predecessors and successors,
+     * e.g. when the object owning it is disposed, so that neither side
+     * keeps the other reachable or sends it out-of-date signals
+     */
+    public void detach() {
+        for (Edge inEdge: this.inEdges) {
+            inEdge.getStart().removeOutEdge(inEdge);
+        }
+        for (Edge outEdge: this.outEdges) {
+            outEdge.getEnd().removeInEdge(outEdge);
+        }
+        synchronized (this) {
+            this.inEdges = NO_EDGES;
+            this.outEdges = NO_EDGES;
+        }
+        List<Subscription<T>> cancelled = this.subscriptions;
+        if (cancelled != null) {
+            for (Subscription<T> subscription : cancelled) {
+                subscription.cancel();
+            }
+        }
+        this.stats = null; // the profiler only refers to them weakly
+    }
+
+    /**
+     * Subscribe to changes of the value: the listener gets the new value
+     * once the propagation that changed it settled, at most once per version
+     * 
+     * Unconstrained properties keep their value in the object: subscribe to
+     * constraints, or to properties whose setter also sets the value here
+     */
+    public Subscription<T> subscribe(ValueListener<? super T> listener) {
+        return subscribe(listener, Delivery.SYNCHRONOUS);
+    }
+
+    public Subscription<T> subscribe(ValueListener<? super T> listener, Delivery delivery) {
+        // only a change of an up-to-date value reaches the subscribers
+        if (isConstrained()) {
+            evaluate();
+        }
+        Subscription<T> subscription = new Subscription<>(this, listener, delivery);
+        addSubscription(subscription);
+        return subscription;
+    }
+
+    synchronized void addSubscription(Subscription<T> subscription) {
+        if (this.subscriptions == null) {
+            this.subscriptions = new CopyOnWriteArrayList<>();
+        }
+        this.subscriptions.add(subscription);
+        SUBSCRIPTIONS.incrementAndGet();
+    }
+
+    synchronized void removeSubscription(Subscription<T> subscription) {
+        if (this.subscriptions != null && this.subscriptions.remove(subscription)) {
+            SUBSCRIPTIONS.decrementAndGet();
+            if (this.subscriptions.isEmpty()) {
+                this.subscriptions = null;
+            }
+        }
+    }
+
+    // Bring the value up to date and offer it to every subscription
+    void publish() {
+        List<Subscription<T>> current = this.subscriptions;
+        if (current == null) {
+            return;
+        }
+        T newValue = isConstrained() ? evaluate() : this.value;
+        long newVersion = getVersion();
+        for (Subscription<T> subscription : current) {
+            subscription.offer(newValue, newVersion);
+        }
+    }
+
     /**
      * Detect if the constraint is involved in a dependency cycle
      */
     public boolean hasCycle() {
-        if (this.visited) {
+        return hasCycle(newIdentitySet(), newIdentitySet());
+    }
+
+    private boolean hasCycle(Set<Dependency<?>> path, Set<Dependency<?>> explored) {
+        if (path.contains(this)) {
             return true;
         }
+        if (!explored.add(this)) {
+            return false;
+        }
 
-        this.visited = true;
-        boolean cycleDetected = false;
+        path.add(this);
         for (Edge outEdge : this.outEdges) {
-            if (outEdge.getEnd().hasCycle()) {
-                cycleDetected = true;
-                break;
+            if (outEdge.getEnd().hasCycle(path, explored)) {
+                return true;
             }
         }
-        this.visited = false;
-        return cycleDetected;
+        path.remove(this);
+        return false;
+    }
+
+    private static Set<Dependency<?>> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
     /**
@@ -131,127 +330,209 @@ public abstract class Dependency<T> {
      * @param selfOutOfDate whether to mark itself as out-of-date
      */
     public void notifyValueChange(boolean selfOutOfDate) {
-        this.visited = true;
-        this.outOfDate = selfOutOfDate;
-        for (Edge outEdge : this.outEdges) {
-            outEdge.setPending(true);
-            outEdge.getEnd().markOutOfDate();
+        EvaluationContext context = (SUBSCRIPTIONS.get() > 0) ? EvaluationContext.current() : null;
+        if (context != null) {
+            context.beginPropagation();
+        }
+        try {
+            VERSION.incrementAndGet(this);
+            long epoch = EPOCH.incrementAndGet();
+            if (selfOutOfDate) {
+                invalidate(epoch);
+            } else {
+                this.evaluatedAt = epoch;
+            }
+            if (context != null && this.subscriptions != null) {
+                context.scheduleNotification(this);
+            }
+
+            int fanOut = 0;
+            for (Edge outEdge : this.outEdges) {
+                fanOut += outEdge.getEnd().markOutOfDate(this, epoch);
+            }
+
+            if (ConstraintProfiler.isProfiling()) {
+                getStats().recordNotification(fanOut);
+            }
+        } finally {
+            if (context != null) {
+                context.endPropagation();
+            }
         }
-        this.visited = false;
-    }    
+    }
 
     /**
-     * Mark all successors of this dependency as out-of-date
+     * Run several changes as one propagation: subscribers are notified once,
+     * after the last change, with the settled values
      */
-    public void markOutOfDate() {
-        if (this.visited) {
-            return;
+    public static void batch(Runnable changes) {
+        EvaluationContext context = EvaluationContext.current();
+        context.beginPropagation();
+        try {
+            changes.run();
+        } finally {
+            context.endPropagation();
         }
+    }
 
-        this.visited = true;
-        if (!this.outOfDate) {
-            this.outOfDate = true;
-            for (Edge outEdge : this.outEdges) {
-                outEdge.getEnd().markOutOfDate();
+    /**
+     * Mark this dependency and all its successors as out-of-date
+     */
+    public void markOutOfDate() {
+        EvaluationContext context = (SUBSCRIPTIONS.get() > 0) ? EvaluationContext.current() : null;
+        if (context != null) {
+            context.beginPropagation();
+        }
+        try {
+            markOutOfDate(null, EPOCH.incrementAndGet());
+        } finally {
+            if (context != null) {
+                context.endPropagation();
             }
         }
-        this.visited = false;
     }
 
+    /**
+     * @param origin the dependency whose change is being propagated,
+     *               which stops the propagation if reached through a cycle
+     * @return the number of dependencies newly marked as out-of-date
+     */
+    private int markOutOfDate(Dependency<?> origin, long epoch) {
+        if (this == origin || this.invalidatedAt >= epoch) {
+            return 0;
+        }
+
+        // successors of an out-of-date dependency are already out of date
+        if (!invalidate(epoch)) {
+            return 0;
+        }
+        int count = 1;
+        for (Edge outEdge : this.outEdges) {
+            count += outEdge.getEnd().markOutOfDate(origin, epoch);
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the dependency was up to date before, in which case
+     *         a sink is queued for the eager evaluation pass if tracked
+     */
+    private boolean invalidate(long epoch) {
+        boolean wasOutOfDate = isOutOfDate();
+        this.invalidatedAt = epoch;
+        if (wasOutOfDate) {
+            return false;
+        }
+        if (this.outEdges.length == 0 && ConstraintEvaluator.isTracking()) {
+            ConstraintEvaluator.enqueue(this);
+        }
+        if (this.subscriptions != null) {
+            EvaluationContext.current().scheduleNotification(this);
+        }
+        onOutOfDate();
+        return true;
+    }
+
+    /**
+     * Called when this dependency goes from up to date to out of date,
+     * i.e. once per change of its inputs until it is evaluated again
+     */
+    protected void onOutOfDate() {}
+
     /**
      * Lazy evaluation of constraint (based on Hudson's algorithm)
      * 
+     * The user-implemented getValue() is only called if the version of at
+     * least one input has changed since it was last consumed by this node.
+     * The node is only marked up to date if all its inputs still are when
+     * evaluation finishes; otherwise a concurrent change arrived meanwhile.
+     * Of concurrent evaluations, one that started at an older epoch than
+     * one already finished drops its result, which may be stale
+     * 
      * @return evaluated constraint value
      */
     public T evaluate() {
-        // yet to be evaluated
-        this.evaluated = false;
+        if (!isOutOfDate()) {
+            return this.value;
+        }
 
-        // consider re-evaluating if out of date
-        if (this.outOfDate) {
-            // check if there are any pending incoming edges
-            boolean anyPending = false;
+        EvaluationContext context = EvaluationContext.current();
+        if (!context.enter(this)) {
+            // reached again through a cycle: use the current value
+            return this.value;
+        }
+        long epoch = EPOCH.get();
+        try {
+            // bring inputs up to date and check if any of their versions changed
+            boolean anyChanged = false;
             for (Edge inEdge: this.inEdges) {
-                anyPending = anyPending || inEdge.isPending() || inEdge.getStart().isOutOfDate();
-                inEdge.setPending(false);
+                Dependency<?> start = inEdge.getStart();
+                if (start.isOutOfDate()) {
+                    if (context.isEvaluating(start)) {
+                        // input is being evaluated further up the stack (cycle)
+                        anyChanged = true;
+                    } else {
+                        start.evaluate();
+                    }
+                }
+                long startVersion = start.getVersion();
+                if (inEdge.getConsumedVersion() != startVersion) {
+                    anyChanged = true;
+                    inEdge.setConsumedVersion(startVersion);
+                }
             }
 
             // re-evaluate the constraint
-            if (anyPending) {
+            if (anyChanged) {
+                long startTime = ConstraintProfiler.isProfiling() ? System.nanoTime() : 0;
                 try {
                     T newValue = this.getValue();
-                    if (newValue != this.value) {
-                        if (this.evaluated) {
-                            // if cycle, report cyclic dependency conflict
-                            System.err.println(
-                                "ERROR: Conflict found when evaluating constraint " + this
-                            );
-                        } else {
-                            // if no cycles, update value and set pending edges
-                            this.value = newValue;
-                            for (Edge outEdge : this.outEdges) {
-                                outEdge.setPending(true);
+                    synchronized (this) {
+                        if (this.settledAt > epoch) {
+                            // a later evaluation finished meanwhile: its value stands
+                            return this.value;
+                        }
+                        this.settledAt = epoch;
+                        boolean changed = !valueEquals(newValue, this.value);
+                        if (startTime != 0) {
+                            getStats().recordEvaluation(System.nanoTime() - startTime, changed);
+                        }
+                        if (changed) {
+                            if (context.wasReentered(this)) {
+                                // if cycle, report cyclic dependency conflict
+                                System.err.println(
+                                    "ERROR: Conflict found when evaluating constraint " + this
+                                );
+                            } else {
+                                // if no cycles, update value and bump the version
+                                this.value = newValue;
+                                VERSION.incrementAndGet(this);
                             }
                         }
                     }
                 } catch (Exception e) {
                     // error in user-implemented getValue method
+                    if (startTime != 0) {
+                        getStats().recordError(System.nanoTime() - startTime);
+                    }
                     System.err.println(String.format(
                         "ERROR: in %s.getValue(): %s", this, e
                     ));
                     return this.value;
                 }
             }
-            // update outOfDate as the final step
+
+            // update the evaluated epoch as the final step
             // in case user implemented getValue() crashes
-            this.outOfDate = false;
+            for (Edge inEdge: this.inEdges) {
+                if (inEdge.getStart().isOutOfDate() && !context.isEvaluating(inEdge.getStart())) {
+                    return this.value;
+                }
+            }
+            this.evaluatedAt = Math.max(this.evaluatedAt, epoch);
+        } finally {
+            context.exit(this);
         }
-        // finish evaluation
-        this.evaluated = true;
         return this.value;
     }
 }
-
-class Edge {
-    /**
-     * Edge class: directed edges in the dependency graph
-     */
-    private Dependency<?> start;
-    private Dependency<?> end;
-    private boolean isPending;
-
-    public Edge(Dependency<?> start, Dependency<?> end) {
-        this.start = start;
-        this.end = end;
-        this.isPending = true;
-    }
-
-    public Dependency<?> getStart() {
-        return this.start;
-    }
-
-    public Dependency<?> getEnd() {
-        return this.end;
-    }
-
-    public boolean isPending() {
-        return this.isPending;
-    }
-
-    public void setPending(boolean isPending) {
-        this.isPending = isPending;
-    }
-
-    private String outOfDateToString(boolean outOfDate) {
-        return outOfDate ? "out of date" : "up to date";
-    }
-
-    @Override
-    public String toString() {
-        return String.format("Edge[%s (%s) -> %s (%s): %s]", 
-            start.toString(), outOfDateToString(start.isOutOfDate()),
-            end.toString(), outOfDateToString(end.isOutOfDate()),
-            isPending ? "pending" : "up to date"
-        );
-    }
-}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package ui.toolkit.constraint;
+
+class Edge {
+    /**
+     * Edge class: directed edges in the dependency graph
+     */
+    private final Dependency<?> start;
+    private final Dependency<?> end;
+    private volatile long consumedVersion = -1;
+
+    public Edge(Dependency<?> start, Dependency<?> end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public Dependency<?> getStart() {
+        return this.start;
+    }
+
+    public Dependency<?> getEnd() {
+        return this.end;
+    }
+
+    public boolean isPending() {
+        return this.consumedVersion != start.getVersion();
+    }
+
+    public long getConsumedVersion() {
+        return this.consumedVersion;
+    }
+
+    public void setConsumedVersion(long consumedVersion) {
+        this.consumedVersion = consumedVersion;
+    }
+
+    private String outOfDateToString(boolean outOfDate) {
+        return outOfDate ? "out of date" : "up to date";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Edge[%s (%s) -> %s (%s): %s]", 
+            start.toString(), outOfDateToString(start.isOutOfDate()),
+            end.toString(), outOfDateToString(end.isOutOfDate()),
+            isPending() ? "pending" : "up to date"
+        );
+    }
+}
@@ -0,0 +1,86 @@
+package ui.toolkit.constraint;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+class EvaluationContext {
+    /**
+     * EvaluationContext class: per-thread bookkeeping of the dependencies
+     * currently being evaluated, kept out of the nodes so that several
+     * threads can evaluate the same graph without corrupting each other,
+     * and of the subscribed dependencies to notify once propagation settles
+     */
+    private static final ThreadLocal<EvaluationContext> CONTEXT =
+        ThreadLocal.withInitial(EvaluationContext::new);
+
+    // dependency being evaluated -> whether it was re-entered through a cycle
+    private final Map<Dependency<?>, Boolean> evaluating = new IdentityHashMap<>();
+
+    // nesting of value change propagations (and batches) on this thread
+    private int propagationDepth = 0;
+    private final Map<Dependency<?>, Boolean> changed = new IdentityHashMap<>();
+
+    static EvaluationContext current() {
+        return CONTEXT.get();
+    }
+
+    /**
+     * @return false if the dependency is already being evaluated on this
+     *         thread, i.e. it has been reached again through a cycle
+     */
+    boolean enter(Dependency<?> dependency) {
+        if (evaluating.containsKey(dependency)) {
+            evaluating.put(dependency, Boolean.TRUE);
+            return false;
+        }
+        evaluating.put(dependency, Boolean.FALSE);
+        return true;
+    }
+
+    boolean isEvaluating(Dependency<?> dependency) {
+        return evaluating.containsKey(dependency);
+    }
+
+    boolean wasReentered(Dependency<?> dependency) {
+        return Boolean.TRUE.equals(evaluating.get(dependency));
+    }
+
+    void exit(Dependency<?> dependency) {
+        evaluating.remove(dependency);
+    }
+
+    void beginPropagation() {
+        propagationDepth++;
+    }
+
+    /**
+     * Leave a propagation; the outermost one notifies the subscribers of
+     * every dependency that changed, including changes made by listeners
+     */
+    void endPropagation() {
+        if (propagationDepth > 1) {
+            propagationDepth--;
+            return;
+        }
+        try {
+            while (!changed.isEmpty()) {
+                Dependency<?>[] dependencies = changed.keySet().toArray(new Dependency<?>[0]);
+                changed.clear();
+                for (Dependency<?> dependency : dependencies) {
+                    dependency.publish();
+                }
+            }
+        } finally {
+            changed.clear();
+            propagationDepth--;
+        }
+    }
+
+    void scheduleNotification(Dependency<?> dependency) {
+        changed.put(dependency, Boolean.TRUE);
+        if (propagationDepth == 0) {
+            beginPropagation();
+            endPropagation();
+        }
+    }
+}
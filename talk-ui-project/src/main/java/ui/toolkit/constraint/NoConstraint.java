@@ -10,4 +10,59 @@ public class NoConstraint<T> extends Constraint<T> {
     public T getValue() {
         return this.value;
     }
-}
\ No newline at end of file
+
+    /**
+     * Shared immutable placeholder for properties that are neither constrained
+     * nor used by any other constraint; a real NoConstraint is allocated lazily
+     * by the "user" of the property (e.g. useX) the first time it is needed
+     */
+    private static final NoConstraint<?> NONE = new NoConstraint<Object>() {
+        @Override
+        public void setValue(Object value) {}
+
+        @Override
+        public void setOutOfDate(boolean outOfDate) {}
+
+        @Override
+        public boolean isOutOfDate() {
+            return false;
+        }
+
+        @Override
+        public void addOutEdge(Edge edge) {
+            throw new UnsupportedOperationException("Shared NoConstraint cannot have dependents");
+        }
+
+        @Override
+        public void addInEdge(Edge edge) {
+            throw new UnsupportedOperationException("Shared NoConstraint cannot have dependencies");
+        }
+
+        @Override
+        public Subscription<Object> subscribe(ValueListener<? super Object> listener, Delivery delivery) {
+            throw new UnsupportedOperationException("Shared NoConstraint cannot have subscribers");
+        }
+
+        @Override
+        public void notifyValueChange(boolean selfOutOfDate) {
+            advanceEpoch(); // nothing to notify, but the scene changed
+        }
+
+        @Override
+        public void markOutOfDate() {}
+
+        @Override
+        public String toString() {
+            return "NoConstraint.NONE";
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    public static <T> Constraint<T> none() {
+        return (Constraint<T>) NONE;
+    }
+
+    public static boolean isNone(Dependency<?> dependency) {
+        return dependency == NONE;
+    }
+}
@@ -0,0 +1,80 @@
+package ui.toolkit.constraint;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Subscription<T> {
+    /**
+     * Subscription class: a listener registered on a dependency with
+     * Dependency.subscribe, notified once per settled change of its value
+     */
+    private volatile Dependency<T> dependency;
+    private final ValueListener<? super T> listener;
+    private final Delivery delivery;
+    private long deliveredVersion;
+
+    // latest-value-only delivery
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    Subscription(Dependency<T> dependency, ValueListener<? super T> listener, Delivery delivery) {
+        this.dependency = dependency;
+        this.listener = listener;
+        this.delivery = delivery;
+        this.deliveredVersion = dependency.getVersion();
+    }
+
+    public void cancel() {
+        Dependency<T> current = this.dependency;
+        if (current != null) {
+            this.dependency = null;
+            current.removeSubscription(this);
+        }
+    }
+
+    public boolean isCancelled() {
+        return this.dependency == null;
+    }
+
+    // Moved along when the constraint of a property is replaced; versions
+    // are counted per dependency, so nothing of the new one was delivered
+    synchronized void setDependency(Dependency<T> dependency) {
+        this.dependency = dependency;
+        this.deliveredVersion = -1;
+    }
+
+    /**
+     * Deliver the value if its version has not been delivered yet
+     */
+    synchronized void offer(T value, long version) {
+        if (version == this.deliveredVersion || isCancelled()) {
+            return;
+        }
+        this.deliveredVersion = version;
+
+        if (delivery.getExecutor() == null) {
+            deliver(value);
+        } else if (!delivery.isLatestOnly()) {
+            delivery.getExecutor().execute(() -> deliver(value));
+        } else {
+            latest.set(value);
+            if (scheduled.compareAndSet(false, true)) {
+                delivery.getExecutor().execute(() -> {
+                    scheduled.set(false);
+                    deliver(latest.get());
+                });
+            }
+        }
+    }
+
+    private void deliver(T value) {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            listener.changed(value);
+        } catch (Exception e) {
+            System.err.println(String.format("ERROR: in listener of %s: %s", dependency, e));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ui.toolkit.constraint;
+
+@FunctionalInterface
+public interface ValueListener<T> {
+    public void changed(T newValue);
+}
@@ -0,0 +1,101 @@
+package ui.toolkit.constraint.linear;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class Expression {
+    /**
+     * Expression class: immutable linear expression c1 * v1 + ... + constant
+     * 
+     * e.g. a.right + 10 is Expression.of(aX).plus(aWidth).plus(10)
+     */
+    private final Map<Variable, Double> terms;
+    private final double constant;
+
+    private Expression(Map<Variable, Double> terms, double constant) {
+        this.terms = terms;
+        this.constant = constant;
+    }
+
+    public static Expression of(Variable variable) {
+        return constant(0.0).plus(variable);
+    }
+
+    public static Expression constant(double constant) {
+        return new Expression(Collections.<Variable, Double>emptyMap(), constant);
+    }
+
+    /**
+     * Getters
+     */
+    public Map<Variable, Double> getTerms() {
+        return Collections.unmodifiableMap(this.terms);
+    }
+
+    public double getConstant() {
+        return this.constant;
+    }
+
+    public double getValue() {
+        double result = this.constant;
+        for (Map.Entry<Variable, Double> term : this.terms.entrySet()) {
+            result += term.getKey().getValue() * term.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * Arithmetic: each operation returns a new expression
+     */
+    public Expression plus(Expression other) {
+        Map<Variable, Double> newTerms = new LinkedHashMap<>(this.terms);
+        for (Map.Entry<Variable, Double> term : other.terms.entrySet()) {
+            newTerms.merge(term.getKey(), term.getValue(), Double::sum);
+        }
+        return new Expression(newTerms, this.constant + other.constant);
+    }
+
+    public Expression plus(Variable variable) {
+        return plus(variable, 1.0);
+    }
+
+    public Expression plus(Variable variable, double coefficient) {
+        Map<Variable, Double> newTerms = new LinkedHashMap<>(this.terms);
+        newTerms.merge(variable, coefficient, Double::sum);
+        return new Expression(newTerms, this.constant);
+    }
+
+    public Expression plus(double constant) {
+        return new Expression(this.terms, this.constant + constant);
+    }
+
+    public Expression minus(Expression other) {
+        return plus(other.times(-1.0));
+    }
+
+    public Expression minus(Variable variable) {
+        return plus(variable, -1.0);
+    }
+
+    public Expression minus(double constant) {
+        return plus(-constant);
+    }
+
+    public Expression times(double coefficient) {
+        Map<Variable, Double> newTerms = new LinkedHashMap<>();
+        for (Map.Entry<Variable, Double> term : this.terms.entrySet()) {
+            newTerms.put(term.getKey(), term.getValue() * coefficient);
+        }
+        return new Expression(newTerms, this.constant * coefficient);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Variable, Double> term : this.terms.entrySet()) {
+            builder.append(term.getValue()).append(" * ").append(term.getKey()).append(" + ");
+        }
+        return builder.append(this.constant).toString();
+    }
+}
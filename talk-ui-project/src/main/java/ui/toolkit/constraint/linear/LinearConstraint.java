@@ -0,0 +1,70 @@
+package ui.toolkit.constraint.linear;
+
+public final class LinearConstraint {
+    /**
+     * LinearConstraint class: "expression op 0" with a strength, built from
+     * two sides, e.g. equal(Expression.of(aRight).plus(10), Expression.of(bX))
+     */
+    public enum Operator {
+        LE("<="), GE(">="), EQ("==");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private final Expression expression;
+    private final Operator operator;
+    private final double strength;
+
+    public LinearConstraint(Expression expression, Operator operator, double strength) {
+        this.expression = expression;
+        this.operator = operator;
+        this.strength = Strength.clip(strength);
+    }
+
+    public static LinearConstraint equal(Expression lhs, Expression rhs) {
+        return new LinearConstraint(lhs.minus(rhs), Operator.EQ, Strength.REQUIRED);
+    }
+
+    public static LinearConstraint lessOrEqual(Expression lhs, Expression rhs) {
+        return new LinearConstraint(lhs.minus(rhs), Operator.LE, Strength.REQUIRED);
+    }
+
+    public static LinearConstraint greaterOrEqual(Expression lhs, Expression rhs) {
+        return new LinearConstraint(lhs.minus(rhs), Operator.GE, Strength.REQUIRED);
+    }
+
+    /**
+     * @return the same relation with another strength
+     */
+    public LinearConstraint withStrength(double strength) {
+        return new LinearConstraint(this.expression, this.operator, strength);
+    }
+
+    /**
+     * Getters
+     */
+    public Expression getExpression() {
+        return this.expression;
+    }
+
+    public Operator getOperator() {
+        return this.operator;
+    }
+
+    public double getStrength() {
+        return this.strength;
+    }
+
+    public boolean isRequired() {
+        return this.strength >= Strength.REQUIRED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s 0 (strength %s)", expression, operator.symbol, strength);
+    }
+}
@@ -0,0 +1,546 @@
+package ui.toolkit.constraint.linear;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.NoConstraint;
+
+public class LinearSolver {
+    /**
+     * LinearSolver class: incremental simplex solver for linear equalities
+     * and inequalities with strengths (the Cassowary algorithm, Badros,
+     * Borning and Stuckey, as refined by the Kiwi solver)
+     *
+     * Adding or removing a constraint re-optimizes from the current tableau
+     * rather than from scratch; suggesting a value for an edit variable
+     * (e.g. the position of a dragged object) only runs the dual simplex.
+     *
+     * Solved values reach the graphics system through bind(): the returned
+     * Constraint<Integer> can be given to any setX/setWidth/... and is
+     * re-evaluated whenever the solution changes. Writing to a property
+     * bound to an edit variable (e.g. by MoveBehavior) suggests the new value
+     */
+    private final Map<LinearConstraint, Tag> constraints = new LinkedHashMap<>();
+    private final Map<Symbol, Row> rows = new LinkedHashMap<>();
+    private final Map<Variable, Symbol> variables = new LinkedHashMap<>();
+    private final Map<Variable, EditInfo> edits = new HashMap<>();
+    private final List<Symbol> infeasibleRows = new ArrayList<>();
+    private final Row objective = new Row(0.0);
+    private Row artificial = null;
+
+    // every bound property depends on this node, which changes once per solve
+    private final NoConstraint<Long> solution = new NoConstraint<>();
+    private long solutionCount = 0;
+
+    private static final double EPSILON = 1.0e-8;
+
+    static boolean nearZero(double value) {
+        return Math.abs(value) < EPSILON;
+    }
+
+    /**
+     * Constraints
+     */
+    public boolean addConstraint(LinearConstraint constraint) {
+        if (!add(constraint)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    public boolean removeConstraint(LinearConstraint constraint) {
+        if (!remove(constraint)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    public boolean hasConstraint(LinearConstraint constraint) {
+        return this.constraints.containsKey(constraint);
+    }
+
+    /**
+     * Edit variables: a non-required equality between the variable and a
+     * suggested value, which is updated incrementally by suggestValue
+     */
+    public boolean addEditVariable(Variable variable, double strength) {
+        if (this.edits.containsKey(variable)) {
+            System.err.println("ERROR: Duplicate edit variable " + variable);
+            return false;
+        }
+        LinearConstraint constraint = new LinearConstraint(
+            Expression.of(variable), LinearConstraint.Operator.EQ, strength
+        );
+        if (constraint.isRequired()) {
+            System.err.println("ERROR: Edit variable " + variable + " cannot be required");
+            return false;
+        }
+        if (!add(constraint)) {
+            return false;
+        }
+        this.edits.put(variable, new EditInfo(constraint, this.constraints.get(constraint)));
+        publish();
+        return true;
+    }
+
+    public boolean removeEditVariable(Variable variable) {
+        EditInfo info = this.edits.remove(variable);
+        if (info == null) {
+            System.err.println("ERROR: Unknown edit variable " + variable);
+            return false;
+        }
+        remove(info.constraint);
+        publish();
+        return true;
+    }
+
+    public boolean hasEditVariable(Variable variable) {
+        return this.edits.containsKey(variable);
+    }
+
+    public boolean suggestValue(Variable variable, double value) {
+        EditInfo info = this.edits.get(variable);
+        if (info == null) {
+            System.err.println("ERROR: Unknown edit variable " + variable);
+            return false;
+        }
+        double delta = value - info.constant;
+        info.constant = value;
+
+        // the positive error is basic: only its row changes
+        Row row = this.rows.get(info.tag.marker);
+        if (row != null) {
+            if (row.add(-delta) < 0.0) {
+                this.infeasibleRows.add(info.tag.marker);
+            }
+        } else if ((row = this.rows.get(info.tag.other)) != null) {
+            // the negative error is basic
+            if (row.add(delta) < 0.0) {
+                this.infeasibleRows.add(info.tag.other);
+            }
+        } else {
+            // otherwise update every row where the error appears
+            for (Map.Entry<Symbol, Row> entry : this.rows.entrySet()) {
+                double coefficient = entry.getValue().coefficientFor(info.tag.marker);
+                if (coefficient != 0.0 && entry.getValue().add(delta * coefficient) < 0.0
+                        && !entry.getKey().isExternal()) {
+                    this.infeasibleRows.add(entry.getKey());
+                }
+            }
+        }
+        dualOptimize();
+        publish();
+        return true;
+    }
+
+    /**
+     * Bind a variable to an object property, e.g. box.setX(solver.bind(x))
+     */
+    public Constraint<Integer> bind(Variable variable) {
+        getVariableSymbol(variable);
+        return new VariableConstraint(variable);
+    }
+
+    private class VariableConstraint extends Constraint<Integer> {
+        private final Variable variable;
+
+        VariableConstraint(Variable variable) {
+            super(variable.getName(), solution);
+            this.variable = variable;
+        }
+
+        public Integer getValue() {
+            return (int) Math.round(variable.getValue());
+        }
+
+        // writes to the property are accepted if the variable can be edited
+        @Override
+        public boolean hasCycle() {
+            return hasEditVariable(variable);
+        }
+
+        @Override
+        public void setValue(Integer value) {
+            if (value != null && hasEditVariable(variable)) {
+                suggestValue(variable, value);
+                value = getValue();
+            }
+            super.setValue(value);
+        }
+    }
+
+    /**
+     * Copy the solution into the variables and notify bound properties
+     */
+    private void publish() {
+        for (Map.Entry<Variable, Symbol> entry : this.variables.entrySet()) {
+            Row row = this.rows.get(entry.getValue());
+            entry.getKey().setValue(row == null ? 0.0 : row.getConstant());
+        }
+        this.solution.setValue(++this.solutionCount);
+        this.solution.notifyValueChange(false);
+    }
+
+    /**
+     * Incremental simplex
+     */
+    private boolean add(LinearConstraint constraint) {
+        if (this.constraints.containsKey(constraint)) {
+            System.err.println("ERROR: Duplicate constraint " + constraint);
+            return false;
+        }
+
+        Tag tag = new Tag();
+        Row row = createRow(constraint, tag);
+        Symbol subject = chooseSubject(row, tag);
+
+        // a row made of dummies only is satisfied iff its constant is zero
+        if (subject == null && row.allDummies()) {
+            if (!nearZero(row.getConstant())) {
+                System.err.println("ERROR: Unsatisfiable constraint " + constraint);
+                return false;
+            }
+            subject = tag.marker;
+        }
+
+        if (subject == null) {
+            if (!addWithArtificialVariable(row)) {
+                System.err.println("ERROR: Unsatisfiable constraint " + constraint);
+                return false;
+            }
+        } else {
+            row.solveFor(subject);
+            substitute(subject, row);
+            this.rows.put(subject, row);
+        }
+
+        this.constraints.put(constraint, tag);
+        optimize(this.objective);
+        return true;
+    }
+
+    private boolean remove(LinearConstraint constraint) {
+        Tag tag = this.constraints.remove(constraint);
+        if (tag == null) {
+            System.err.println("ERROR: Unknown constraint " + constraint);
+            return false;
+        }
+
+        removeErrors(constraint, tag);
+
+        // if the marker is basic, removing its row removes the constraint,
+        // otherwise pivot the marker into the basis first
+        if (this.rows.remove(tag.marker) == null) {
+            Symbol leaving = getMarkerLeavingSymbol(tag.marker);
+            Row row = this.rows.remove(leaving);
+            row.solveFor(leaving, tag.marker);
+            substitute(tag.marker, row);
+        }
+        optimize(this.objective);
+        return true;
+    }
+
+    // Remove the error symbols of a constraint from the objective
+    private void removeErrors(LinearConstraint constraint, Tag tag) {
+        for (Symbol error : new Symbol[] { tag.marker, tag.other }) {
+            if (error != null && error.getType() == Symbol.Type.ERROR) {
+                Row row = this.rows.get(error);
+                if (row != null) {
+                    this.objective.insert(row, -constraint.getStrength());
+                } else {
+                    this.objective.insert(error, -constraint.getStrength());
+                }
+            }
+        }
+    }
+
+    /**
+     * Build a tableau row for the constraint with the current basic
+     * variables substituted out, adding slack and error symbols
+     */
+    private Row createRow(LinearConstraint constraint, Tag tag) {
+        Expression expression = constraint.getExpression();
+        Row row = new Row(expression.getConstant());
+
+        for (Map.Entry<Variable, Double> term : expression.getTerms().entrySet()) {
+            if (nearZero(term.getValue())) {
+                continue;
+            }
+            Symbol symbol = getVariableSymbol(term.getKey());
+            Row basic = this.rows.get(symbol);
+            if (basic != null) {
+                row.insert(basic, term.getValue());
+            } else {
+                row.insert(symbol, term.getValue());
+            }
+        }
+
+        double strength = constraint.getStrength();
+        switch (constraint.getOperator()) {
+            case LE:
+            case GE: {
+                double coefficient = constraint.getOperator() == LinearConstraint.Operator.LE ? 1.0 : -1.0;
+                Symbol slack = new Symbol(Symbol.Type.SLACK);
+                tag.marker = slack;
+                row.insert(slack, coefficient);
+                if (!constraint.isRequired()) {
+                    Symbol error = new Symbol(Symbol.Type.ERROR);
+                    tag.other = error;
+                    row.insert(error, -coefficient);
+                    this.objective.insert(error, strength);
+                }
+                break;
+            }
+            case EQ: {
+                if (!constraint.isRequired()) {
+                    Symbol errorPlus = new Symbol(Symbol.Type.ERROR);
+                    Symbol errorMinus = new Symbol(Symbol.Type.ERROR);
+                    tag.marker = errorPlus;
+                    tag.other = errorMinus;
+                    row.insert(errorPlus, -1.0);
+                    row.insert(errorMinus, 1.0);
+                    this.objective.insert(errorPlus, strength);
+                    this.objective.insert(errorMinus, strength);
+                } else {
+                    Symbol dummy = new Symbol(Symbol.Type.DUMMY);
+                    tag.marker = dummy;
+                    row.insert(dummy);
+                }
+                break;
+            }
+        }
+
+        // the constant of a row must be non-negative
+        if (row.getConstant() < 0.0) {
+            row.reverseSign();
+        }
+        return row;
+    }
+
+    /**
+     * Choose the basic symbol of a new row: an external variable if any,
+     * otherwise a new slack or error symbol with a negative coefficient
+     */
+    private static Symbol chooseSubject(Row row, Tag tag) {
+        for (Symbol symbol : row.getCells().keySet()) {
+            if (symbol.isExternal()) {
+                return symbol;
+            }
+        }
+        if (tag.marker.isPivotable() && row.coefficientFor(tag.marker) < 0.0) {
+            return tag.marker;
+        }
+        if (tag.other != null && tag.other.isPivotable() && row.coefficientFor(tag.other) < 0.0) {
+            return tag.other;
+        }
+        return null;
+    }
+
+    /**
+     * Add the row through an artificial variable, which is driven to zero
+     * by a first optimization phase
+     *
+     * @return false if the row cannot be satisfied
+     */
+    private boolean addWithArtificialVariable(Row row) {
+        Symbol art = new Symbol(Symbol.Type.SLACK);
+        this.rows.put(art, new Row(row));
+        this.artificial = new Row(row);
+
+        optimize(this.artificial);
+        boolean success = nearZero(this.artificial.getConstant());
+        this.artificial = null;
+
+        // if the artificial variable is basic, pivot it out of the basis
+        Row basic = this.rows.remove(art);
+        if (basic != null) {
+            if (basic.getCells().isEmpty()) {
+                return success;
+            }
+            Symbol entering = anyPivotableSymbol(basic);
+            if (entering == null) {
+                return false;
+            }
+            basic.solveFor(art, entering);
+            substitute(entering, basic);
+            this.rows.put(entering, basic);
+        }
+
+        // it is non-basic now: remove its column
+        for (Row other : this.rows.values()) {
+            other.remove(art);
+        }
+        this.objective.remove(art);
+        return success;
+    }
+
+    /**
+     * Substitute the symbol in every row, the objective and the artificial
+     * objective, recording rows that became infeasible
+     */
+    private void substitute(Symbol symbol, Row row) {
+        for (Map.Entry<Symbol, Row> entry : this.rows.entrySet()) {
+            entry.getValue().substitute(symbol, row);
+            if (!entry.getKey().isExternal() && entry.getValue().getConstant() < 0.0) {
+                this.infeasibleRows.add(entry.getKey());
+            }
+        }
+        this.objective.substitute(symbol, row);
+        if (this.artificial != null) {
+            this.artificial.substitute(symbol, row);
+        }
+    }
+
+    /**
+     * Primal simplex: minimize the objective
+     */
+    private void optimize(Row objective) {
+        while (true) {
+            Symbol entering = getEnteringSymbol(objective);
+            if (entering == null) {
+                return;
+            }
+            Symbol leaving = getLeavingSymbol(entering);
+            if (leaving == null) {
+                throw new IllegalStateException("The objective is unbounded");
+            }
+            Row row = this.rows.remove(leaving);
+            row.solveFor(leaving, entering);
+            substitute(entering, row);
+            this.rows.put(entering, row);
+        }
+    }
+
+    /**
+     * Dual simplex: restore feasibility after edit suggestions
+     */
+    private void dualOptimize() {
+        while (!this.infeasibleRows.isEmpty()) {
+            Symbol leaving = this.infeasibleRows.remove(this.infeasibleRows.size() - 1);
+            Row row = this.rows.get(leaving);
+            if (row != null && row.getConstant() < 0.0) {
+                Symbol entering = getDualEnteringSymbol(row);
+                if (entering == null) {
+                    throw new IllegalStateException("Dual optimize failed");
+                }
+                this.rows.remove(leaving);
+                row.solveFor(leaving, entering);
+                substitute(entering, row);
+                this.rows.put(entering, row);
+            }
+        }
+    }
+
+    private static Symbol getEnteringSymbol(Row objective) {
+        for (Map.Entry<Symbol, Double> cell : objective.getCells().entrySet()) {
+            if (cell.getKey().getType() != Symbol.Type.DUMMY && cell.getValue() < 0.0) {
+                return cell.getKey();
+            }
+        }
+        return null;
+    }
+
+    private Symbol getDualEnteringSymbol(Row row) {
+        Symbol entering = null;
+        double ratio = Double.MAX_VALUE;
+        for (Map.Entry<Symbol, Double> cell : row.getCells().entrySet()) {
+            if (cell.getValue() > 0.0 && cell.getKey().getType() != Symbol.Type.DUMMY) {
+                double r = this.objective.coefficientFor(cell.getKey()) / cell.getValue();
+                if (r < ratio) {
+                    ratio = r;
+                    entering = cell.getKey();
+                }
+            }
+        }
+        return entering;
+    }
+
+    // The row with the minimum ratio restricts the entering symbol first
+    private Symbol getLeavingSymbol(Symbol entering) {
+        Symbol leaving = null;
+        double ratio = Double.MAX_VALUE;
+        for (Map.Entry<Symbol, Row> entry : this.rows.entrySet()) {
+            if (!entry.getKey().isExternal()) {
+                double coefficient = entry.getValue().coefficientFor(entering);
+                if (coefficient < 0.0) {
+                    double r = -entry.getValue().getConstant() / coefficient;
+                    if (r < ratio) {
+                        ratio = r;
+                        leaving = entry.getKey();
+                    }
+                }
+            }
+        }
+        return leaving;
+    }
+
+    /**
+     * Choose the row to pivot a non-basic marker into, preferring rows that
+     * keep the tableau feasible
+     */
+    private Symbol getMarkerLeavingSymbol(Symbol marker) {
+        double ratio1 = Double.MAX_VALUE;
+        double ratio2 = Double.MAX_VALUE;
+        Symbol first = null, second = null, third = null;
+        for (Map.Entry<Symbol, Row> entry : this.rows.entrySet()) {
+            double coefficient = entry.getValue().coefficientFor(marker);
+            if (coefficient == 0.0) {
+                continue;
+            }
+            if (entry.getKey().isExternal()) {
+                third = entry.getKey();
+            } else if (coefficient < 0.0) {
+                double r = -entry.getValue().getConstant() / coefficient;
+                if (r < ratio1) {
+                    ratio1 = r;
+                    first = entry.getKey();
+                }
+            } else {
+                double r = entry.getValue().getConstant() / coefficient;
+                if (r < ratio2) {
+                    ratio2 = r;
+                    second = entry.getKey();
+                }
+            }
+        }
+        return (first != null) ? first : (second != null) ? second : third;
+    }
+
+    private static Symbol anyPivotableSymbol(Row row) {
+        for (Symbol symbol : row.getCells().keySet()) {
+            if (symbol.isPivotable()) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    private Symbol getVariableSymbol(Variable variable) {
+        return this.variables.computeIfAbsent(variable, v -> new Symbol(Symbol.Type.EXTERNAL));
+    }
+
+    /**
+     * Bookkeeping of constraints and edit variables
+     */
+    private static class Tag {
+        private Symbol marker;
+        private Symbol other;
+    }
+
+    private static class EditInfo {
+        private final LinearConstraint constraint;
+        private final Tag tag;
+        private double constant = 0.0;
+
+        EditInfo(LinearConstraint constraint, Tag tag) {
+            this.constraint = constraint;
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ui.toolkit.constraint.linear;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class Row {
+    /**
+     * Row class: a row of the simplex tableau, basic = constant + sum(c * s)
+     */
+    private double constant;
+    private final Map<Symbol, Double> cells;
+
+    Row(double constant) {
+        this.constant = constant;
+        this.cells = new LinkedHashMap<>();
+    }
+
+    Row(Row other) {
+        this.constant = other.constant;
+        this.cells = new LinkedHashMap<>(other.cells);
+    }
+
+    double getConstant() {
+        return this.constant;
+    }
+
+    Map<Symbol, Double> getCells() {
+        return this.cells;
+    }
+
+    /**
+     * Add a value to the constant
+     * 
+     * @return the new constant
+     */
+    double add(double value) {
+        return this.constant += value;
+    }
+
+    void insert(Symbol symbol, double coefficient) {
+        double newCoefficient = this.cells.getOrDefault(symbol, 0.0) + coefficient;
+        if (LinearSolver.nearZero(newCoefficient)) {
+            this.cells.remove(symbol);
+        } else {
+            this.cells.put(symbol, newCoefficient);
+        }
+    }
+
+    void insert(Symbol symbol) {
+        insert(symbol, 1.0);
+    }
+
+    void insert(Row other, double coefficient) {
+        this.constant += other.constant * coefficient;
+        for (Map.Entry<Symbol, Double> cell : other.cells.entrySet()) {
+            insert(cell.getKey(), cell.getValue() * coefficient);
+        }
+    }
+
+    void remove(Symbol symbol) {
+        this.cells.remove(symbol);
+    }
+
+    void reverseSign() {
+        this.constant = -this.constant;
+        this.cells.replaceAll((symbol, coefficient) -> -coefficient);
+    }
+
+    double coefficientFor(Symbol symbol) {
+        return this.cells.getOrDefault(symbol, 0.0);
+    }
+
+    /**
+     * Solve the row for the given symbol, which must be in the row,
+     * turning "0 = constant + c * symbol + ..." into "symbol = ..."
+     */
+    void solveFor(Symbol symbol) {
+        double coefficient = -1.0 / this.cells.remove(symbol);
+        this.constant *= coefficient;
+        this.cells.replaceAll((s, c) -> c * coefficient);
+    }
+
+    /**
+     * Solve the row "lhs = ..." for rhs, giving "rhs = ..."
+     */
+    void solveFor(Symbol lhs, Symbol rhs) {
+        insert(lhs, -1.0);
+        solveFor(rhs);
+    }
+
+    /**
+     * Replace the symbol with the expression of the given row
+     */
+    void substitute(Symbol symbol, Row row) {
+        Double coefficient = this.cells.remove(symbol);
+        if (coefficient != null) {
+            insert(row, coefficient);
+        }
+    }
+
+    boolean allDummies() {
+        for (Symbol symbol : this.cells.keySet()) {
+            if (symbol.getType() != Symbol.Type.DUMMY) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package ui.toolkit.constraint.linear;
+
+public final class Strength {
+    /**
+     * Strength class: symbolic weights of non-required constraints, encoded
+     * so that any number of weaker violations never outweighs a stronger one
+     */
+    public static final double REQUIRED = create(1000.0, 1000.0, 1000.0);
+    public static final double STRONG = create(1.0, 0.0, 0.0);
+    public static final double MEDIUM = create(0.0, 1.0, 0.0);
+    public static final double WEAK = create(0.0, 0.0, 1.0);
+
+    private Strength() {}
+
+    public static double create(double strong, double medium, double weak) {
+        return create(strong, medium, weak, 1.0);
+    }
+
+    public static double create(double strong, double medium, double weak, double weight) {
+        double result = 0.0;
+        result += clip(strong * weight, 0.0, 1000.0) * 1000000.0;
+        result += clip(medium * weight, 0.0, 1000.0) * 1000.0;
+        result += clip(weak * weight, 0.0, 1000.0);
+        return result;
+    }
+
+    static double clip(double value) {
+        return clip(value, 0.0, REQUIRED);
+    }
+
+    private static double clip(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,29 @@
+package ui.toolkit.constraint.linear;
+
+class Symbol {
+    /**
+     * Symbol class: a column of the simplex tableau
+     */
+    enum Type {
+        EXTERNAL, SLACK, ERROR, DUMMY
+    }
+
+    private final Type type;
+
+    Symbol(Type type) {
+        this.type = type;
+    }
+
+    Type getType() {
+        return this.type;
+    }
+
+    boolean isExternal() {
+        return this.type == Type.EXTERNAL;
+    }
+
+    // slack and error symbols can enter the basis in place of a marker
+    boolean isPivotable() {
+        return this.type == Type.SLACK || this.type == Type.ERROR;
+    }
+}
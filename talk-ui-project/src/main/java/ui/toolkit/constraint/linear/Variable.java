@@ -0,0 +1,31 @@
+package ui.toolkit.constraint.linear;
+
+public class Variable {
+    /**
+     * Variable class: an unknown of the linear solver, whose solved value is
+     * published to object properties through LinearSolver.bind
+     */
+    private final String name;
+    private double value = 0.0;
+
+    public Variable(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public double getValue() {
+        return this.value;
+    }
+
+    void setValue(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,115 @@
+package ui.toolkit.graphics;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.graphics.group.Group;
+
+public class DamageRegion {
+    /**
+     * DamageRegion class: the part of a scene that changed since its last frame
+     *
+     * Objects that know how little of them a change touched (e.g. the end
+     * of a growing stroke) report the area right after the change, with the
+     * epoch (Dependency.getEpoch) from before it. The host of the scene (a
+     * window, or a ReplayDriver) then draws the next frame within that area
+     * only and repaints just that, as long as every change since the last
+     * frame was reported: any other advance of the epoch, or a change the
+     * host is told of (markWhole), makes the next frame whole again.
+     *
+     * Reporters must make sure nothing else depends on what they changed,
+     * as a dependent elsewhere in the scene would not be drawn again.
+     */
+    private static final Map<Group, DamageRegion> regions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Rectangle area = null; // in root coordinates
+    private boolean whole = true;
+    private long epoch = 0;        // as of the last frame or report
+    private long partialFrames = 0;
+
+    /**
+     * Hosts: the region of the scene under a root group
+     */
+    public static void register(Group root, DamageRegion region) {
+        regions.put(root, region);
+    }
+
+    public static void unregister(Group root) {
+        regions.remove(root);
+    }
+
+    /**
+     * Objects: report the area (wrt the group) a change just drew differently
+     *
+     * @param epoch Dependency.getEpoch() from before the change
+     */
+    public static void report(Group group, Rectangle area, long epoch) {
+        if (group == null) {
+            return;
+        }
+        Group root = group;
+        while (root.getGroup() != null) {
+            root = root.getGroup();
+        }
+        DamageRegion region = regions.get(root);
+        if (region != null) {
+            region.add(toRoot(group, area), epoch);
+        }
+    }
+
+    private static Rectangle toRoot(Group group, Rectangle area) {
+        Point from = new Point(area.x, area.y);
+        Point to = new Point(area.x + area.width, area.y + area.height);
+        for (; group != null; group = group.getGroup()) {
+            from = group.childToParent(from);
+            to = group.childToParent(to);
+        }
+        Rectangle bounds = new Rectangle(from);
+        bounds.add(to);
+        bounds.grow(1, 1); // rounding of scaled groups
+        return bounds;
+    }
+
+    private synchronized void add(Rectangle area, long before) {
+        if (!whole && before == epoch) {
+            this.area = (this.area == null) ? area : this.area.union(area);
+        } else {
+            whole = true;
+        }
+        epoch = Dependency.getEpoch();
+    }
+
+    // Hosts: the next frame draws the whole scene
+    public synchronized void markWhole() {
+        whole = true;
+    }
+
+    /**
+     * Hosts: what the next frame must draw, starting over for the one after
+     *
+     * @return the area of the root to draw again, or null for all of it
+     */
+    public synchronized Rectangle take() {
+        long now = Dependency.getEpoch();
+        Rectangle taken = (whole || now != epoch) ? null : area;
+        area = null;
+        whole = false;
+        epoch = now;
+        if (taken != null) {
+            partialFrames++;
+        }
+        return taken;
+    }
+
+    /**
+     * Metrics
+     */
+    // Frames drawn within the reported area only
+    public synchronized long getPartialFrames() {
+        return partialFrames;
+    }
+}
@@ -0,0 +1,165 @@
+package ui.toolkit.graphics;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class SpatialIndex<T> {
+    /**
+     * SpatialIndex class: items by bounding box, on a uniform grid
+     *
+     * Every item is listed in the grid cells its bounds overlap, so a range
+     * query only looks at the items near the queried area, whatever the
+     * number of items elsewhere. Items are compared by identity.
+     */
+    private static final class Entry<T> {
+        private final T item;
+        private Rectangle bounds;
+        private int mark = 0; // last query that visited this entry
+
+        private Entry(T item, Rectangle bounds) {
+            this.item = item;
+            this.bounds = bounds;
+        }
+    }
+
+    private final int cellSize;
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int queries = 0;
+
+    /**
+     * @param cellSize side of the grid cells: about the size of a typical item
+     */
+    public SpatialIndex(int cellSize) {
+        if (cellSize < 1) {
+            throw new RuntimeException("Cell size must be a positive integer");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add or move an item
+     */
+    public void put(T item, Rectangle bounds) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) {
+            unlink(entry);
+            entry.bounds = new Rectangle(bounds);
+        } else {
+            entry = new Entry<>(item, new Rectangle(bounds));
+            entries.put(item, entry);
+        }
+        link(entry);
+    }
+
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public Rectangle getBounds(T item) {
+        Entry<T> entry = entries.get(item);
+        return (entry == null) ? null : new Rectangle(entry.bounds);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    /**
+     * Visit every item whose bounds intersect the area, once each
+     */
+    public void query(Rectangle area, Consumer<? super T> visitor) {
+        if (area.isEmpty() || entries.isEmpty()) {
+            return;
+        }
+        int mark = ++queries;
+        int minColumn = cellOf(area.x), maxColumn = cellOf(area.x + area.width - 1);
+        int minRow = cellOf(area.y), maxRow = cellOf(area.y + area.height - 1);
+        if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+            // larger than the occupied part of the grid: look at the occupied cells
+            for (List<Entry<T>> cell : cells.values()) {
+                visit(cell, area, mark, visitor);
+            }
+            return;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<Entry<T>> cell = cells.get(key(column, row));
+                if (cell != null) {
+                    visit(cell, area, mark, visitor);
+                }
+            }
+        }
+    }
+
+    public List<T> query(Rectangle area) {
+        List<T> items = new ArrayList<>();
+        query(area, items::add);
+        return items;
+    }
+
+    private static <T> void visit(List<Entry<T>> cell, Rectangle area, int mark, Consumer<? super T> visitor) {
+        for (int i = 0; i < cell.size(); i++) {
+            Entry<T> entry = cell.get(i);
+            if (entry.mark != mark) {
+                entry.mark = mark;
+                if (entry.bounds.intersects(area)) {
+                    visitor.accept(entry.item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grid
+     */
+    private void link(Entry<T> entry) {
+        Rectangle r = entry.bounds;
+        for (int row = cellOf(r.y); row <= cellOf(r.y + Math.max(r.height, 1) - 1); row++) {
+            for (int column = cellOf(r.x); column <= cellOf(r.x + Math.max(r.width, 1) - 1); column++) {
+                cells.computeIfAbsent(key(column, row), k -> new ArrayList<>(4)).add(entry);
+            }
+        }
+    }
+
+    private void unlink(Entry<T> entry) {
+        Rectangle r = entry.bounds;
+        for (int row = cellOf(r.y); row <= cellOf(r.y + Math.max(r.height, 1) - 1); row++) {
+            for (int column = cellOf(r.x); column <= cellOf(r.x + Math.max(r.width, 1) - 1); column++) {
+                Long key = key(column, row);
+                List<Entry<T>> cell = cells.get(key);
+                cell.remove(entry);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+}
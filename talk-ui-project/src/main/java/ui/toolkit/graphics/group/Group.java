@@ -4,6 +4,7 @@ import java.awt.Point;
 import java.util.List;
 
 import ui.toolkit.behavior.Behavior;
+import ui.toolkit.behavior.BehaviorDispatcher;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
 import ui.toolkit.graphics.object.GraphicalObject;
 
@@ -24,11 +25,8 @@ public interface Group extends GraphicalObject {
     public Group removeBehavior(Behavior behavior);
     public Group removeBehaviors(Behavior... behaviors);
     public List<Behavior> getBehaviors();
-
-    public Behavior[] getBehaviorsToAdd();
-    public Behavior[] getBehaviorsToRemove();
-    public Group clearBehaviorsToAdd();
-    public Group clearBehaviorsToRemove();
+    public BehaviorDispatcher getBehaviorDispatcher();
+    public SelectionModel getSelectionModel();
 
     public Point parentToChild(Point pt);
     public Point childToParent(Point pt);
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ui.toolkit.behavior.Behavior;
+import ui.toolkit.behavior.BehaviorDispatcher;
+import ui.toolkit.behavior.DragLayer;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
@@ -28,23 +30,22 @@ public class LayoutGroup implements Group {
     private Group group = null;
     private List<GraphicalObject> children = new ArrayList<>();
 
-    private List<Behavior> behaviors = new ArrayList<>();
-    private List<Behavior> behaviorsToAdd = new ArrayList<>();
-    private List<Behavior> behaviorsToRemove = new ArrayList<>();
+    private final BehaviorDispatcher behaviors = new BehaviorDispatcher();
+    private final SelectionModel selection = new SelectionModel(this);
     private static final boolean DEBUG = false;
 
     public static final int HORIZONTAL = 0;
     public static final int VERTICAL = 1;
     public static final int GRID = 2;
 
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Integer> widthConstraint = new NoConstraint<>();
-    private Constraint<Integer> heightConstraint = new NoConstraint<>();
-    private Constraint<Integer> layoutConstraint = new NoConstraint<>();
-    private Constraint<Integer> offsetConstraint = new NoConstraint<>();
-    private Constraint<Integer> nRowsConstraint = new NoConstraint<>();
-    private Constraint<Integer> nColumnsConstraint = new NoConstraint<>();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Integer> widthConstraint = NoConstraint.none();
+    private Constraint<Integer> heightConstraint = NoConstraint.none();
+    private Constraint<Integer> layoutConstraint = NoConstraint.none();
+    private Constraint<Integer> offsetConstraint = NoConstraint.none();
+    private Constraint<Integer> nRowsConstraint = NoConstraint.none();
+    private Constraint<Integer> nColumnsConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -110,6 +111,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -140,6 +144,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -170,6 +177,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useWidth() {
+        if (NoConstraint.isNone(widthConstraint)) {
+            widthConstraint = new NoConstraint<>();
+        }
         return this.widthConstraint;
     }
 
@@ -200,6 +210,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useHeight() {
+        if (NoConstraint.isNone(heightConstraint)) {
+            heightConstraint = new NoConstraint<>();
+        }
         return this.heightConstraint;
     }
 
@@ -231,6 +244,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useLayout() {
+        if (NoConstraint.isNone(layoutConstraint)) {
+            layoutConstraint = new NoConstraint<>();
+        }
         return this.layoutConstraint;
     }
 
@@ -261,6 +277,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useOffset() {
+        if (NoConstraint.isNone(offsetConstraint)) {
+            offsetConstraint = new NoConstraint<>();
+        }
         return this.offsetConstraint;
     }
 
@@ -291,6 +310,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useNRows() {
+        if (NoConstraint.isNone(nRowsConstraint)) {
+            nRowsConstraint = new NoConstraint<>();
+        }
         return this.nRowsConstraint;
     }
 
@@ -321,6 +343,9 @@ public class LayoutGroup implements Group {
     }
 
     public Constraint<Integer> useNColumns() {
+        if (NoConstraint.isNone(nColumnsConstraint)) {
+            nColumnsConstraint = new NoConstraint<>();
+        }
         return this.nColumnsConstraint;
     }
 
@@ -396,7 +421,9 @@ public class LayoutGroup implements Group {
                 default:
                     throw new RuntimeException("Not supported layout type");
             }
-            child.draw(graphics, childClipShape);
+            if (!DragLayer.isHidden(child)) {
+                child.draw(graphics, childClipShape);
+            }
         }
         graphics.translate(-x, -y);
 
@@ -436,6 +463,20 @@ public class LayoutGroup implements Group {
         return contains(pt.x, pt.y);
     }
 
+    public void dispose() {
+        for (GraphicalObject child : children) {
+            child.dispose();
+        }
+        xConstraint.detach();
+        yConstraint.detach();
+        widthConstraint.detach();
+        heightConstraint.detach();
+        layoutConstraint.detach();
+        offsetConstraint.detach();
+        nRowsConstraint.detach();
+        nColumnsConstraint.detach();
+    }
+
     /**
      * Methods defined in the Group interface
      */
@@ -446,12 +487,7 @@ public class LayoutGroup implements Group {
         } else {
             children.add(child);
             child.setGroup(this);
-            if (child instanceof Group) {
-                Group groupChild = (Group) child;
-                addBehaviors(groupChild.getBehaviorsToAdd());
-                removeBehaviors(groupChild.getBehaviorsToRemove());
-                groupChild.clearBehaviorsToAdd().clearBehaviorsToRemove();
-            }
+            SelectionModel.childAdded(this, child);
         }
         return this;
     }
@@ -466,11 +502,7 @@ public class LayoutGroup implements Group {
     public Group removeChild(GraphicalObject child) {
         children.remove(child);
         child.setGroup(null);
-        if (child instanceof Group) {
-            for (Behavior behavior : ((Group) child).getBehaviors()) {
-                removeBehavior(behavior);
-            }
-        }
+        SelectionModel.childRemoved(this, child);
         return this;
     }
 
@@ -489,12 +521,7 @@ public class LayoutGroup implements Group {
         } else {
             children.add(0, child);
             child.setGroup(this);
-            if (child instanceof Group) {
-                Group groupChild = (Group) child;
-                addBehaviors(groupChild.getBehaviorsToAdd());
-                removeBehaviors(groupChild.getBehaviorsToRemove());
-                groupChild.clearBehaviorsToAdd().clearBehaviorsToRemove();
-            }
+            SelectionModel.childAdded(this, child);
         }
         return this;
     }
@@ -504,11 +531,6 @@ public class LayoutGroup implements Group {
             behavior.setGroup(this);
             behaviors.add(behavior);
         }
-        if (group != null) {
-            group.addBehavior(behavior);
-        } else {
-            behaviorsToAdd.add(behavior);
-        }
         return this;
     }
 
@@ -520,11 +542,8 @@ public class LayoutGroup implements Group {
     }
 
     public Group removeBehavior(Behavior behavior) {
-        if (group != null) {
-            group.removeBehavior(behavior);
-        } else {
+        if (behaviors.remove(behavior)) {
             behavior.setGroup(null);
-            behaviorsToRemove.add(behavior);
         }
         return this;
     }
@@ -537,25 +556,15 @@ public class LayoutGroup implements Group {
     }
 
     public List<Behavior> getBehaviors() {
-        return new ArrayList<Behavior>(behaviors);
+        return behaviors.getBehaviors();
     }
 
-    public Behavior[] getBehaviorsToAdd() {
-        return behaviorsToAdd.stream().toArray(Behavior[]::new);
+    public BehaviorDispatcher getBehaviorDispatcher() {
+        return behaviors;
     }
 
-    public Behavior[] getBehaviorsToRemove() {
-        return behaviorsToRemove.stream().toArray(Behavior[]::new);
-    }
-
-    public Group clearBehaviorsToAdd() {
-        behaviorsToAdd.clear();
-        return this;
-    }
-
-    public Group clearBehaviorsToRemove() {
-        behaviorsToRemove.clear();
-        return this;
+    public SelectionModel getSelectionModel() {
+        return selection;
     }
 
     public Group bringChildToFront(GraphicalObject child) {
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ui.toolkit.behavior.Behavior;
+import ui.toolkit.behavior.BehaviorDispatcher;
+import ui.toolkit.behavior.DragLayer;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
@@ -26,16 +28,15 @@ public class ScaledGroup implements Group {
     private Group group = null;
     private List<GraphicalObject> children = new ArrayList<>();
 
-    private List<Behavior> behaviors = new ArrayList<>();
-    private List<Behavior> behaviorsToAdd = new ArrayList<>();
-    private List<Behavior> behaviorsToRemove = new ArrayList<>();
+    private final BehaviorDispatcher behaviors = new BehaviorDispatcher();
+    private final SelectionModel selection = new SelectionModel(this);
 
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Integer> widthConstraint = new NoConstraint<>();
-    private Constraint<Integer> heightConstraint = new NoConstraint<>();
-    private Constraint<Double> scaleXConstraint = new NoConstraint<>();
-    private Constraint<Double> scaleYConstraint = new NoConstraint<>();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Integer> widthConstraint = NoConstraint.none();
+    private Constraint<Integer> heightConstraint = NoConstraint.none();
+    private Constraint<Double> scaleXConstraint = NoConstraint.none();
+    private Constraint<Double> scaleYConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -88,6 +89,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -118,6 +122,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -148,6 +155,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Integer> useWidth() {
+        if (NoConstraint.isNone(widthConstraint)) {
+            widthConstraint = new NoConstraint<>();
+        }
         return this.widthConstraint;
     }
 
@@ -178,6 +188,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Integer> useHeight() {
+        if (NoConstraint.isNone(heightConstraint)) {
+            heightConstraint = new NoConstraint<>();
+        }
         return this.heightConstraint;
     }
 
@@ -208,6 +221,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Double> useScaleX() {
+        if (NoConstraint.isNone(scaleXConstraint)) {
+            scaleXConstraint = new NoConstraint<>();
+        }
         return this.scaleXConstraint;
     }
 
@@ -238,6 +254,9 @@ public class ScaledGroup implements Group {
     }
 
     public Constraint<Double> useScaleY() {
+        if (NoConstraint.isNone(scaleYConstraint)) {
+            scaleYConstraint = new NoConstraint<>();
+        }
         return this.scaleYConstraint;
     }
 
@@ -269,6 +288,9 @@ public class ScaledGroup implements Group {
         graphics.translate(x, y);           // 1. translate the origin
         graphics.scale(scaleX, scaleY);     // 2. scale the graphics
         for (GraphicalObject child : children) {
+            if (DragLayer.isHidden(child)) {
+                continue;
+            }
             child.draw(graphics, childClipShape);
         }
 
@@ -309,6 +331,18 @@ public class ScaledGroup implements Group {
         return contains(pt.x, pt.y);
     }
 
+    public void dispose() {
+        for (GraphicalObject child : children) {
+            child.dispose();
+        }
+        xConstraint.detach();
+        yConstraint.detach();
+        widthConstraint.detach();
+        heightConstraint.detach();
+        scaleXConstraint.detach();
+        scaleYConstraint.detach();
+    }
+
     /**
      * Methods defined in the Group interface
      */
@@ -319,12 +353,7 @@ public class ScaledGroup implements Group {
         } else {
             children.add(child);
             child.setGroup(this);
-            if (child instanceof Group) {
-                Group groupChild = (Group) child;
-                addBehaviors(groupChild.getBehaviorsToAdd());
-                removeBehaviors(groupChild.getBehaviorsToRemove());
-                groupChild.clearBehaviorsToAdd().clearBehaviorsToRemove();
-            }
+            SelectionModel.childAdded(this, child);
         }
         return this;
     }
@@ -339,11 +368,7 @@ public class ScaledGroup implements Group {
     public Group removeChild(GraphicalObject child) {
         children.remove(child);
         child.setGroup(null);
-        if (child instanceof Group) {
-            for (Behavior behavior : ((Group) child).getBehaviors()) {
-                removeBehavior(behavior);
-            }
-        }
+        SelectionModel.childRemoved(this, child);
         return this;
     }
 
@@ -364,11 +389,6 @@ public class ScaledGroup implements Group {
             behavior.setGroup(this);
             behaviors.add(behavior);
         }
-        if (group != null) {
-            group.addBehavior(behavior);
-        } else {
-            behaviorsToAdd.add(behavior);
-        }
         return this;
     }
 
@@ -380,11 +400,8 @@ public class ScaledGroup implements Group {
     }
 
     public Group removeBehavior(Behavior behavior) {
-        if (group != null) {
-            group.removeBehavior(behavior);
-        } else {
+        if (behaviors.remove(behavior)) {
             behavior.setGroup(null);
-            behaviorsToRemove.add(behavior);
         }
         return this;
     }
@@ -397,25 +414,15 @@ public class ScaledGroup implements Group {
     }
 
     public List<Behavior> getBehaviors() {
-        return new ArrayList<Behavior>(behaviors);
+        return behaviors.getBehaviors();
     }
 
-    public Behavior[] getBehaviorsToAdd() {
-        return behaviorsToAdd.stream().toArray(Behavior[]::new);
+    public BehaviorDispatcher getBehaviorDispatcher() {
+        return behaviors;
     }
 
-    public Behavior[] getBehaviorsToRemove() {
-        return behaviorsToRemove.stream().toArray(Behavior[]::new);
-    }
-
-    public Group clearBehaviorsToAdd() {
-        behaviorsToAdd.clear();
-        return this;
-    }
-
-    public Group clearBehaviorsToRemove() {
-        behaviorsToRemove.clear();
-        return this;
+    public SelectionModel getSelectionModel() {
+        return selection;
     }
 
     public Group bringChildToFront(GraphicalObject child) {
@@ -0,0 +1,134 @@
+package ui.toolkit.graphics.group;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.graphics.object.GraphicalObject;
+import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
+
+public class SelectionModel implements Iterable<SelectableGraphicalObject> {
+    /**
+     * SelectionModel class: the selected children of a group, in the order
+     * they were selected
+     *
+     * Every group owns one (see Group.getSelectionModel), made with it, so
+     * it lives and goes with the group. The selectable objects report every
+     * change of their selected property, and the groups every child added
+     * or removed, so size and contains are O(1) and going through the
+     * selection is O(selected), however many children the group has. Code
+     * that reacts to selections subscribes to useSelection(), notified once
+     * per settled change (a clear() is one change).
+     *
+     * The model may be read from other threads than the one selecting (e.g.
+     * the TalkUI voice thread): its methods are synchronized, and iterating
+     * goes through a snapshot.
+     *
+     * A selected property bound to a constraint is read when it is set and
+     * when the object joins the group, not when the inputs of the
+     * constraint change.
+     */
+    private final Group group;
+    private final Set<SelectableGraphicalObject> selected = new LinkedHashSet<>();
+    private volatile NoConstraint<SelectionModel> selection = null; // made on first subscription
+
+    // For Group implementations: the model of a group without children yet
+    public SelectionModel(Group group) {
+        this.group = group;
+    }
+
+    /**
+     * Reports: called by the selectable objects and the groups
+     */
+    public static void selectionChanged(SelectableGraphicalObject object) {
+        Group group = object.getGroup();
+        if (group != null) {
+            group.getSelectionModel().update(object, object.isSelected());
+        }
+    }
+
+    public static void childAdded(Group group, GraphicalObject child) {
+        if (child instanceof SelectableGraphicalObject) {
+            SelectableGraphicalObject object = (SelectableGraphicalObject) child;
+            group.getSelectionModel().update(object, object.isSelected());
+        }
+    }
+
+    public static void childRemoved(Group group, GraphicalObject child) {
+        if (child instanceof SelectableGraphicalObject) {
+            group.getSelectionModel().update((SelectableGraphicalObject) child, false);
+        }
+    }
+
+    private void update(SelectableGraphicalObject object, boolean isSelected) {
+        boolean changed;
+        synchronized (this) {
+            changed = isSelected ? selected.add(object) : selected.remove(object);
+        }
+        NoConstraint<SelectionModel> selection = this.selection;
+        if (changed && selection != null) {
+            selection.notifyValueChange(false);
+        }
+    }
+
+    /**
+     * Getters
+     */
+    public Group getGroup() {
+        return group;
+    }
+
+    public synchronized int size() {
+        return selected.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return selected.isEmpty();
+    }
+
+    public synchronized boolean contains(GraphicalObject object) {
+        return selected.contains(object);
+    }
+
+    // The object selected first, or null
+    public synchronized SelectableGraphicalObject getFirst() {
+        return selected.isEmpty() ? null : selected.iterator().next();
+    }
+
+    public synchronized List<SelectableGraphicalObject> toList() {
+        return new ArrayList<>(selected);
+    }
+
+    public Iterator<SelectableGraphicalObject> iterator() {
+        return toList().iterator();
+    }
+
+    public synchronized Constraint<SelectionModel> useSelection() {
+        if (selection == null) {
+            NoConstraint<SelectionModel> constraint = new NoConstraint<>();
+            constraint.setValue(this);
+            selection = constraint;
+        }
+        return selection;
+    }
+
+    /**
+     * De-select the selected objects, and only them
+     */
+    public void clear() {
+        List<SelectableGraphicalObject> objects = toList();
+        if (objects.isEmpty()) {
+            return;
+        }
+        Dependency.batch(() -> {
+            for (SelectableGraphicalObject object : objects) {
+                object.setSelected(false);
+            }
+        });
+    }
+}
@@ -8,6 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ui.toolkit.behavior.Behavior;
+import ui.toolkit.behavior.BehaviorDispatcher;
+import ui.toolkit.behavior.DragLayer;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
@@ -22,14 +24,13 @@ public class SimpleGroup implements Group {
     private Group group = null;
     private List<GraphicalObject> children = new ArrayList<>();
 
-    protected List<Behavior> behaviors = new ArrayList<>();
-    private List<Behavior> behaviorsToAdd = new ArrayList<>();
-    private List<Behavior> behaviorsToRemove = new ArrayList<>();
+    private final BehaviorDispatcher behaviors = new BehaviorDispatcher();
+    private final SelectionModel selection = new SelectionModel(this);
 
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Integer> widthConstraint = new NoConstraint<>();
-    private Constraint<Integer> heightConstraint = new NoConstraint<>();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Integer> widthConstraint = NoConstraint.none();
+    private Constraint<Integer> heightConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -80,6 +81,9 @@ public class SimpleGroup implements Group {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -110,6 +114,9 @@ public class SimpleGroup implements Group {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -140,6 +147,9 @@ public class SimpleGroup implements Group {
     }
 
     public Constraint<Integer> useWidth() {
+        if (NoConstraint.isNone(widthConstraint)) {
+            widthConstraint = new NoConstraint<>();
+        }
         return this.widthConstraint;
     }
 
@@ -170,6 +180,9 @@ public class SimpleGroup implements Group {
     }
 
     public Constraint<Integer> useHeight() {
+        if (NoConstraint.isNone(heightConstraint)) {
+            heightConstraint = new NoConstraint<>();
+        }
         return this.heightConstraint;
     }
 
@@ -189,6 +202,9 @@ public class SimpleGroup implements Group {
         // Translate the origin to draw children
         graphics.translate(x, y);
         for (GraphicalObject child : children) {
+            if (DragLayer.isHidden(child)) {
+                continue;
+            }
             child.draw(graphics, childClipShape);
         }
         graphics.translate(-x, -y);
@@ -223,6 +239,16 @@ public class SimpleGroup implements Group {
         return contains(pt.x, pt.y);
     }
 
+    public void dispose() {
+        for (GraphicalObject child : children) {
+            child.dispose();
+        }
+        xConstraint.detach();
+        yConstraint.detach();
+        widthConstraint.detach();
+        heightConstraint.detach();
+    }
+
     /**
      * Methods defined in the Group interface
      */
@@ -233,12 +259,7 @@ public class SimpleGroup implements Group {
         } else {
             children.add(child);
             child.setGroup(this);
-            if (child instanceof Group) {
-                Group groupChild = (Group) child;
-                addBehaviors(groupChild.getBehaviorsToAdd());
-                removeBehaviors(groupChild.getBehaviorsToRemove());
-                groupChild.clearBehaviorsToAdd().clearBehaviorsToRemove();
-            }
+            SelectionModel.childAdded(this, child);
         }
         return this;
     }
@@ -253,11 +274,7 @@ public class SimpleGroup implements Group {
     public Group removeChild(GraphicalObject child) {
         children.remove(child);
         child.setGroup(null);
-        if (child instanceof Group) {
-            for (Behavior behavior : ((Group) child).getBehaviors()) {
-                removeBehavior(behavior);
-            }
-        }
+        SelectionModel.childRemoved(this, child);
         return this;
     }
 
@@ -278,11 +295,6 @@ public class SimpleGroup implements Group {
             behavior.setGroup(this);
             behaviors.add(behavior);
         }
-        if (group != null) {
-            group.addBehavior(behavior);
-        } else {
-            behaviorsToAdd.add(behavior);
-        }
         return this;
     }
 
@@ -294,11 +306,8 @@ public class SimpleGroup implements Group {
     }
 
     public Group removeBehavior(Behavior behavior) {
-        if (group != null) {
-            group.removeBehavior(behavior);
-        } else {
+        if (behaviors.remove(behavior)) {
             behavior.setGroup(null);
-            behaviorsToRemove.add(behavior);
         }
         return this;
     }
@@ -311,25 +320,15 @@ public class SimpleGroup implements Group {
     }
 
     public List<Behavior> getBehaviors() {
-        return new ArrayList<Behavior>(behaviors);
-    }
-
-    public Behavior[] getBehaviorsToAdd() {
-        return behaviorsToAdd.stream().toArray(Behavior[]::new);
+        return behaviors.getBehaviors();
     }
 
-    public Behavior[] getBehaviorsToRemove() {
-        return behaviorsToRemove.stream().toArray(Behavior[]::new);
+    public BehaviorDispatcher getBehaviorDispatcher() {
+        return behaviors;
     }
 
-    public Group clearBehaviorsToAdd() {
-        behaviorsToAdd.clear();
-        return this;
-    }
-
-    public Group clearBehaviorsToRemove() {
-        behaviorsToRemove.clear();
-        return this;
+    public SelectionModel getSelectionModel() {
+        return selection;
     }
 
     public Group bringChildToFront(GraphicalObject child) {
@@ -3,6 +3,7 @@ package ui.toolkit.graphics.group.selectable;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.group.LayoutGroup;
+import ui.toolkit.graphics.group.SelectionModel;
 
 public class SelectableLayoutGroup extends LayoutGroup implements SelectableGroup {
     /**
@@ -14,8 +15,8 @@ public class SelectableLayoutGroup extends LayoutGroup implements SelectableGrou
     private boolean interimSelected;
     private boolean selected;
 
-    private Constraint<Boolean> interimSelectedConstraint = new NoConstraint<>();
-    private Constraint<Boolean> selectedConstraint = new NoConstraint<>();
+    private Constraint<Boolean> interimSelectedConstraint = NoConstraint.none();
+    private Constraint<Boolean> selectedConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -63,6 +64,9 @@ public class SelectableLayoutGroup extends LayoutGroup implements SelectableGrou
     }
 
     public Constraint<Boolean> useInterimSelected() {
+        if (NoConstraint.isNone(interimSelectedConstraint)) {
+            interimSelectedConstraint = new NoConstraint<>();
+        }
         return this.interimSelectedConstraint;
     }
 
@@ -82,6 +86,7 @@ public class SelectableLayoutGroup extends LayoutGroup implements SelectableGrou
                 selectedConstraint.setValue(selected);
                 selectedConstraint.notifyValueChange(false);
             }
+            SelectionModel.selectionChanged(this);
         }
     }
 
@@ -90,9 +95,20 @@ public class SelectableLayoutGroup extends LayoutGroup implements SelectableGrou
         selectedConstraint = constraint;
         selectedConstraint.setValue(this.selected);
         selectedConstraint.notifyValueChange(true);
+        SelectionModel.selectionChanged(this);
     }
 
     public Constraint<Boolean> useSelected() {
+        if (NoConstraint.isNone(selectedConstraint)) {
+            selectedConstraint = new NoConstraint<>();
+        }
         return this.selectedConstraint;
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        interimSelectedConstraint.detach();
+        selectedConstraint.detach();
+    }
 }
\ No newline at end of file
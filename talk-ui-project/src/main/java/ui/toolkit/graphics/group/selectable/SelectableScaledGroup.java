@@ -3,6 +3,7 @@ package ui.toolkit.graphics.group.selectable;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.group.ScaledGroup;
+import ui.toolkit.graphics.group.SelectionModel;
 
 public class SelectableScaledGroup extends ScaledGroup implements SelectableGroup {
     /**
@@ -13,8 +14,8 @@ public class SelectableScaledGroup extends ScaledGroup implements SelectableGrou
     private boolean interimSelected;
     private boolean selected;
 
-    private Constraint<Boolean> interimSelectedConstraint = new NoConstraint<>();
-    private Constraint<Boolean> selectedConstraint = new NoConstraint<>();
+    private Constraint<Boolean> interimSelectedConstraint = NoConstraint.none();
+    private Constraint<Boolean> selectedConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -57,6 +58,9 @@ public class SelectableScaledGroup extends ScaledGroup implements SelectableGrou
     }
 
     public Constraint<Boolean> useInterimSelected() {
+        if (NoConstraint.isNone(interimSelectedConstraint)) {
+            interimSelectedConstraint = new NoConstraint<>();
+        }
         return this.interimSelectedConstraint;
     }
 
@@ -76,6 +80,7 @@ public class SelectableScaledGroup extends ScaledGroup implements SelectableGrou
                 selectedConstraint.setValue(selected);
                 selectedConstraint.notifyValueChange(false);
             }
+            SelectionModel.selectionChanged(this);
         }
     }
 
@@ -84,9 +89,20 @@ public class SelectableScaledGroup extends ScaledGroup implements SelectableGrou
         selectedConstraint = constraint;
         selectedConstraint.setValue(this.selected);
         selectedConstraint.notifyValueChange(true);
+        SelectionModel.selectionChanged(this);
     }
 
     public Constraint<Boolean> useSelected() {
+        if (NoConstraint.isNone(selectedConstraint)) {
+            selectedConstraint = new NoConstraint<>();
+        }
         return this.selectedConstraint;
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        interimSelectedConstraint.detach();
+        selectedConstraint.detach();
+    }
 }
\ No newline at end of file
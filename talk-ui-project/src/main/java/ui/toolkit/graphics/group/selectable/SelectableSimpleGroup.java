@@ -2,6 +2,7 @@ package ui.toolkit.graphics.group.selectable;
 
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.graphics.group.SelectionModel;
 import ui.toolkit.graphics.group.SimpleGroup;
 
 public class SelectableSimpleGroup extends SimpleGroup implements SelectableGroup {
@@ -11,8 +12,8 @@ public class SelectableSimpleGroup extends SimpleGroup implements SelectableGrou
     private boolean interimSelected;
     private boolean selected;
 
-    private Constraint<Boolean> interimSelectedConstraint = new NoConstraint<>();
-    private Constraint<Boolean> selectedConstraint = new NoConstraint<>();
+    private Constraint<Boolean> interimSelectedConstraint = NoConstraint.none();
+    private Constraint<Boolean> selectedConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -55,6 +56,9 @@ public class SelectableSimpleGroup extends SimpleGroup implements SelectableGrou
     }
 
     public Constraint<Boolean> useInterimSelected() {
+        if (NoConstraint.isNone(interimSelectedConstraint)) {
+            interimSelectedConstraint = new NoConstraint<>();
+        }
         return this.interimSelectedConstraint;
     }
 
@@ -74,6 +78,7 @@ public class SelectableSimpleGroup extends SimpleGroup implements SelectableGrou
                 selectedConstraint.setValue(selected);
                 selectedConstraint.notifyValueChange(false);
             }
+            SelectionModel.selectionChanged(this);
         }
     }
 
@@ -82,9 +87,20 @@ public class SelectableSimpleGroup extends SimpleGroup implements SelectableGrou
         selectedConstraint = constraint;
         selectedConstraint.setValue(this.selected);
         selectedConstraint.notifyValueChange(true);
+        SelectionModel.selectionChanged(this);
     }
 
     public Constraint<Boolean> useSelected() {
+        if (NoConstraint.isNone(selectedConstraint)) {
+            selectedConstraint = new NoConstraint<>();
+        }
         return this.selectedConstraint;
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        interimSelectedConstraint.detach();
+        selectedConstraint.detach();
+    }
 }
\ No newline at end of file
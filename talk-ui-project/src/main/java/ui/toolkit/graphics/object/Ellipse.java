@@ -19,12 +19,12 @@ public class Ellipse implements Rect {
     private int lineThickness;
     private Group group = null;
 
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Integer> widthConstraint = new NoConstraint<>();
-    private Constraint<Integer> heightConstraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
-    private Constraint<Integer> lineThicknessConstraint = new NoConstraint<>();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Integer> widthConstraint = NoConstraint.none();
+    private Constraint<Integer> heightConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -77,6 +77,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -107,6 +110,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -137,6 +143,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Integer> useWidth() {
+        if (NoConstraint.isNone(widthConstraint)) {
+            widthConstraint = new NoConstraint<>();
+        }
         return this.widthConstraint;
     }
 
@@ -167,6 +176,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Integer> useHeight() {
+        if (NoConstraint.isNone(heightConstraint)) {
+            heightConstraint = new NoConstraint<>();
+        }
         return this.heightConstraint;
     }
 
@@ -197,6 +209,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -227,6 +242,9 @@ public class Ellipse implements Rect {
     }
 
     public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
         return this.lineThicknessConstraint;
     }
 
@@ -289,4 +307,13 @@ public class Ellipse implements Rect {
     public boolean contains(Point pt) {
         return contains(pt.x, pt.y);
     }
+
+    public void dispose() {
+        xConstraint.detach();
+        yConstraint.detach();
+        widthConstraint.detach();
+        heightConstraint.detach();
+        colorConstraint.detach();
+        lineThicknessConstraint.detach();
+    }
 }
\ No newline at end of file
@@ -17,11 +17,11 @@ public class FilledEllipse implements Rect {
     private Color color;
     private Group group = null;
 
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Integer> widthConstraint = new NoConstraint<>();
-    private Constraint<Integer> heightConstraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Integer> widthConstraint = NoConstraint.none();
+    private Constraint<Integer> heightConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -73,6 +73,9 @@ public class FilledEllipse implements Rect {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -103,6 +106,9 @@ public class FilledEllipse implements Rect {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -133,6 +139,9 @@ public class FilledEllipse implements Rect {
     }
 
     public Constraint<Integer> useWidth() {
+        if (NoConstraint.isNone(widthConstraint)) {
+            widthConstraint = new NoConstraint<>();
+        }
         return this.widthConstraint;
     }
 
@@ -163,6 +172,9 @@ public class FilledEllipse implements Rect {
     }
 
     public Constraint<Integer> useHeight() {
+        if (NoConstraint.isNone(heightConstraint)) {
+            heightConstraint = new NoConstraint<>();
+        }
         return this.heightConstraint;
     }
 
@@ -193,6 +205,9 @@ public class FilledEllipse implements Rect {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -249,4 +264,12 @@ public class FilledEllipse implements Rect {
     public boolean contains(Point pt) {
         return contains(pt.x, pt.y);
     }
+
+    public void dispose() {
+        xConstraint.detach();
+        yConstraint.detach();
+        widthConstraint.detach();
+        heightConstraint.detach();
+        colorConstraint.detach();
+    }
 }
\ No newline at end of file
@@ -19,4 +19,16 @@ public interface GraphicalObject {
     // Setup position constraints for widget components
     public void setX(Constraint<Integer> constraint);
     public void setY(Constraint<Integer> constraint);
+
+    // Position properties other constraints can use, or null if the object
+    // has no single position (e.g. a Line, which has two ends)
+    public default Constraint<Integer> useX() {
+        return null;
+    }
+    public default Constraint<Integer> useY() {
+        return null;
+    }
+
+    // Unlink constraints of a removed object so that it can be reclaimed
+    public void dispose();
 }
\ No newline at end of file
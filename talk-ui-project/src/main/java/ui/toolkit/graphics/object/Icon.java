@@ -17,9 +17,9 @@ public class Icon implements GraphicalObject {
     private int x, y;
     private Group group = null;
 
-    private Constraint<Image> imageConstraint = new NoConstraint<>();
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
+    private Constraint<Image> imageConstraint = NoConstraint.none();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -69,6 +69,9 @@ public class Icon implements GraphicalObject {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -99,6 +102,9 @@ public class Icon implements GraphicalObject {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -129,6 +135,9 @@ public class Icon implements GraphicalObject {
     }
 
     public Constraint<Image> useImage() {
+        if (NoConstraint.isNone(imageConstraint)) {
+            imageConstraint = new NoConstraint<>();
+        }
         return this.imageConstraint;
     }
 
@@ -181,4 +190,10 @@ public class Icon implements GraphicalObject {
     public boolean contains(Point pt) {
         return contains(pt.x, pt.y);
     }
+
+    public void dispose() {
+        imageConstraint.detach();
+        xConstraint.detach();
+        yConstraint.detach();
+    }
 }
\ No newline at end of file
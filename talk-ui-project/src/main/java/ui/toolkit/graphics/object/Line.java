@@ -22,12 +22,12 @@ public class Line implements GraphicalObject {
     private int dx, dy;
     private boolean invariant = false;
 
-    private Constraint<Integer> x1Constraint = new NoConstraint<>();
-    private Constraint<Integer> y1Constraint = new NoConstraint<>();
-    private Constraint<Integer> x2Constraint = new NoConstraint<>();
-    private Constraint<Integer> y2Constraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
-    private Constraint<Integer> lineThicknessConstraint = new NoConstraint<>();
+    private Constraint<Integer> x1Constraint = NoConstraint.none();
+    private Constraint<Integer> y1Constraint = NoConstraint.none();
+    private Constraint<Integer> x2Constraint = NoConstraint.none();
+    private Constraint<Integer> y2Constraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -82,6 +82,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Integer> useX1() {
+        if (NoConstraint.isNone(x1Constraint)) {
+            x1Constraint = new NoConstraint<>();
+        }
         return this.x1Constraint;
     }
 
@@ -112,6 +115,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Integer> useY1() {
+        if (NoConstraint.isNone(y1Constraint)) {
+            y1Constraint = new NoConstraint<>();
+        }
         return this.y1Constraint;
     }
 
@@ -145,6 +151,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Integer> useX2() {
+        if (NoConstraint.isNone(x2Constraint)) {
+            x2Constraint = new NoConstraint<>();
+        }
         return this.x2Constraint;
     }
 
@@ -175,6 +184,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Integer> useY2() {
+        if (NoConstraint.isNone(y2Constraint)) {
+            y2Constraint = new NoConstraint<>();
+        }
         return this.y2Constraint;
     }
 
@@ -205,6 +217,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -235,6 +250,9 @@ public class Line implements GraphicalObject {
     }
 
     public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
         return this.lineThicknessConstraint;
     }
 
@@ -350,4 +368,13 @@ public class Line implements GraphicalObject {
     public boolean contains(Point pt) {
         return contains(pt.x, pt.y);
     }
+
+    public void dispose() {
+        x1Constraint.detach();
+        y1Constraint.detach();
+        x2Constraint.detach();
+        y2Constraint.detach();
+        colorConstraint.detach();
+        lineThicknessConstraint.detach();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,533 @@
+package ui.toolkit.graphics.object;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.graphics.DamageRegion;
+import ui.toolkit.graphics.SpatialIndex;
+import ui.toolkit.graphics.group.Group;
+
+public class Polyline implements GraphicalObject {
+    /**
+     * Polyline class: freehand strokes, growing a point at a time
+     *
+     * The vertices are kept in int arrays relative to the first point (x, y),
+     * so moving the stroke moves no point. addPoint simplifies on the fly,
+     * greedily: the last vertex follows the newest point for as long as all
+     * the raw points since the vertex before it are within the tolerance of
+     * the segment between them, and stays where it is once they are not.
+     * A vertex is never revisited (unlike Douglas-Peucker, which splits the
+     * whole stroke at its farthest point), so a stroke may keep a few more
+     * vertices than needed, and vertices other than the last never change:
+     *
+     * - the bounds grow with each point, without going through the stroke;
+     * - the fixed segments are drawn once into a raster cached by the stroke,
+     *   and each frame draws the new segments into it, blits it and draws
+     *   the last segment (unless the graphics are scaled or the stroke is
+     *   very large, which draw the whole path);
+     * - the fixed segments are put in a SpatialIndex for contains;
+     * - unless something uses its points, each point reports the old and
+     *   new live segments as the damage of the scene (see DamageRegion), so
+     *   the window draws and repaints just that area.
+     *
+     * finish() ends the stroke: it releases the raster and the raw points,
+     * and the stroke is drawn as a path from then on.
+     */
+    private int x, y;
+    private Color color;
+    private int lineThickness;
+    private double tolerance;
+    private Group group = null;
+
+    // vertices, relative to (x, y); the last one is the live end of the stroke
+    private int[] xs = new int[16], ys = new int[16];
+    private int size = 0;
+    // raw points since the vertex before the live end, for the tolerance test
+    private int[] runXs = new int[16], runYs = new int[16];
+    private int runSize = 0;
+    private boolean finished = false;
+    private int minX, minY, maxX, maxY; // bounds of every point added
+    private int fixedMinX, fixedMinY, fixedMaxX, fixedMaxY; // bounds of the vertices before the live end
+
+    private final SpatialIndex<Integer> segments = new SpatialIndex<>(CELL_SIZE);
+
+    private BufferedImage raster = null;
+    private int rasterX, rasterY;    // where the raster is, relative to (x, y)
+    private int rasterSegments = 0;  // fixed segments drawn into the raster
+    private Color rasterColor;
+    private int rasterThickness;
+    private long segmentRenders = 0;
+
+    private static final int CELL_SIZE = 32;
+    private static final int MAX_RUN = 256;
+    private static final int MAX_RASTER_PIXELS = 1 << 22;
+
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
+    private Constraint<Integer> lineThicknessConstraint = NoConstraint.none();
+    private final NoConstraint<Polyline> points = new NoConstraint<>();
+
+    /**
+     * Constructors
+     *
+     * @param x         first point of the stroke
+     * @param y         first point of the stroke
+     * @param tolerance how far (in pixels) the stroke may pass from the
+     *                  points it leaves out; 0 keeps every point off the
+     *                  straight line
+     */
+    public Polyline(int x, int y, Color color, int lineThickness, double tolerance) {
+        if (tolerance < 0) {
+            throw new RuntimeException("Tolerance must not be negative");
+        }
+        this.x = x;
+        this.y = y;
+        this.color = color;
+        this.lineThickness = lineThickness;
+        this.tolerance = tolerance;
+        this.points.setValue(this);
+        append(0, 0);
+    }
+
+    public Polyline(int x, int y, Color color, int lineThickness) {
+        this(x, y, color, lineThickness, 1);
+    }
+
+    public Polyline() {
+        this(0, 0, Color.BLACK, 1);
+    }
+
+    /**
+     * Points
+     */
+    // Add a point (wrt the group) at the end of the stroke
+    public void addPoint(int pointX, int pointY) {
+        if (finished) {
+            throw new RuntimeException("The stroke is finished");
+        }
+        int px = pointX - getX(), py = pointY - getY();
+        if (px == xs[size - 1] && py == ys[size - 1]) {
+            return;
+        }
+        long epoch = Dependency.getEpoch();
+        Rectangle damage = new Rectangle(xs[Math.max(size - 2, 0)], ys[Math.max(size - 2, 0)], 0, 0);
+        damage.add(xs[size - 1], ys[size - 1]);
+        damage.add(px, py);
+        if (size == 1) {
+            append(px, py);
+        } else if (runSize >= MAX_RUN || !isWithinTolerance(xs[size - 2], ys[size - 2], px, py)) {
+            // the live end stays: its segment is fixed, and a new one starts from it
+            int segment = size - 2;
+            segments.put(segment, segmentBounds(segment));
+            fixedMinX = Math.min(fixedMinX, xs[size - 1]);
+            fixedMinY = Math.min(fixedMinY, ys[size - 1]);
+            fixedMaxX = Math.max(fixedMaxX, xs[size - 1]);
+            fixedMaxY = Math.max(fixedMaxY, ys[size - 1]);
+            runSize = 0;
+            append(px, py);
+        } else {
+            xs[size - 1] = px;
+            ys[size - 1] = py;
+        }
+        if (runSize == runXs.length) {
+            runXs = Arrays.copyOf(runXs, runSize * 2);
+            runYs = Arrays.copyOf(runYs, runSize * 2);
+        }
+        runXs[runSize] = px;
+        runYs[runSize] = py;
+        runSize++;
+        minX = Math.min(minX, px);
+        minY = Math.min(minY, py);
+        maxX = Math.max(maxX, px);
+        maxY = Math.max(maxY, py);
+        points.notifyValueChange(false);
+        if (!points.hasDependents()) {
+            int pad = getLineThickness() / 2 + 2;
+            damage.grow(pad, pad);
+            damage.translate(getX(), getY());
+            DamageRegion.report(group, damage, epoch);
+        }
+    }
+
+    private void append(int px, int py) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = px;
+        ys[size] = py;
+        size++;
+    }
+
+    // End the stroke: no more points, and no raster kept for it
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        xs = Arrays.copyOf(xs, size);
+        ys = Arrays.copyOf(ys, size);
+        runXs = runYs = null;
+        runSize = 0;
+        raster = null;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Whether the raw points of the run are near the segment from (ax, ay) to (bx, by)
+    private boolean isWithinTolerance(int ax, int ay, int bx, int by) {
+        for (int i = 0; i < runSize; i++) {
+            if (distanceToSegment(runXs[i], runYs[i], ax, ay, bx, by) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double distanceToSegment(int px, int py, int ax, int ay, int bx, int by) {
+        double vx = bx - ax, vy = by - ay;
+        double lengthSquared = vx * vx + vy * vy;
+        double t = (lengthSquared == 0) ? 0 : ((px - ax) * vx + (py - ay) * vy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double dx = px - (ax + t * vx), dy = py - (ay + t * vy);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private Rectangle segmentBounds(int segment) {
+        int x1 = xs[segment], y1 = ys[segment], x2 = xs[segment + 1], y2 = ys[segment + 1];
+        return new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x1 - x2) + 1, Math.abs(y1 - y2) + 1);
+    }
+
+    // Vertices of the stroke, the last one included
+    public int getPointCount() {
+        return size;
+    }
+
+    public int getPointX(int i) {
+        return getX() + xs[i];
+    }
+
+    public int getPointY(int i) {
+        return getY() + ys[i];
+    }
+
+    // Notified on every point added
+    public Constraint<Polyline> usePoints() {
+        return points;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    // Segments drawn into the raster so far, each fixed segment once unless the raster is made again
+    public long getSegmentRenders() {
+        return segmentRenders;
+    }
+
+    /**
+     * Getters, setters and "users"
+     *
+     * Note: user (e.g. useX) returns the constraint on the variable (X)
+     */
+    public int getX() {
+        if (xConstraint.isConstrained()) {
+            this.x = xConstraint.evaluate();
+        }
+        return this.x;
+    }
+
+    public void setX(int x) {
+        if (this.x != x) {
+            if (!xConstraint.isConstrained()) {
+                this.x = x;
+                xConstraint.notifyValueChange(false);
+            } else if (xConstraint.hasCycle()) {
+                xConstraint.setValue(x);
+                xConstraint.notifyValueChange(false);
+            }
+        }
+    }
+
+    public void setX(Constraint<Integer> constraint) {
+        xConstraint.replaceWithConstraint(constraint);
+        xConstraint = constraint;
+        xConstraint.setValue(this.x);
+        xConstraint.notifyValueChange(true);
+    }
+
+    public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
+        return this.xConstraint;
+    }
+
+    public int getY() {
+        if (yConstraint.isConstrained()) {
+            this.y = yConstraint.evaluate();
+        }
+        return this.y;
+    }
+
+    public void setY(int y) {
+        if (this.y != y) {
+            if (!yConstraint.isConstrained()) {
+                this.y = y;
+                yConstraint.notifyValueChange(false);
+            } else if (yConstraint.hasCycle()) {
+                yConstraint.setValue(y);
+                yConstraint.notifyValueChange(false);
+            }
+        }
+    }
+
+    public void setY(Constraint<Integer> constraint) {
+        yConstraint.replaceWithConstraint(constraint);
+        yConstraint = constraint;
+        yConstraint.setValue(this.y);
+        yConstraint.notifyValueChange(true);
+    }
+
+    public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
+        return this.yConstraint;
+    }
+
+    public Color getColor() {
+        if (colorConstraint.isConstrained()) {
+            this.color = colorConstraint.evaluate();
+        }
+        return this.color;
+    }
+
+    public void setColor(Color color) {
+        if (this.color != color) {
+            if (!colorConstraint.isConstrained()) {
+                this.color = color;
+                colorConstraint.notifyValueChange(false);
+            } else if (colorConstraint.hasCycle()) {
+                colorConstraint.setValue(color);
+                colorConstraint.notifyValueChange(false);
+            }
+        }
+    }
+
+    public void setColor(Constraint<Color> constraint) {
+        colorConstraint.replaceWithConstraint(constraint);
+        colorConstraint = constraint;
+        colorConstraint.setValue(this.color);
+        colorConstraint.notifyValueChange(true);
+    }
+
+    public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
+        return this.colorConstraint;
+    }
+
+    public int getLineThickness() {
+        if (lineThicknessConstraint.isConstrained()) {
+            this.lineThickness = lineThicknessConstraint.evaluate();
+        }
+        return this.lineThickness;
+    }
+
+    public void setLineThickness(int lineThickness) {
+        if (this.lineThickness != lineThickness) {
+            if (!lineThicknessConstraint.isConstrained()) {
+                this.lineThickness = lineThickness;
+                lineThicknessConstraint.notifyValueChange(false);
+            } else if (lineThicknessConstraint.hasCycle()) {
+                lineThicknessConstraint.setValue(lineThickness);
+                lineThicknessConstraint.notifyValueChange(false);
+            }
+        }
+    }
+
+    public void setLineThickness(Constraint<Integer> constraint) {
+        lineThicknessConstraint.replaceWithConstraint(constraint);
+        lineThicknessConstraint = constraint;
+        lineThicknessConstraint.setValue(this.lineThickness);
+        lineThicknessConstraint.notifyValueChange(true);
+    }
+
+    public Constraint<Integer> useLineThickness() {
+        if (NoConstraint.isNone(lineThicknessConstraint)) {
+            lineThicknessConstraint = new NoConstraint<>();
+        }
+        return this.lineThicknessConstraint;
+    }
+
+    /**
+     * Methods defined in the GraphicalObject interface
+     */
+    public void draw(Graphics2D graphics, Shape clipShape) {
+        Shape oldClip = graphics.getClip();
+        graphics.setClip(clipShape);
+
+        int x = getX(), y = getY();
+        int lineThickness = getLineThickness();
+        Color color = getColor();
+        int fixed = finished ? size - 1 : size - 2; // segments drawn as a whole
+
+        graphics.setColor(color);
+        graphics.setStroke(new BasicStroke(
+            (float)lineThickness,
+            BasicStroke.CAP_ROUND,  // end cap style
+            BasicStroke.JOIN_ROUND  // line join style
+        ));
+        if (fixed > 0 && (finished || !(isTranslation(graphics.getTransform()) && drawRaster(graphics, x, y, fixed)))) {
+            Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, fixed + 1);
+            path.moveTo(x + xs[0], y + ys[0]);
+            for (int i = 1; i <= fixed; i++) {
+                path.lineTo(x + xs[i], y + ys[i]);
+            }
+            graphics.draw(path);
+        }
+        if (!finished || size == 1) { // the live segment
+            int from = Math.max(size - 2, 0);
+            graphics.drawLine(x + xs[from], y + ys[from], x + xs[size - 1], y + ys[size - 1]);
+        }
+
+        graphics.setClip(oldClip);
+    }
+
+    private static boolean isTranslation(AffineTransform transform) {
+        return (transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0;
+    }
+
+    // Bring the raster up to the fixed segments and blit it; false if too large to cache
+    private boolean drawRaster(Graphics2D graphics, int x, int y, int fixed) {
+        Color color = graphics.getColor();
+        int lineThickness = (int) ((BasicStroke) graphics.getStroke()).getLineWidth();
+        int pad = lineThickness / 2 + 2;
+        Rectangle needed = new Rectangle(fixedMinX - pad, fixedMinY - pad,
+                fixedMaxX - fixedMinX + 2 * pad, fixedMaxY - fixedMinY + 2 * pad);
+        if (raster == null || !color.equals(rasterColor) || lineThickness != rasterThickness
+                || !new Rectangle(rasterX, rasterY, raster.getWidth(), raster.getHeight()).contains(needed)) {
+            // room to grow, as much again on the sides the stroke grew past,
+            // so that a growing stroke is drawn again only now and then
+            Rectangle roomy = new Rectangle(needed);
+            if (raster == null) {
+                roomy.grow(CELL_SIZE, CELL_SIZE);
+            } else {
+                int growX = Math.max(needed.width, CELL_SIZE), growY = Math.max(needed.height, CELL_SIZE);
+                if (needed.x < rasterX) {
+                    roomy.x -= growX;
+                    roomy.width += growX;
+                }
+                if (needed.x + needed.width > rasterX + raster.getWidth()) {
+                    roomy.width += growX;
+                }
+                if (needed.y < rasterY) {
+                    roomy.y -= growY;
+                    roomy.height += growY;
+                }
+                if (needed.y + needed.height > rasterY + raster.getHeight()) {
+                    roomy.height += growY;
+                }
+            }
+            if ((long) roomy.width * roomy.height <= MAX_RASTER_PIXELS) {
+                needed = roomy;
+            } else if ((long) needed.width * needed.height > MAX_RASTER_PIXELS) {
+                raster = null;
+                return false;
+            }
+            raster = new BufferedImage(needed.width, needed.height, BufferedImage.TYPE_INT_ARGB);
+            rasterX = needed.x;
+            rasterY = needed.y;
+            rasterColor = color;
+            rasterThickness = lineThickness;
+            rasterSegments = 0;
+        }
+        if (rasterSegments < fixed) {
+            Graphics2D rasterGraphics = raster.createGraphics();
+            rasterGraphics.translate(-rasterX, -rasterY);
+            rasterGraphics.setColor(color);
+            rasterGraphics.setStroke(graphics.getStroke());
+            for (int i = rasterSegments; i < fixed; i++) {
+                rasterGraphics.drawLine(xs[i], ys[i], xs[i + 1], ys[i + 1]);
+            }
+            rasterGraphics.dispose();
+            segmentRenders += fixed - rasterSegments;
+            rasterSegments = fixed;
+        }
+        graphics.drawImage(raster, x + rasterX, y + rasterY, null);
+        return true;
+    }
+
+    public BoundaryRectangle getBoundingBox() {
+        int x = getX(), y = getY();
+        int lineThickness = getLineThickness();
+        return new BoundaryRectangle(
+            x + minX - lineThickness / 2,
+            y + minY - lineThickness / 2,
+            maxX - minX + lineThickness,
+            maxY - minY + lineThickness
+        );
+    }
+
+    public void moveTo(int x, int y) {
+        BoundaryRectangle boundingBox = getBoundingBox();
+        this.setX(getX() + x - boundingBox.x);
+        this.setY(getY() + y - boundingBox.y);
+    }
+
+    public Group getGroup() {
+        return this.group;
+    }
+
+    public void setGroup(Group group) {
+        if (this.group != null && group != null) {
+            throw new AlreadyHasGroupRunTimeException();
+        }
+        this.group = group;
+    }
+
+    public boolean contains(int x, int y) {
+        int px = x - getX(), py = y - getY();
+        double radius = Math.max(getLineThickness(), 15) / 2.0;
+        int from = Math.max(size - 2, 0);
+        if (distanceToSegment(px, py, xs[from], ys[from], xs[size - 1], ys[size - 1]) < radius) {
+            return true;
+        }
+        int r = (int) Math.ceil(radius);
+        for (int segment : segments.query(new Rectangle(px - r, py - r, 2 * r + 1, 2 * r + 1))) {
+            if (distanceToSegment(px, py, xs[segment], ys[segment], xs[segment + 1], ys[segment + 1]) < radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(Point pt) {
+        return contains(pt.x, pt.y);
+    }
+
+    public void dispose() {
+        xConstraint.detach();
+        yConstraint.detach();
+        colorConstraint.detach();
+        lineThicknessConstraint.detach();
+        points.detach();
+        raster = null;
+    }
+}
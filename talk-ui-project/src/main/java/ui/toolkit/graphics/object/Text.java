@@ -27,11 +27,11 @@ public class Text implements GraphicalObject {
 
     public static final Font DEFAULT_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
 
-    private Constraint<String> textConstraint = new NoConstraint<>();
-    private Constraint<Integer> xConstraint = new NoConstraint<>();
-    private Constraint<Integer> yConstraint = new NoConstraint<>();
-    private Constraint<Font> fontConstraint = new NoConstraint<>();
-    private Constraint<Color> colorConstraint = new NoConstraint<>();
+    private Constraint<String> textConstraint = NoConstraint.none();
+    private Constraint<Integer> xConstraint = NoConstraint.none();
+    private Constraint<Integer> yConstraint = NoConstraint.none();
+    private Constraint<Font> fontConstraint = NoConstraint.none();
+    private Constraint<Color> colorConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -91,6 +91,9 @@ public class Text implements GraphicalObject {
     }
 
     public Constraint<Integer> useX() {
+        if (NoConstraint.isNone(xConstraint)) {
+            xConstraint = new NoConstraint<>();
+        }
         return this.xConstraint;
     }
 
@@ -121,6 +124,9 @@ public class Text implements GraphicalObject {
     }
 
     public Constraint<Integer> useY() {
+        if (NoConstraint.isNone(yConstraint)) {
+            yConstraint = new NoConstraint<>();
+        }
         return this.yConstraint;
     }
 
@@ -151,6 +157,9 @@ public class Text implements GraphicalObject {
     }
 
     public Constraint<String> useText() {
+        if (NoConstraint.isNone(textConstraint)) {
+            textConstraint = new NoConstraint<>();
+        }
         return this.textConstraint;
     }
 
@@ -181,6 +190,9 @@ public class Text implements GraphicalObject {
     }
 
     public Constraint<Font> useFont() {
+        if (NoConstraint.isNone(fontConstraint)) {
+            fontConstraint = new NoConstraint<>();
+        }
         return this.fontConstraint;
     }
     
@@ -211,6 +223,9 @@ public class Text implements GraphicalObject {
     }
 
     public Constraint<Color> useColor() {
+        if (NoConstraint.isNone(colorConstraint)) {
+            colorConstraint = new NoConstraint<>();
+        }
         return this.colorConstraint;
     }
 
@@ -317,4 +332,12 @@ public class Text implements GraphicalObject {
     public boolean contains(Point pt) {
         return contains(pt.x, pt.y);
     }
+
+    public void dispose() {
+        textConstraint.detach();
+        xConstraint.detach();
+        yConstraint.detach();
+        fontConstraint.detach();
+        colorConstraint.detach();
+    }
 }
\ No newline at end of file
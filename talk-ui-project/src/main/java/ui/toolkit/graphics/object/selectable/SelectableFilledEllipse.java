@@ -4,6 +4,7 @@ import java.awt.Color;
 
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.graphics.group.SelectionModel;
 import ui.toolkit.graphics.object.FilledEllipse;
 
 public class SelectableFilledEllipse extends FilledEllipse implements SelectableGraphicalObject {
@@ -13,8 +14,8 @@ public class SelectableFilledEllipse extends FilledEllipse implements Selectable
     private boolean interimSelected = false;
     private boolean selected = false;
 
-    private Constraint<Boolean> interimSelectedConstraint = new NoConstraint<>();
-    private Constraint<Boolean> selectedConstraint = new NoConstraint<>();
+    private Constraint<Boolean> interimSelectedConstraint = NoConstraint.none();
+    private Constraint<Boolean> selectedConstraint = NoConstraint.none();
 
     /**
      * Constructors
@@ -57,6 +58,9 @@ public class SelectableFilledEllipse extends FilledEllipse implements Selectable
     }
 
     public Constraint<Boolean> useInterimSelected() {
+        if (NoConstraint.isNone(interimSelectedConstraint)) {
+            interimSelectedConstraint = new NoConstraint<>();
+        }
         return this.interimSelectedConstraint;
     }
 
@@ -76,6 +80,7 @@ public class SelectableFilledEllipse extends FilledEllipse implements Selectable
                 selectedConstraint.setValue(selected);
                 selectedConstraint.notifyValueChange(false);
             }
+            SelectionModel.selectionChanged(this);
         }
     }
 
@@ -84,9 +89,20 @@ public class SelectableFilledEllipse extends FilledEllipse implements Selectable
         selectedConstraint = constraint;
         selectedConstraint.setValue(this.selected);
         selectedConstraint.notifyValueChange(true);
+        SelectionModel.selectionChanged(this);
     }
 
     public Constraint<Boolean> useSelected() {
+        if (NoConstraint.isNone(selectedConstraint)) {
+            selectedConstraint = new NoConstraint<>();
+        }
         return this.selectedConstraint;
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        interimSelectedConstraint.detach();
+        selectedConstraint.detach();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package ui.toolkit.graphics.object.selectable;
+
+import java.awt.Color;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.graphics.group.SelectionModel;
+import ui.toolkit.graphics.object.Polyline;
+
+public class SelectablePolyline extends Polyline implements SelectableGraphicalObject {
+    /**
+     * SelectablePolyline class: selectable freehand strokes
+     */
+    private boolean interimSelected = false;
+    private boolean selected = false;
+
+    private Constraint<Boolean> interimSelectedConstraint = NoConstraint.none();
+    private Constraint<Boolean> selectedConstraint = NoConstraint.none();
+
+    /**
+     * Constructors
+     */
+    public SelectablePolyline(int x, int y, Color color, int lineThickness, double tolerance) {
+        super(x, y, color, lineThickness, tolerance);
+    }
+
+    public SelectablePolyline(int x, int y, Color color, int lineThickness) {
+        super(x, y, color, lineThickness);
+    }
+
+    public SelectablePolyline() {
+        super();
+    }
+
+    /**
+     * Getters, setters and "users"
+     */
+    public boolean isInterimSelected() {
+        if (interimSelectedConstraint.isConstrained()) {
+            this.interimSelected = interimSelectedConstraint.evaluate();
+        }
+        return this.interimSelected;
+    }
+
+    public void setInterimSelected(boolean interimSelected) {
+        if (this.interimSelected != interimSelected) {
+            if (!interimSelectedConstraint.isConstrained()) {
+                this.interimSelected = interimSelected;
+                interimSelectedConstraint.notifyValueChange(false);
+            } else if (interimSelectedConstraint.hasCycle()) {
+                interimSelectedConstraint.setValue(interimSelected);
+                interimSelectedConstraint.notifyValueChange(false);
+            }
+        }
+    }
+
+    public void setInterimSelected(Constraint<Boolean> constraint) {
+        interimSelectedConstraint.replaceWithConstraint(constraint);
+        interimSelectedConstraint = constraint;
+        interimSelectedConstraint.setValue(this.interimSelected);
+        interimSelectedConstraint.notifyValueChange(true);
+    }
+
+    public Constraint<Boolean> useInterimSelected() {
+        if (NoConstraint.isNone(interimSelectedConstraint)) {
+            interimSelectedConstraint = new NoConstraint<>();
+        }
+        return this.interimSelectedConstraint;
+    }
+
+    public boolean isSelected() {
+        if (selectedConstraint.isConstrained()) {
+            this.selected = selectedConstraint.evaluate();
+        }
+        return this.selected;
+    }
+
+    public void setSelected(boolean selected) {
+        if (this.selected != selected) {
+            if (!selectedConstraint.isConstrained()) {
+                this.selected = selected;
+                selectedConstraint.notifyValueChange(false);
+            } else if (selectedConstraint.hasCycle()) {
+                selectedConstraint.setValue(selected);
+                selectedConstraint.notifyValueChange(false);
+            }
+            SelectionModel.selectionChanged(this);
+        }
+    }
+
+    public void setSelected(Constraint<Boolean> constraint) {
+        selectedConstraint.replaceWithConstraint(constraint);
+        selectedConstraint = constraint;
+        selectedConstraint.setValue(this.selected);
+        selectedConstraint.notifyValueChange(true);
+        SelectionModel.selectionChanged(this);
+    }
+
+    public Constraint<Boolean> useSelected() {
+        if (NoConstraint.isNone(selectedConstraint)) {
+            selectedConstraint = new NoConstraint<>();
+        }
+        return this.selectedConstraint;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        interimSelectedConstraint.detach();
+        selectedConstraint.detach();
+    }
+}
\ No newline at end of file
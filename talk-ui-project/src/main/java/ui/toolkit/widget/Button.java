@@ -105,4 +105,10 @@ public class Button extends SelectableFilledRect {
         super.draw(graphics, clipShape);
         label.draw(graphics, clipShape);
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        label.dispose();
+    }
 }
\ No newline at end of file
@@ -47,7 +47,6 @@ public class ButtonPanel extends Widget<List<Button>> {
                     List<Button> selection = (List<Button>)(List<?>) getSelection();
                     if (!selection.equals(value)) {
                         setValue(selection);
-                        callback.update(selection);
                     }
                     return eventConsumed;
                 }
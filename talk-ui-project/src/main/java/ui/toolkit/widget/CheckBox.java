@@ -124,6 +124,13 @@ public class CheckBox extends SelectableOutlineRect {
         label.draw(graphics, clipShape);
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+        indicator.dispose();
+        label.dispose();
+    }
+
     @Override
     public BoundaryRectangle getBoundingBox() {
         BoundaryRectangle r = label.getBoundingBox();
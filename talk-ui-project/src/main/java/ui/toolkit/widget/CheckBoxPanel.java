@@ -41,7 +41,6 @@ public class CheckBoxPanel extends Widget<List<CheckBox>> {
                     List<CheckBox> selection = (List<CheckBox>) (List<?>) getSelection();
                     if (!selection.equals(value)) {
                         setValue(selection);
-                        callback.update(selection);
                     }
                     return eventConsumed;
                 }
@@ -49,7 +49,7 @@ public class NumberSlider extends Widget<Integer> {
                     bar.getX() - sliderRadius,
                     bar.getX() + bar.getWidth() - sliderRadius
                 ))
-                .addBehavior(new MoveBehavior()),
+                .addBehavior(new MoveBehavior().setDragLayer(false)), // the value follows the knob
 
             // the increment/decrement buttons
             new SimpleGroup()
@@ -76,7 +76,6 @@ public class NumberSlider extends Widget<Integer> {
                                 newValue = Math.min(maxValue, Math.max(minValue, newValue));
                                 if (newValue != getValue()) {
                                     setValue(newValue);
-                                    callback.update(newValue);
                                 }
                             }
                         }
@@ -125,6 +125,13 @@ public class RadioButton extends SelectableEllipse {
         label.draw(graphics, clipShape);
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+        indicator.dispose();
+        label.dispose();
+    }
+
     @Override
     public BoundaryRectangle getBoundingBox() {
         BoundaryRectangle r = label.getBoundingBox();
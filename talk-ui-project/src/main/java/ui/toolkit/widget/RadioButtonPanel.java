@@ -1,20 +1,39 @@
 package ui.toolkit.widget;
 
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.List;
 
 import ui.toolkit.behavior.BehaviorEvent;
 import ui.toolkit.behavior.ChoiceBehavior;
-import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.ArrayConstraint;
+import ui.toolkit.constraint.NoConstraint;
 import ui.toolkit.graphics.group.LayoutGroup;
 import ui.toolkit.graphics.group.SimpleGroup;
 import ui.toolkit.graphics.object.FilledEllipse;
 import ui.toolkit.graphics.object.GraphicalObject;
 import ui.toolkit.graphics.object.selectable.SelectableEllipse;
-import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
 
 public class RadioButtonPanel extends Widget<RadioButton> {
     private ChoiceBehavior choiceBehavior;
+    private List<SelectableEllipse> options = new ArrayList<>();
+    private List<FilledEllipse> indicators = new ArrayList<>();
+
+    // colors of all indicators, computed by a single node
+    private ArrayConstraint<Color> indicatorColors = new ArrayConstraint<Color>() {
+        public Color[] getValue() {
+            Color[] colors = new Color[options.size()];
+            for (int k = 0; k < colors.length; k++) {
+                SelectableEllipse o = options.get(k);
+                if (o.isSelected()) {
+                    colors[k] = o.isInterimSelected() ? Color.BLUE : Color.BLACK;
+                } else {
+                    colors[k] = o.isInterimSelected() ? Color.LIGHT_GRAY : Color.WHITE;
+                }
+            }
+            return colors;
+        }
+    };
 
     /**
      * RadioButtonPanel constructor
@@ -36,11 +55,9 @@ public class RadioButtonPanel extends Widget<RadioButton> {
                 @Override
                 public boolean stop(BehaviorEvent event) {
                     boolean eventConsumed = super.stop(event);
-                    List<SelectableGraphicalObject> selection = getSelection();
-                    RadioButton selected = selection.isEmpty() ? null : (RadioButton) selection.get(0);
+                    RadioButton selected = (RadioButton) getSelectionModel().getFirst();
                     if (value != selected) {
                         setValue(selected);
-                        callback.update(selected);
                     }
                     return eventConsumed;
                 }
@@ -59,7 +76,7 @@ public class RadioButtonPanel extends Widget<RadioButton> {
     }
 
     /**
-     * Override addChild to add constraints
+     * Override addChild and removeChild to add and remove constraints
      */
     @Override
     public Widget<RadioButton> addChild(GraphicalObject child) {
@@ -67,15 +84,29 @@ public class RadioButtonPanel extends Widget<RadioButton> {
 
         SelectableEllipse o = ((RadioButton) child).getOption();
         FilledEllipse i = ((RadioButton) child).getIndicator();
-        i.setColor(new Constraint<Color>(o.useInterimSelected(), o.useSelected()) {
-            public Color getValue() {
-                if (o.isSelected()) {
-                    return o.isInterimSelected() ? Color.BLUE : Color.BLACK;
-                } else {
-                    return o.isInterimSelected() ? Color.LIGHT_GRAY : Color.WHITE;
-                }
-            }
-        });
+        indicatorColors.addInput(o.useInterimSelected()).addInput(o.useSelected());
+        i.setColor(indicatorColors.element(options.size()));
+        options.add(o);
+        indicators.add(i);
+        return this;
+    }
+
+    @Override
+    public Widget<RadioButton> removeChild(GraphicalObject child) {
+        super.removeChild(child);
+
+        int index = options.indexOf(((RadioButton) child).getOption());
+        if (index < 0) {
+            return this;
+        }
+        SelectableEllipse o = options.remove(index);
+        FilledEllipse i = indicators.remove(index);
+        indicatorColors.removeInput(o.useInterimSelected()).removeInput(o.useSelected());
+        i.setColor(new NoConstraint<>()); // keeps its color
+        // the indicators after it move up a place
+        for (int k = index; k < indicators.size(); k++) {
+            indicators.get(k).setColor(indicatorColors.element(k));
+        }
         return this;
     }
 
@@ -6,10 +6,13 @@ import java.awt.Shape;
 import java.util.List;
 
 import ui.toolkit.behavior.Behavior;
+import ui.toolkit.behavior.BehaviorDispatcher;
 import ui.toolkit.constraint.Constraint;
 import ui.toolkit.constraint.NoConstraint;
+import ui.toolkit.constraint.Subscription;
 import ui.toolkit.graphics.group.Group;
 import ui.toolkit.graphics.group.LayoutGroup;
+import ui.toolkit.graphics.group.SelectionModel;
 import ui.toolkit.graphics.object.AlreadyHasGroupRunTimeException;
 import ui.toolkit.graphics.object.BoundaryRectangle;
 import ui.toolkit.graphics.object.GraphicalObject;
@@ -18,7 +21,7 @@ public class Widget<T> implements Group {
     protected Group widget;
 
     protected T value = null;
-    protected Constraint<T> valueConstraint = new NoConstraint<>();
+    protected Constraint<T> valueConstraint = NoConstraint.none();
 
     public static final int NO_LAYOUT = -1;
     public static final int HORIZONTAL_LAYOUT = LayoutGroup.HORIZONTAL;
@@ -28,10 +31,13 @@ public class Widget<T> implements Group {
     /**
      * Callbacks: methods to call when value changes
      */
-    protected Callback<T> callback = v -> {};
+    private Subscription<T> callbackSubscription = null;
 
     public Widget<T> setCallback(Callback<T> callback) {
-        this.callback = callback;
+        if (callbackSubscription != null) {
+            callbackSubscription.cancel();
+        }
+        callbackSubscription = useValue().subscribe(callback::update);
         return this;
     }
 
@@ -46,11 +52,13 @@ public class Widget<T> implements Group {
     }
 
     public void setValue(T value) {
-        boolean valuesEqual = (this.value == null || value == null) ?
-                (this.value == value) : (this.value.equals(value));
+        T current = getValue();
+        boolean valuesEqual = (current == null || value == null) ?
+                (current == value) : (current.equals(value));
         if (!valuesEqual) {
             if (!valueConstraint.isConstrained()) {
                 this.value = value;
+                valueConstraint.setValue(value);
                 valueConstraint.notifyValueChange(false);
             } else if (valueConstraint.hasCycle()) {
                 valueConstraint.setValue(value);
@@ -67,6 +75,9 @@ public class Widget<T> implements Group {
     }
 
     public Constraint<T> useValue() {
+        if (NoConstraint.isNone(valueConstraint)) {
+            valueConstraint = new NoConstraint<>();
+        }
         return this.valueConstraint;
     }
 
@@ -155,20 +166,12 @@ public class Widget<T> implements Group {
         return widget.childToParent(pt);
     }
 
-    public Behavior[] getBehaviorsToAdd() {
-        return widget.getBehaviorsToAdd();
-    }
-
-    public Behavior[] getBehaviorsToRemove() {
-        return widget.getBehaviorsToRemove();
+    public BehaviorDispatcher getBehaviorDispatcher() {
+        return widget.getBehaviorDispatcher();
     }
 
-    public Group clearBehaviorsToAdd() {
-        return widget.clearBehaviorsToAdd();
-    }
-
-    public Group clearBehaviorsToRemove() {
-        return widget.clearBehaviorsToRemove();
+    public SelectionModel getSelectionModel() {
+        return widget.getSelectionModel();
     }
 
     /**
@@ -202,6 +205,11 @@ public class Widget<T> implements Group {
         return widget.contains(pt);
     }
 
+    public void dispose() {
+        widget.dispose();
+        valueConstraint.detach();
+    }
+
     public void setX(Constraint<Integer> constraint) {
         widget.setX(constraint);
     }
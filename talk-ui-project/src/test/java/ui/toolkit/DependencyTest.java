@@ -0,0 +1,477 @@
+package ui.toolkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import ui.toolkit.constraint.AsyncConstraint;
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.ConstraintProfiler;
+import ui.toolkit.constraint.ConstraintStats;
+import ui.toolkit.constraint.Delivery;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.constraint.Subscription;
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.OutlineRect;
+import ui.toolkit.graphics.object.Text;
+import ui.toolkit.graphics.object.selectable.SelectableEllipse;
+import ui.toolkit.graphics.object.selectable.SelectableOutlineRect;
+import ui.toolkit.widget.NumberSlider;
+import ui.toolkit.widget.RadioButton;
+import ui.toolkit.widget.RadioButtonPanel;
+
+/**
+ * Unit tests for the constraint dependency graph
+ */
+public class DependencyTest {
+    private int evaluations = 0;
+
+    @Test
+    public void unchangedInputSkipsReevaluation() {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect middle = new OutlineRect();
+        OutlineRect target = new OutlineRect();
+
+        // middle.x only changes when source.x crosses 100
+        middle.setX(new Constraint<Integer>(source.useX()) {
+            public Integer getValue() {
+                return source.getX() < 100 ? 0 : 1000;
+            }
+        });
+        target.setX(new Constraint<Integer>(middle.useX()) {
+            public Integer getValue() {
+                evaluations++;
+                return middle.getX() + 10;
+            }
+        });
+
+        assertEquals(10, target.getX());
+        assertEquals(1, evaluations);
+
+        source.setX(50);
+        assertEquals(10, target.getX());
+        assertEquals(1, evaluations);
+
+        source.setX(500);
+        assertEquals(1010, target.getX());
+        assertEquals(2, evaluations);
+    }
+
+    @Test
+    public void disposedObjectsAreUnlinked() throws InterruptedException {
+        NumberSlider slider = new NumberSlider();
+        SimpleGroup panel = new SimpleGroup(0, 0, 800, 400);
+        int baseline = slider.useValue().getOutEdges().size();
+
+        WeakReference<SelectableOutlineRect> first = null;
+        for (int i = 0; i < 100000; i++) {
+            // a box whose label follows the box and whose thickness follows the slider
+            SelectableOutlineRect box = new SelectableOutlineRect(i % 800, 0, 40, 20, Color.BLACK, 1);
+            Text label = new Text("Box " + i);
+            box.setLineThickness(new Constraint<Integer>(slider.useValue()) {
+                public Integer getValue() {
+                    return slider.getValue() / 10;
+                }
+            });
+            label.setX(new Constraint<Integer>(box.useX()) {
+                public Integer getValue() {
+                    return box.getX() + 5;
+                }
+            });
+            SimpleGroup node = new SimpleGroup(0, 0, 100, 100);
+            node.addChildren(box, label);
+            panel.addChild(node);
+            if (first == null) {
+                first = new WeakReference<>(box);
+            }
+
+            panel.removeChild(node);
+            node.dispose();
+        }
+
+        assertEquals(baseline, slider.useValue().getOutEdges().size());
+        assertEquals(0, panel.getChildren().size());
+        for (int i = 0; i < 10 && first.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(first.get());
+    }
+
+    @Test
+    public void profilerReportsNamedConstraints() {
+        ConstraintProfiler profiler = ConstraintProfiler.getInstance();
+        profiler.setEnabled(true);
+        profiler.reset();
+        try {
+            OutlineRect source = new OutlineRect();
+            OutlineRect target = new OutlineRect(0, 0, 50, 50, Color.BLACK, 1);
+            Constraint<Integer> follow = new Constraint<Integer>("target.width", source.useWidth()) {
+                public Integer getValue() {
+                    return source.getWidth() > 100 ? 100 : 10;
+                }
+            };
+            target.setWidth(follow);
+            target.getWidth();
+            source.setWidth(20);    // same result: wasted evaluation
+            target.getWidth();
+            source.setWidth(200);
+            target.getWidth();
+
+            ConstraintStats stats = follow.getStats();
+            assertEquals("target.width", stats.getName());
+            assertEquals(3, stats.getEvaluations());
+            assertEquals(1, stats.getWastedEvaluations());
+            assertEquals(1, source.useWidth().getStats().getMaxFanOut());
+
+            StringWriter csv = new StringWriter();
+            profiler.dumpCsv(csv);
+            assertTrue(csv.toString().contains("\"target.width\",3,1,0,"));
+        } finally {
+            profiler.setEnabled(false);
+            profiler.reset();
+        }
+    }
+
+    @Test
+    public void profilerForgetsDroppedDependencies() throws InterruptedException {
+        ConstraintProfiler profiler = ConstraintProfiler.getInstance();
+        profiler.setEnabled(true);
+        profiler.reset();
+        try {
+            OutlineRect source = new OutlineRect();
+            Constraint<Integer> kept = new Constraint<Integer>("kept", source.useWidth()) {
+                public Integer getValue() {
+                    return source.getWidth() * 2;
+                }
+            };
+            kept.evaluate();
+            for (int i = 0; i < 5000; i++) {
+                OutlineRect dropped = new OutlineRect();
+                dropped.setWidth(new Constraint<Integer>() {
+                    public Integer getValue() {
+                        return 10;
+                    }
+                });
+                dropped.getWidth();
+            }
+            OutlineRect disposed = new OutlineRect();
+            disposed.setWidth(new Constraint<Integer>() {
+                public Integer getValue() {
+                    return 20;
+                }
+            });
+            disposed.getWidth();
+            disposed.dispose();
+            for (int i = 0; i < 10 && profiler.getConstraintCount() > 1; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertEquals(1, profiler.getConstraintCount());
+            assertEquals("kept", profiler.getStats().get(0).getName());
+            assertEquals(1, kept.getStats().getEvaluations());
+        } finally {
+            profiler.setEnabled(false);
+            profiler.reset();
+        }
+    }
+
+    @Test
+    public void concurrentReaderSeesLatestWrite() throws InterruptedException {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect();
+        target.setX(new Constraint<Integer>(source.useX()) {
+            public Integer getValue() {
+                return source.getX() + 10;
+            }
+        });
+        assertEquals(10, target.getX());
+
+        int writes = 20000;
+        int[] badReads = new int[1];
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors, true));
+        try {
+            Thread writer = new Thread(() -> {
+                for (int i = 1; i <= writes; i++) {
+                    source.setX(i);
+                }
+            });
+            Thread reader = new Thread(() -> {
+                while (writer.isAlive()) {
+                    int x = target.getX();
+                    if (x < 10 || x > writes + 10) {
+                        badReads[0]++;
+                    }
+                }
+            });
+            writer.start();
+            reader.start();
+            writer.join();
+            reader.join();
+        } finally {
+            System.setErr(err);
+        }
+
+        // no invalidation may be lost and no false cycle may be reported
+        assertEquals(0, badReads[0]);
+        assertEquals(writes + 10, target.getX());
+        assertFalse(errors.toString().contains("Conflict"));
+    }
+
+    @Test
+    public void concurrentEvaluationsNeverCommitAStaleValue() throws InterruptedException {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect();
+        target.setX(new Constraint<Integer>(source.useX()) {
+            public Integer getValue() {
+                int x = source.getX();
+                for (int i = (x * 7) % 5; i > 0; i--) {
+                    Thread.yield(); // evaluations of different inputs finish out of order
+                }
+                return x + 10;
+            }
+        });
+        assertEquals(10, target.getX());
+
+        // several writers and readers at once, then a quiet moment: the value must be the latest
+        int[] next = { 1 };
+        for (int round = 0; round < 200; round++) {
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < 2; w++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        int value;
+                        synchronized (next) {
+                            value = next[0]++;
+                        }
+                        source.setX(value);
+                    }
+                }));
+            }
+            for (int r = 0; r < 3; r++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        target.getX();
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(source.getX() + 10, target.getX());
+        }
+    }
+
+    @Test
+    public void arrayConstraintDrivesIndicatorColors() {
+        RadioButtonPanel panel = new RadioButtonPanel();
+        RadioButton[] buttons = new RadioButton[50];
+        for (int i = 0; i < buttons.length; i++) {
+            panel.addChild(buttons[i] = new RadioButton("option " + i));
+        }
+        for (RadioButton button : buttons) {
+            assertEquals(Color.WHITE, button.getIndicator().getColor());
+        }
+
+        // all indicators share one node: the options each have a single dependent
+        SelectableEllipse option = buttons[7].getOption();
+        assertEquals(1, option.useSelected().getOutEdges().size());
+        assertTrue(buttons[7].getIndicator().useColor().getInEdges().isEmpty());
+
+        option.setSelected(true);
+        assertEquals(Color.BLACK, buttons[7].getIndicator().getColor());
+        assertEquals(Color.WHITE, buttons[8].getIndicator().getColor());
+        option.setInterimSelected(true);
+        assertEquals(Color.BLUE, buttons[7].getIndicator().getColor());
+
+        // an element with dependents of its own still propagates changes
+        OutlineRect follower = new OutlineRect();
+        follower.setColor(new Constraint<Color>(buttons[7].getIndicator().useColor()) {
+            public Color getValue() {
+                return buttons[7].getIndicator().getColor();
+            }
+        });
+        assertEquals(Color.BLUE, follower.getColor());
+        option.setInterimSelected(false);
+        assertEquals(Color.BLACK, follower.getColor());
+
+        // so does an element that is subscribed to
+        List<Color> colors = new ArrayList<>();
+        buttons[9].getIndicator().useColor().subscribe(colors::add);
+        buttons[9].getOption().setInterimSelected(true);
+        assertEquals(Arrays.asList(Color.LIGHT_GRAY), colors);
+
+        // a removed button leaves the node, and the indicators after it move up
+        panel.removeChild(buttons[7]);
+        assertTrue(option.useSelected().getOutEdges().isEmpty());
+        assertTrue(option.useInterimSelected().getOutEdges().isEmpty());
+        assertEquals(Color.BLACK, buttons[7].getIndicator().getColor());
+        option.setSelected(false);
+        assertEquals(Color.BLACK, buttons[7].getIndicator().getColor());
+        assertEquals(Color.LIGHT_GRAY, buttons[9].getIndicator().getColor());
+        buttons[9].getOption().setInterimSelected(false);
+        assertEquals(Color.WHITE, buttons[9].getIndicator().getColor());
+        assertEquals(Color.WHITE, colors.get(colors.size() - 1));
+        buttons[49].getOption().setSelected(true);
+        assertEquals(Color.BLACK, buttons[49].getIndicator().getColor());
+        assertEquals(Color.WHITE, buttons[48].getIndicator().getColor());
+    }
+
+    @Test
+    public void asyncConstraintPublishesLatestResult() throws InterruptedException {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect(0, 0, 5, 5, null, 1);
+        Semaphore computations = new Semaphore(0);
+        Semaphore redraws = new Semaphore(0);
+        Runnable redraw = redraws::release;
+        AsyncConstraint.addRedrawHandler(redraw);
+        try {
+            AsyncConstraint<Integer> slow = new AsyncConstraint<Integer>(0, source.useWidth()) {
+                public Integer compute() {
+                    int width = source.getWidth();
+                    computations.acquireUninterruptibly();
+                    return width * 2;
+                }
+            };
+            target.setWidth(slow);
+
+            // the placeholder is shown until the first result
+            assertEquals(0, target.getWidth());
+            assertTrue(slow.isComputing());
+            computations.release();
+            assertTrue(redraws.tryAcquire(5, TimeUnit.SECONDS));
+            assertEquals(20, target.getWidth());
+
+            // a change while computing cancels the stale computation
+            source.setWidth(30);
+            assertEquals(20, target.getWidth());
+            source.setWidth(40);
+            assertEquals(20, target.getWidth());
+            computations.release(2);
+            assertTrue(redraws.tryAcquire(5, TimeUnit.SECONDS));
+            assertEquals(80, target.getWidth());
+            assertFalse(redraws.tryAcquire(200, TimeUnit.MILLISECONDS));
+        } finally {
+            AsyncConstraint.removeRedrawHandler(redraw);
+        }
+    }
+
+    @Test
+    public void asyncConstraintRedrawsTheFrameThatComputedIt() throws InterruptedException {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect(0, 0, 5, 5, null, 1);
+        Semaphore window = new Semaphore(0);
+        Semaphore otherWindows = new Semaphore(0);
+        Runnable redrawOthers = otherWindows::release;
+        AsyncConstraint.addRedrawHandler(redrawOthers);
+        Runnable previous = AsyncConstraint.setFrameRedrawHandler(window::release);
+        try {
+            target.setWidth(new AsyncConstraint<Integer>(0, source.useWidth()) {
+                public Integer compute() {
+                    return source.getWidth() * 2;
+                }
+            });
+            // rendering the frame starts the computation
+            assertEquals(0, target.getWidth());
+            assertTrue(window.tryAcquire(5, TimeUnit.SECONDS));
+            assertEquals(20, target.getWidth());
+            assertFalse(otherWindows.tryAcquire(200, TimeUnit.MILLISECONDS));
+        } finally {
+            AsyncConstraint.setFrameRedrawHandler(previous);
+            AsyncConstraint.removeRedrawHandler(redrawOthers);
+        }
+    }
+
+    @Test
+    public void subscriptionsFollowARebindProperty() {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect();
+        target.setWidth(new Constraint<Integer>(source.useWidth()) {
+            public Integer getValue() {
+                return source.getWidth() * 2;
+            }
+        });
+        assertEquals(20, target.getWidth());
+        List<Integer> received = new ArrayList<>();
+        target.useWidth().subscribe(received::add);
+
+        // the versions of the new constraint start over: its first value is new all the same
+        target.setWidth(new Constraint<Integer>(source.useHeight()) {
+            public Integer getValue() {
+                return source.getHeight() * 3;
+            }
+        });
+        assertEquals(Arrays.asList(30), received);
+        source.setHeight(1);
+        source.setHeight(2);
+        source.setWidth(5);
+        assertEquals(Arrays.asList(30, 3, 6), received);
+    }
+
+    @Test
+    public void subscribersGetSettledValues() {
+        OutlineRect source = new OutlineRect(0, 0, 10, 10, null, 1);
+        OutlineRect target = new OutlineRect();
+        target.setWidth(new Constraint<Integer>(source.useWidth()) {
+            public Integer getValue() {
+                return Math.min(source.getWidth() * 2, 100);
+            }
+        });
+        List<Integer> received = new ArrayList<>();
+        Subscription<Integer> subscription = target.useWidth().subscribe(received::add);
+
+        // several changes in one batch are delivered once
+        Dependency.batch(() -> {
+            source.setWidth(1);
+            source.setWidth(2);
+            source.setWidth(3);
+        });
+        assertEquals(Arrays.asList(6), received);
+
+        // a change of the input that keeps the value is not delivered
+        source.setWidth(60);
+        source.setWidth(70);
+        assertEquals(Arrays.asList(6, 100), received);
+
+        // latest-value-only delivery drops values not seen yet
+        List<Runnable> queue = new ArrayList<>();
+        List<Integer> latest = new ArrayList<>();
+        target.useWidth().subscribe(latest::add, Delivery.latestOn(queue::add));
+        source.setWidth(4);
+        source.setWidth(5);
+        assertEquals(1, queue.size());
+        queue.get(0).run();
+        assertEquals(Arrays.asList(10), latest);
+
+        subscription.cancel();
+        source.setWidth(6);
+        assertEquals(Arrays.asList(6, 100, 8, 10), received);
+
+        // widget callbacks are subscriptions on the widget value
+        NumberSlider slider = new NumberSlider();
+        List<Integer> values = new ArrayList<>();
+        slider.setCallback(values::add);
+        slider.setValue(70);
+        slider.setValue(70);
+        assertEquals(Arrays.asList(70), values);
+    }
+}
@@ -0,0 +1,77 @@
+package ui.toolkit;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.group.LayoutGroup;
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.FilledRect;
+import ui.toolkit.graphics.object.Line;
+import ui.toolkit.graphics.object.OutlineRect;
+import ui.toolkit.graphics.object.Text;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+
+/**
+ * Heap footprint report: builds a synthetic, mostly unconstrained scene
+ * and prints the retained heap per graphical object
+ * 
+ * Usage: java -cp target/classes:target/test-classes ui.toolkit.HeapFootprintReport [nObjects]
+ */
+public class HeapFootprintReport {
+    private static final int OBJECTS_PER_GROUP = 20;
+
+    public static void main(String[] args) {
+        int nObjects = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+
+        // warm up class loading and font metrics before measuring
+        buildScene(OBJECTS_PER_GROUP);
+
+        long before = usedHeap();
+        Group scene = buildScene(nObjects);
+        long after = usedHeap();
+
+        int nGroups = scene.getChildren().size();
+        long total = after - before;
+        System.out.println(String.format("objects:            %d", nObjects));
+        System.out.println(String.format("groups:             %d", nGroups + 1));
+        System.out.println(String.format("retained heap:      %.1f MB", total / (1024.0 * 1024.0)));
+        System.out.println(String.format("bytes per object:   %d", total / (nObjects + nGroups + 1)));
+    }
+
+    private static Group buildScene(int nObjects) {
+        Group scene = new SimpleGroup(0, 0, 10000, 10000);
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < nObjects; i += OBJECTS_PER_GROUP) {
+            Group group = (groups.size() % 2 == 0) ?
+                new SimpleGroup(0, i, 1000, 100) :
+                new LayoutGroup(0, i, 1000, 100, LayoutGroup.HORIZONTAL, 2);
+            for (int j = i; j < Math.min(nObjects, i + OBJECTS_PER_GROUP); j++) {
+                switch (j % 5) {
+                    case 0: group.addChild(new OutlineRect(j, 0, 10, 10, Color.BLACK, 1)); break;
+                    case 1: group.addChild(new FilledRect(j, 0, 10, 10, Color.RED)); break;
+                    case 2: group.addChild(new Line(j, 0, j + 10, 10, Color.BLUE, 1)); break;
+                    case 3: group.addChild(new Text("label", j, 10)); break;
+                    default: group.addChild(new SelectableFilledRect(j, 0, 10, 10, Color.GREEN)); break;
+                }
+            }
+            groups.add(group);
+            scene.addChild(group);
+        }
+        return scene;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
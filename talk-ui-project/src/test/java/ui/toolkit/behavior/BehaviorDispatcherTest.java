@@ -0,0 +1,340 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.group.Group;
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.OutlineRect;
+
+/**
+ * Unit tests for event dispatch to behaviors
+ */
+public class BehaviorDispatcherTest {
+    private static class CountingMoveBehavior extends MoveBehavior {
+        private int checks = 0;
+
+        public boolean check(BehaviorEvent event) {
+            checks++;
+            return super.check(event);
+        }
+    }
+
+    private static BehaviorEvent mouse(int id, int x, int y) {
+        return new BehaviorEvent(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, id, x, y);
+    }
+
+    private final SimpleGroup root = new SimpleGroup(0, 0, 1000, 100);
+
+    private CountingMoveBehavior moveBehaviorAt(int x) {
+        SimpleGroup group = new SimpleGroup(x, 0, 100, 100);
+        root.addChild(group);
+        group.addChild(new OutlineRect(10, 10, 20, 20, null, 1));
+        CountingMoveBehavior behavior = new CountingMoveBehavior();
+        group.addBehavior(behavior);
+        return behavior;
+    }
+
+    @Test
+    public void movesReachOnlyRunningBehaviors() {
+        BehaviorDispatcher dispatcher = new BehaviorDispatcher();
+        CountingMoveBehavior[] behaviors = new CountingMoveBehavior[10];
+        for (int i = 0; i < behaviors.length; i++) {
+            behaviors[i] = moveBehaviorAt(i * 100);
+            dispatcher.add(behaviors[i]);
+        }
+
+        // idle: nobody is offered a mouse move
+        assertFalse(dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_MOVE_ID, 215, 15)));
+        for (CountingMoveBehavior behavior : behaviors) {
+            assertEquals(0, behavior.checks);
+        }
+
+        // a press is offered to everybody listening for it, and starts one behavior
+        assertTrue(dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 215, 15)));
+        assertEquals(1, dispatcher.getRunningBehaviors().size());
+
+        // drags only reach the running behavior
+        for (int x = 216; x < 226; x++) {
+            assertTrue(dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DRAG_ID, x, 15)));
+        }
+        assertEquals(11, behaviors[2].checks);
+        assertEquals(1, behaviors[3].checks);
+
+        assertTrue(dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_UP_ID, 225, 15)));
+        assertTrue(dispatcher.getRunningBehaviors().isEmpty());
+        assertEquals(12, behaviors[2].checks);
+        assertEquals(2, behaviors[3].checks);
+
+        // after dispatcher removal, the behavior gets nothing
+        dispatcher.remove(behaviors[3]);
+        dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 315, 15));
+        assertEquals(2, behaviors[3].checks);
+    }
+
+    @Test
+    public void firstConsumingPriorityLevelStopsDispatch() {
+        BehaviorDispatcher dispatcher = new BehaviorDispatcher();
+        CountingMoveBehavior low = moveBehaviorAt(0);
+        CountingMoveBehavior lowToo = moveBehaviorAt(0);
+        CountingMoveBehavior high = moveBehaviorAt(0);
+        high.setPriority(1);
+        dispatcher.add(high);
+        dispatcher.add(low);
+        dispatcher.add(lowToo);
+
+        // both behaviors of the consuming level run, the next level does not
+        dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 15, 15));
+        assertEquals(1, low.checks);
+        assertEquals(1, lowToo.checks);
+        assertEquals(0, high.checks);
+
+        // nothing consumed at level 0: level 1 is offered the event
+        CountingMoveBehavior any = moveBehaviorAt(0);
+        any.setStartEvent(new BehaviorEvent(BehaviorEvent.ANY_MODIFIER,
+                BehaviorEvent.RIGHT_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID));
+        any.setPriority(2);
+        dispatcher.add(any);
+        assertTrue(dispatcher.dispatch(new BehaviorEvent(BehaviorEvent.SHIFT_MODIFIER,
+                BehaviorEvent.RIGHT_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID, 15, 15)));
+        assertEquals(1, any.checks);
+        assertEquals(1, low.checks);
+    }
+
+    @Test
+    public void routingFollowsBoundsAndPointerCapture() {
+        EventRouter router = new EventRouter(root);
+        CountingMoveBehavior[] behaviors = new CountingMoveBehavior[10];
+        for (int i = 0; i < behaviors.length; i++) {
+            behaviors[i] = moveBehaviorAt(i * 100);
+        }
+
+        // only the group under the press is visited
+        assertTrue(router.route(mouse(BehaviorEvent.MOUSE_DOWN_ID, 215, 15)));
+        assertEquals(1, behaviors[2].checks);
+        assertEquals(0, behaviors[1].checks + behaviors[3].checks);
+
+        // the running behavior keeps getting drags outside its group
+        assertTrue(router.route(mouse(BehaviorEvent.MOUSE_DRAG_ID, 650, 15)));
+        assertEquals(2, behaviors[2].checks);
+        assertEquals(Behavior.RUNNING_OUTSIDE, behaviors[2].getState());
+        assertEquals(0, behaviors[6].checks);
+
+        router.route(mouse(BehaviorEvent.MOUSE_UP_ID, 650, 15));
+        assertEquals(Behavior.IDLE, behaviors[2].getState());
+        assertEquals(1, behaviors[6].checks);
+        assertTrue(router.getRunningBehaviors().isEmpty());
+
+        // detaching and attaching a subtree keeps its behaviors in place
+        Group third = behaviors[3].getGroup();
+        root.removeChild(third);
+        router.route(mouse(BehaviorEvent.MOUSE_DOWN_ID, 315, 15));
+        assertEquals(0, behaviors[3].checks);
+        root.addChild(third);
+        router.route(mouse(BehaviorEvent.MOUSE_DOWN_ID, 315, 15));
+        assertEquals(1, behaviors[3].checks);
+        assertEquals(Behavior.RUNNING_INSIDE, behaviors[3].getState());
+    }
+
+    @Test
+    public void behaviorsCanBeChangedDuringDispatch() {
+        BehaviorDispatcher dispatcher = new BehaviorDispatcher();
+        CountingMoveBehavior removed = moveBehaviorAt(100);
+        CountingMoveBehavior added = moveBehaviorAt(200);
+        CountingMoveBehavior editor = new CountingMoveBehavior() {
+            public boolean check(BehaviorEvent event) {
+                dispatcher.remove(removed);
+                dispatcher.add(added);
+                return super.check(event);
+            }
+        };
+        dispatcher.add(editor);
+        dispatcher.add(removed);
+        for (int priority = 5; priority > 0; priority--) {
+            dispatcher.add(moveBehaviorAt(300).setPriority(priority));
+        }
+
+        // the removed behavior is skipped and the added one waits
+        dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 115, 15));
+        assertEquals(1, editor.checks);
+        assertEquals(0, removed.checks);
+        assertEquals(0, added.checks);
+        assertEquals(7, dispatcher.getBehaviors().size());
+
+        dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 215, 15));
+        assertEquals(1, added.checks);
+        assertEquals(Behavior.RUNNING_INSIDE, added.getState());
+        assertEquals(1, dispatcher.getRunningBehaviors().size());
+    }
+
+    @Test
+    public void behaviorsCanBeChangedFromOtherThreads() throws InterruptedException {
+        BehaviorDispatcher dispatcher = new BehaviorDispatcher();
+        CountingMoveBehavior steady = moveBehaviorAt(100);
+        dispatcher.add(steady);
+
+        // several threads add and remove behaviors at many priorities while events are dispatched
+        AtomicInteger editing = new AtomicInteger(4);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> editors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread editor = new Thread(() -> {
+                try {
+                    for (int round = 0; round < 150; round++) {
+                        List<Behavior> added = new ArrayList<>();
+                        for (int i = 0; i < 200; i++) {
+                            Behavior behavior = new CountingMoveBehavior().setPriority(i % 40 - 20);
+                            assertTrue(dispatcher.add(behavior));
+                            added.add(behavior);
+                        }
+                        for (Behavior behavior : added) {
+                            assertTrue(dispatcher.remove(behavior));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    editing.decrementAndGet();
+                }
+            });
+            editors.add(editor);
+            editor.start();
+        }
+        int presses = 0;
+        while (editing.get() > 0) {
+            dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_DOWN_ID, 115, 15));
+            dispatcher.dispatch(mouse(BehaviorEvent.MOUSE_UP_ID, 115, 15));
+            presses++;
+        }
+        for (Thread editor : editors) {
+            editor.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(2 * presses, steady.checks);
+        assertEquals(Arrays.asList(steady), dispatcher.getBehaviors());
+        assertTrue(dispatcher.getRunningBehaviors().isEmpty());
+    }
+
+    // Events handed out by an InputQueue are reused: keep a description
+    private static String describe(BehaviorEvent event) {
+        StringBuilder description = new StringBuilder();
+        description.append(event.getID()).append('@').append(event.getX()).append(',').append(event.getY());
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            description.append(i == 0 ? " after " : " ").append(event.getHistoricalX(i))
+                    .append(',').append(event.getHistoricalY(i));
+        }
+        return description.toString();
+    }
+
+    @Test
+    public void motionIsCoalescedPerFrame() {
+        List<String> dispatched = new ArrayList<>();
+        int[] frames = { 0 };
+        InputQueue queue = new InputQueue(event -> dispatched.add(describe(event)), () -> frames[0]++,
+                64, InputQueue.MANUAL);
+
+        queue.post(mouse(BehaviorEvent.MOUSE_MOVE_ID, 0, 0));
+        queue.post(mouse(BehaviorEvent.MOUSE_DOWN_ID, 1, 1));
+        for (int x = 2; x <= 6; x++) {
+            queue.post(mouse(BehaviorEvent.MOUSE_DRAG_ID, x, 2 * x));
+        }
+        queue.post(BehaviorEvent.SHIFT_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DRAG_ID, 7, 14);
+        queue.post(mouse(BehaviorEvent.MOUSE_UP_ID, 7, 14));
+        assertEquals(9, queue.getDepth());
+        assertTrue(queue.drain());
+        assertFalse(queue.drain());
+
+        // button events keep their place; only consecutive alike drags merge
+        assertEquals(Arrays.asList(
+                "4@0,0",
+                "2@1,1",
+                "5@6,12 after 2,4 3,6 4,8 5,10",
+                "5@7,14",
+                "3@7,14"), dispatched);
+        assertEquals(1, frames[0]);
+        assertEquals(4, queue.getCoalescedEvents());
+        assertEquals(5, queue.getDispatchedEvents());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    public void inputRingKeepsOrderAcrossThreads() throws InterruptedException {
+        int count = 10000;
+        List<String> dispatched = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        InputQueue queue = new InputQueue(event -> {
+            dispatched.add(describe(event));
+            if (event.getX() == count - 1) {
+                done.countDown();
+            }
+        }, () -> {}, 16, InputQueue.INPUT_THREAD);
+
+        // clicks are never merged: every one arrives, in order, through a small ring
+        for (int i = 0; i < count; i++) {
+            queue.post(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_CLICK_ID, i, 0);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        queue.close();
+        assertEquals(count, dispatched.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(BehaviorEvent.MOUSE_CLICK_ID + "@" + i + ",0", dispatched.get(i));
+        }
+        assertEquals(count, queue.getPublishedEvents());
+        assertTrue(queue.getMaxDepth() <= 16);
+    }
+
+    @Test
+    public void fullRingNeverBlocksTheProducer() throws InterruptedException {
+        int count = 100;
+        CountDownLatch posted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<Integer> dispatched = new ArrayList<>();
+        InputQueue queue = new InputQueue(event -> {
+            try {
+                posted.await(); // e.g. a callback waiting for the producer's thread
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatched.add(event.getX());
+            if (event.getX() == count - 1) {
+                done.countDown();
+            }
+        }, () -> {}, 16, InputQueue.INPUT_THREAD);
+
+        for (int i = 0; i < count; i++) {
+            queue.post(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_CLICK_ID, i, 0);
+        }
+        posted.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        queue.close();
+        assertTrue(queue.getOverflows() > 0);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) dispatched.get(i));
+        }
+    }
+
+    @Test
+    public void invokedChangesRunBeforeTheFrame() {
+        List<String> log = new ArrayList<>();
+        InputQueue queue = new InputQueue(event -> log.add("event"), () -> log.add("frame"),
+                16, InputQueue.MANUAL);
+        queue.post(mouse(BehaviorEvent.MOUSE_DOWN_ID, 1, 1));
+        queue.invoke(() -> log.add("change"));
+        assertTrue(queue.drain());
+        queue.invoke(() -> log.add("change"));
+        assertTrue(queue.drain());
+        assertFalse(queue.drain());
+        assertEquals(Arrays.asList("change", "event", "frame", "change", "frame"), log);
+    }
+}
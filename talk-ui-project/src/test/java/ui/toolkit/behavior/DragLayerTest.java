@@ -0,0 +1,122 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.event.KeyEvent;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.OutlineRect;
+
+/**
+ * Unit tests for rendering drags on the drag layer
+ */
+public class DragLayerTest {
+    private static final int L = BehaviorEvent.LEFT_MOUSE_KEY;
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void draggedObjectMovesOnTheDragLayer() {
+        SimpleGroup root = new SimpleGroup(0, 0, 200, 200);
+        SimpleGroup group = new SimpleGroup(0, 0, 200, 200);
+        root.addChild(group);
+        OutlineRect rect = new OutlineRect(10, 10, 20, 20, Color.black, 1);
+        OutlineRect other = new OutlineRect(150, 150, 20, 20, Color.red, 1);
+        group.addChildren(other, rect);
+        group.addBehavior(new MoveBehavior());
+        ReplayDriver driver = new ReplayDriver(root, 200, 200);
+        DragLayer layer = driver.getDragLayer();
+
+        InputRecording drag = new InputRecording();
+        drag.add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 15, 15, 0);
+        for (int step = 1; step <= 20; step++) {
+            drag.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 15 + 5 * step, 15 + 2 * step, 0);
+        }
+        driver.replay(drag, ReplayDriver.AS_FAST_AS_POSSIBLE);
+
+        // the scene was rendered once; the object is only shown at its new place
+        assertTrue(layer.isActive());
+        assertEquals(1, layer.getLayerRenders());
+        assertEquals(21, layer.getComposites());
+        assertEquals(10, rect.getX());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(110, 50));
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(10, 10));
+        assertEquals(Color.red.getRGB(), driver.getBufferedImage().getRGB(150, 150));
+
+        // changes in other scenes leave the layers alone
+        new OutlineRect(0, 0, 5, 5, Color.blue, 1).moveTo(20, 20);
+        driver.replay(new InputRecording().add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 116, 56, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(1, layer.getLayerRenders());
+
+        // a change elsewhere in the scene renders the layers again
+        other.moveTo(160, 150);
+        driver.requestRedraw();
+        driver.replay(new InputRecording().add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 116, 55, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(2, layer.getLayerRenders());
+        assertEquals(Color.red.getRGB(), driver.getBufferedImage().getRGB(160, 150));
+
+        // stopping commits the move
+        driver.replay(new InputRecording().add(NO, L, BehaviorEvent.MOUSE_UP_ID, 116, 55, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(111, rect.getX());
+        assertEquals(50, rect.getY());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(111, 50));
+
+        // cancelling leaves the object where it was
+        drag = new InputRecording()
+                .add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 115, 55, 0)
+                .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 60, 80, 0)
+                .add(NO, KeyEvent.VK_ESCAPE, BehaviorEvent.KEY_UP_ID, 60, 80, 0);
+        driver.replay(drag, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(111, rect.getX());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(111, 50));
+    }
+
+    @Test
+    public void changesByOtherBehaviorsDuringADragRenderTheLayers() {
+        SimpleGroup root = new SimpleGroup(0, 0, 200, 200);
+        SimpleGroup group = new SimpleGroup(0, 0, 200, 200);
+        root.addChild(group);
+        OutlineRect rect = new OutlineRect(10, 10, 20, 20, Color.black, 1);
+        OutlineRect other = new OutlineRect(150, 150, 20, 20, Color.red, 1);
+        group.addChildren(other, rect);
+        group.addBehavior(new MoveBehavior());
+        // a key handler that moves another object
+        MoveBehavior nudge = new MoveBehavior() {
+            public boolean check(BehaviorEvent event) {
+                if (event.matches(getStartEvent())) {
+                    other.moveTo(other.getX() + 10, other.getY());
+                    return true;
+                }
+                return false;
+            }
+        };
+        nudge.setStartEvent(new BehaviorEvent(NO, KeyEvent.VK_RIGHT, BehaviorEvent.KEY_DOWN_ID));
+        group.addBehavior(nudge);
+        ReplayDriver driver = new ReplayDriver(root, 200, 200);
+        DragLayer layer = driver.getDragLayer();
+
+        driver.replay(new InputRecording()
+                .add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 15, 15, 0)
+                .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 20, 20, 0)
+                .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 25, 25, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertTrue(layer.isActive());
+        assertEquals(1, layer.getLayerRenders());
+
+        // the key is handled during the drag: the next frame shows the object moved
+        driver.replay(new InputRecording()
+                .add(NO, KeyEvent.VK_RIGHT, BehaviorEvent.KEY_DOWN_ID, 25, 25, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertTrue(layer.isActive());
+        assertEquals(2, layer.getLayerRenders());
+        assertEquals(Color.red.getRGB(), driver.getBufferedImage().getRGB(160, 150));
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(150, 160));
+    }
+}
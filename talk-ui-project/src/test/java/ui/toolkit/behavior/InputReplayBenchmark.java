@@ -0,0 +1,153 @@
+package ui.toolkit.behavior;
+
+import java.awt.Color;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+
+/**
+ * Input replay benchmark: replays a session against scenes driven by the
+ * move, choice and new-object behaviors and prints the timings of each stage
+ *
+ * Without a recording, every scene gets a scripted session that drags,
+ * clicks or rubber-bands over its objects at 125 events per second.
+ * Record a real session with -Dui.toolkit.input.record=session.bin.
+ *
+ * Usage: java -cp target/classes:target/test-classes ui.toolkit.behavior.InputReplayBenchmark
+ *        [session.bin] [fast|original]
+ */
+public class InputReplayBenchmark {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final int COLUMNS = 20;
+    private static final int ROWS = 10;
+    private static final int CELL = 40;
+    private static final long STEP = 8_000_000L; // nanoseconds between scripted events
+
+    public static void main(String[] args) throws IOException {
+        InputRecording recording = null;
+        if (args.length > 0) {
+            try (InputStream in = new FileInputStream(args[0])) {
+                recording = InputRecording.read(in);
+            }
+        }
+        int timing = (args.length > 1 && args[1].equals("original"))
+                ? ReplayDriver.ORIGINAL_TIMING : ReplayDriver.AS_FAST_AS_POSSIBLE;
+
+        run("MoveBehavior", MoveBehavior::new, recording, timing);
+        run("ChoiceBehavior (single)", () -> new ChoiceBehavior(ChoiceBehavior.SINGLE, false), recording, timing);
+        run("ChoiceBehavior (multiple)", () -> new ChoiceBehavior(ChoiceBehavior.MULTIPLE, false), recording, timing);
+        run("NewRectBehavior", NewRectBehavior::new, recording, timing);
+        run("NewEllipseBehavior", NewEllipseBehavior::new, recording, timing);
+        run("NewLineBehavior", NewLineBehavior::new, recording, timing);
+        runSelectionDrag(true, timing);
+        runSelectionDrag(false, timing);
+        runSnappingDrag(timing);
+    }
+
+    // Drag one object among 10000 with snapping to their edges
+    private static void runSnappingDrag(int timing) {
+        ReplayReport report = null;
+        for (int run = 0; run < 2; run++) { // warm up, then measure
+            SimpleGroup root = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+            SimpleGroup scene = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+            root.addChild(scene);
+            for (int i = 0; i < 10000; i++) {
+                scene.addChild(new SelectableFilledRect(i % 100 * 8, i / 100 * 6, 5, 4, Color.gray));
+            }
+            scene.addChild(new SelectableFilledRect(WIDTH - 20, HEIGHT - 20, 12, 12, Color.red));
+            scene.addBehavior(new MoveBehavior().setSnapping(4));
+
+            InputRecording drag = new InputRecording();
+            long time = 0;
+            drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID,
+                    WIDTH - 15, HEIGHT - 15, time);
+            for (int step = 1; step <= 300; step++) {
+                drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DRAG_ID,
+                        WIDTH - 15 - 2 * step, HEIGHT - 15 - step, time += STEP);
+            }
+            drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_UP_ID,
+                    WIDTH - 615, HEIGHT - 315, time += STEP);
+            report = new ReplayDriver(root, WIDTH, HEIGHT).replay(drag, timing);
+        }
+        System.out.println("== MoveBehavior, snapping among 10000 objects");
+        System.out.println(report);
+    }
+
+    // Drag 1000 selected objects at once
+    private static void runSelectionDrag(boolean useDragLayer, int timing) {
+        ReplayReport report = null;
+        for (int run = 0; run < 2; run++) { // warm up, then measure
+            SimpleGroup root = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+            SimpleGroup scene = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+            root.addChild(scene);
+            for (int i = 0; i < 1000; i++) {
+                SelectableFilledRect rect = new SelectableFilledRect(i % 50 * 16, i / 50 * 16, 12, 12, Color.gray);
+                rect.setSelected(true);
+                scene.addChild(rect);
+            }
+            scene.addBehavior(new MoveBehavior().setDragLayer(useDragLayer));
+
+            InputRecording drag = new InputRecording();
+            long time = 0;
+            drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID, 5, 5, time);
+            for (int step = 1; step <= 300; step++) {
+                drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DRAG_ID,
+                        5 + step % 100, 5 + step % 60, time += STEP);
+            }
+            drag.add(BehaviorEvent.NO_MODIFIER, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_UP_ID,
+                    5, 5, time += STEP);
+            report = new ReplayDriver(root, WIDTH, HEIGHT).replay(drag, timing);
+        }
+        System.out.println("== MoveBehavior, 1000 selected objects" + (useDragLayer ? "" : ", no drag layer"));
+        System.out.println(report);
+    }
+
+    private static void run(String name, Supplier<Behavior> behavior, InputRecording recording, int timing) {
+        // warm up on a scene of its own, then measure on a fresh one
+        replay(behavior, (recording != null) ? recording : script(), timing);
+        ReplayReport report = replay(behavior, (recording != null) ? recording : script(), timing);
+        System.out.println("== " + name);
+        System.out.println(report);
+    }
+
+    private static ReplayReport replay(Supplier<Behavior> behavior, InputRecording recording, int timing) {
+        SimpleGroup root = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+        SimpleGroup scene = new SimpleGroup(0, 0, WIDTH, HEIGHT);
+        root.addChild(scene);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                scene.addChild(new SelectableFilledRect(column * CELL + 5, row * CELL + 5, CELL - 10, CELL - 10,
+                        Color.getHSBColor((row * COLUMNS + column) / 200f, 0.5f, 0.9f)));
+            }
+        }
+        scene.addBehavior(behavior.get());
+        return new ReplayDriver(root, WIDTH, HEIGHT).replay(recording, timing);
+    }
+
+    // Press on half the cells of the first two rows, drag diagonally and release
+    private static InputRecording script() {
+        InputRecording recording = new InputRecording();
+        int key = BehaviorEvent.LEFT_MOUSE_KEY;
+        int modifiers = BehaviorEvent.NO_MODIFIER;
+        long time = 0;
+        for (int row = 0; row < 2; row++) {
+            for (int column = 0; column < COLUMNS / 2; column++) {
+                int x = column * CELL + CELL / 2;
+                int y = row * CELL + CELL / 2;
+                recording.add(modifiers, BehaviorEvent.NO_KEY, BehaviorEvent.MOUSE_MOVE_ID, x, y, time += STEP);
+                recording.add(modifiers, key, BehaviorEvent.MOUSE_DOWN_ID, x, y, time += STEP);
+                for (int step = 1; step <= 30; step++) {
+                    recording.add(modifiers, key, BehaviorEvent.MOUSE_DRAG_ID,
+                            x + 5 * step, y + 3 * step, time += STEP);
+                }
+                recording.add(modifiers, key, BehaviorEvent.MOUSE_UP_ID, x + 150, y + 90, time += STEP);
+            }
+        }
+        return recording;
+    }
+}
@@ -0,0 +1,110 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.OutlineRect;
+
+/**
+ * Unit tests for input recording and replay
+ */
+public class InputReplayTest {
+    private static final int L = BehaviorEvent.LEFT_MOUSE_KEY;
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void recordingKeepsEveryPublishedEvent() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(log);
+        InputQueue queue = new InputQueue(event -> {}, () -> {}, 64, InputQueue.MANUAL);
+        queue.setRecorder(recorder);
+
+        queue.post(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 5, 5);
+        for (int x = 4; x >= -3; x--) {
+            queue.post(NO, L, BehaviorEvent.MOUSE_DRAG_ID, x, 100000 * x);
+        }
+        queue.post(BehaviorEvent.SHIFT_MODIFIER | BehaviorEvent.CONTROL_MODIFIER, 27,
+                BehaviorEvent.KEY_UP_ID, -3, -300000);
+        queue.drain();
+        recorder.close();
+        assertEquals(7, queue.getCoalescedEvents());
+
+        // merged drags are in the log all the same
+        InputRecording recording = InputRecording.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(10, recording.size());
+        assertEquals(10, recorder.getRecordedEvents());
+        assertEquals(BehaviorEvent.MOUSE_DOWN_ID, recording.getID(0));
+        assertEquals(5, recording.getX(0));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(BehaviorEvent.MOUSE_DRAG_ID, recording.getID(i));
+            assertEquals(L, recording.getKey(i));
+            assertEquals(5 - i, recording.getX(i));
+            assertEquals(100000 * (5 - i), recording.getY(i));
+            assertTrue(recording.getTime(i) >= recording.getTime(i - 1));
+        }
+        assertEquals(BehaviorEvent.SHIFT_MODIFIER | BehaviorEvent.CONTROL_MODIFIER, recording.getModifiers(9));
+        assertEquals(27, recording.getKey(9));
+        assertEquals(-300000, recording.getY(9));
+        assertEquals(0, recording.getTime(0));
+    }
+
+    @Test
+    public void replayDrivesBehaviorsAndRendersFrames() throws IOException {
+        SimpleGroup root = new SimpleGroup(0, 0, 200, 200);
+        SimpleGroup group = new SimpleGroup(0, 0, 200, 200);
+        root.addChild(group);
+        OutlineRect rect = new OutlineRect(10, 10, 20, 20, Color.black, 1);
+        group.addChild(rect);
+        group.addBehavior(new MoveBehavior());
+
+        InputRecording session = new InputRecording();
+        long time = 0;
+        session.add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 15, 15, time);
+        for (int step = 1; step <= 20; step++) {
+            session.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 15 + 5 * step, 15 + 2 * step, time += 1_000_000);
+        }
+        session.add(NO, L, BehaviorEvent.MOUSE_UP_ID, 115, 55, time += 1_000_000);
+
+        // the log round-trips to the same session
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        session.write(log);
+        InputRecording recording = InputRecording.read(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(session.size(), recording.size());
+        assertEquals(session.getDuration(), recording.getDuration());
+
+        ReplayDriver driver = new ReplayDriver(root, 200, 200);
+        ReplayReport report = driver.replay(recording, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(110, rect.getX());
+        assertEquals(50, rect.getY());
+        assertEquals(recording.size(), report.getEvents());
+        assertEquals(recording.size(), report.getFrames());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(110, 50));
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(10, 10));
+        assertTrue(report.getPercentile(ReplayReport.DISPATCH, 0.5) <= report.getPercentile(ReplayReport.DISPATCH, 1));
+
+        // at the original pace the replay takes as long as the session
+        rect.moveTo(10, 10);
+        report = driver.replay(recording, ReplayDriver.ORIGINAL_TIMING);
+        assertEquals(110, rect.getX());
+        assertTrue(report.getWallTime() >= recording.getDuration());
+        assertTrue(report.getFrames() <= recording.size());
+
+        // every original event is timed once per stage, by type
+        LatencyMonitor monitor = driver.getLatencyMonitor();
+        assertEquals(40, monitor.getHistogram(BehaviorEvent.MOUSE_DRAG_ID, LatencyMonitor.PAINT).getCount());
+        assertEquals(2, monitor.getHistogram(BehaviorEvent.MOUSE_DOWN_ID, LatencyMonitor.DISPATCH).getCount());
+        assertEquals(0, monitor.getHistogram(BehaviorEvent.KEY_DOWN_ID, LatencyMonitor.PAINT).getCount());
+        LatencyHistogram dispatch = monitor.getHistogram(BehaviorEvent.MOUSE_DRAG_ID, LatencyMonitor.DISPATCH);
+        LatencyHistogram paint = monitor.getHistogram(BehaviorEvent.MOUSE_DRAG_ID, LatencyMonitor.PAINT);
+        assertTrue(dispatch.getPercentile(0.99) <= paint.getPercentile(0.99));
+        assertEquals(3, monitor.getSummary().size());
+    }
+}
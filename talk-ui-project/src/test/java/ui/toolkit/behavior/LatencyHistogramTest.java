@@ -0,0 +1,30 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for latency histograms
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void histogramPercentilesAreWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMax());
+        double[] fractions = { 0.5, 0.99, 0.999 };
+        for (double fraction : fractions) {
+            long exact = (long) (fraction * 100000) * 1000;
+            long percentile = histogram.getPercentile(fraction);
+            assertTrue(percentile >= exact && percentile <= exact + exact / 16);
+        }
+        assertEquals(100_000_000L, histogram.getPercentile(1));
+        histogram.record(3);
+        assertEquals(3, histogram.getPercentile(0));
+    }
+}
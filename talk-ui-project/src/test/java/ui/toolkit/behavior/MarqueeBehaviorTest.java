@@ -0,0 +1,94 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+
+/**
+ * Unit tests for marquee selection
+ */
+public class MarqueeBehaviorTest {
+    private static final int L = BehaviorEvent.LEFT_MOUSE_KEY;
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void marqueeOnlyTouchesObjectsThatCrossTheBand() {
+        SimpleGroup root = new SimpleGroup(0, 0, 1000, 1000);
+        SimpleGroup group = new SimpleGroup(0, 0, 1000, 1000);
+        root.addChild(group);
+        int[] interimCalls = { 0 };
+        List<SelectableFilledRect> rects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            SelectableFilledRect rect = new SelectableFilledRect(i % 40 * 20, i / 40 * 20, 10, 10, Color.blue) {
+                public void setInterimSelected(boolean interimSelected) {
+                    interimCalls[0]++;
+                    super.setInterimSelected(interimSelected);
+                }
+            };
+            rects.add(rect);
+            group.addChild(rect);
+        }
+        rects.get(999).setSelected(true);
+        MarqueeBehavior marquee = new MarqueeBehavior();
+        group.addBehavior(marquee);
+        group.addBehavior(new ChoiceBehavior(ChoiceBehavior.SINGLE, true));
+        ReplayDriver driver = new ReplayDriver(root, 1000, 1000);
+
+        // grow the band over four objects, then shrink it back to one
+        InputRecording band = new InputRecording();
+        band.add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 15, 15, 0);
+        for (int corner = 16; corner <= 55; corner++) {
+            band.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, corner, corner, 0);
+        }
+        for (int corner = 54; corner >= 35; corner--) {
+            band.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, corner, corner, 0);
+        }
+        driver.replay(band, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(7, interimCalls[0]);
+        assertEquals(1, marquee.getInterimSelection().size());
+        assertTrue(rects.get(41).isInterimSelected());
+        assertFalse(rects.get(82).isInterimSelected());
+        assertEquals(Color.gray.getRGB(), driver.getBufferedImage().getRGB(15, 35));
+
+        // the release replaces the selection with what the band holds
+        driver.replay(new InputRecording().add(NO, L, BehaviorEvent.MOUSE_UP_ID, 35, 35, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(8, interimCalls[0]);
+        assertTrue(rects.get(41).isSelected());
+        assertFalse(rects.get(41).isInterimSelected());
+        assertFalse(rects.get(999).isSelected());
+        assertEquals(1000, group.getChildren().size());
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(15, 35));
+
+        // a press on an object is left to the other behaviors
+        driver.replay(new InputRecording()
+                .add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 85, 85, 0)
+                .add(NO, L, BehaviorEvent.MOUSE_UP_ID, 85, 85, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertTrue(rects.get(164).isSelected());
+        assertFalse(rects.get(41).isSelected());
+
+        // a contains band only takes the objects it encloses; cancelling keeps the selection
+        MarqueeBehavior contains = new MarqueeBehavior(MarqueeBehavior.CONTAINS);
+        group.removeBehavior(marquee);
+        group.addBehavior(contains);
+        driver.replay(new InputRecording()
+                .add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 15, 15, 0)
+                .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 45, 45, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(1, contains.getInterimSelection().size());
+        driver.replay(new InputRecording().add(NO, KeyEvent.VK_ESCAPE, BehaviorEvent.KEY_UP_ID, 45, 45, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(rects.get(41).isInterimSelected());
+        assertTrue(rects.get(164).isSelected());
+        assertEquals(1000, group.getChildren().size());
+    }
+}
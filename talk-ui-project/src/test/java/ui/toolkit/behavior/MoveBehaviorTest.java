@@ -0,0 +1,144 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.constraint.Dependency;
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.Line;
+import ui.toolkit.graphics.object.OutlineRect;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+
+/**
+ * Unit tests for moving selections and snapping
+ */
+public class MoveBehaviorTest {
+    private static final int L = BehaviorEvent.LEFT_MOUSE_KEY;
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void selectionMovesAsOne() {
+        for (boolean useDragLayer : new boolean[] { true, false }) {
+            SimpleGroup root = new SimpleGroup(0, 0, 1000, 1000);
+            SimpleGroup group = new SimpleGroup(0, 0, 1000, 1000);
+            root.addChild(group);
+            List<SelectableFilledRect> rects = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                SelectableFilledRect rect = new SelectableFilledRect(i % 40 * 20, i / 40 * 20, 10, 10, Color.blue);
+                rect.setSelected(i % 2 == 0);
+                rects.add(rect);
+                group.addChild(rect);
+            }
+            group.addBehavior(new MoveBehavior().setDragLayer(useDragLayer));
+            ReplayDriver driver = new ReplayDriver(root, 1000, 1000);
+
+            InputRecording drag = new InputRecording();
+            drag.add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 45, 25, 0);
+            for (int step = 1; step <= 10; step++) {
+                drag.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 45 + step, 25 + 2 * step, 0);
+            }
+            drag.add(NO, L, BehaviorEvent.MOUSE_UP_ID, 55, 45, 0);
+            driver.replay(drag, ReplayDriver.AS_FAST_AS_POSSIBLE);
+
+            // the selected objects moved by the same delta, the others stayed
+            for (int i = 0; i < rects.size(); i++) {
+                int shift = (i % 2 == 0) ? 1 : 0;
+                assertEquals(i % 40 * 20 + 10 * shift, rects.get(i).getX());
+                assertEquals(i / 40 * 20 + 20 * shift, rects.get(i).getY());
+            }
+            assertEquals(useDragLayer ? 1 : 0, driver.getDragLayer().getLayerRenders());
+        }
+    }
+
+    @Test
+    public void selectionFollowsOneOffsetWithoutADragLayer() {
+        SimpleGroup group = new SimpleGroup(0, 0, 1000, 1000);
+        List<SelectableFilledRect> rects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            SelectableFilledRect rect = new SelectableFilledRect(i % 40 * 20, i / 40 * 20, 10, 10, Color.blue);
+            rect.setSelected(i % 2 == 0);
+            rects.add(rect);
+            group.addChild(rect);
+        }
+        SelectableFilledRect first = rects.get(0);
+        OutlineRect label = new OutlineRect(0, 900, 10, 10, Color.black, 1);
+        label.setX(new Constraint<Integer>(first.useX()) {
+            public Integer getValue() {
+                return first.getX() + 5;
+            }
+        });
+        group.addChild(label);
+        group.addBehavior(new MoveBehavior().setDragLayer(false));
+        EventRouter router = new EventRouter(group); // no host: no drag layer
+
+        router.route(new BehaviorEvent(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 5, 5));
+        // one change of the shared offset per axis, whatever the size of the selection
+        long epoch = Dependency.getEpoch();
+        router.route(new BehaviorEvent(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 8, 9));
+        assertTrue(Dependency.getEpoch() - epoch <= 2);
+        assertEquals(3, first.getX());
+        assertEquals(4, rects.get(998).getY() - 480);
+        assertEquals(20, rects.get(1).getX());
+        assertEquals(8, label.getX());
+
+        // released, the objects stay where they went and can be moved again
+        router.route(new BehaviorEvent(NO, L, BehaviorEvent.MOUSE_UP_ID, 8, 9));
+        assertEquals(3, first.getX());
+        assertEquals(8, label.getX());
+        first.setX(50);
+        assertEquals(50, first.getX());
+        assertEquals(55, label.getX());
+    }
+
+    @Test
+    public void movedObjectSnapsToEdgesWithGuides() {
+        for (boolean useDragLayer : new boolean[] { true, false }) {
+            SimpleGroup root = new SimpleGroup(0, 0, 2200, 2200);
+            SimpleGroup group = new SimpleGroup(0, 0, 2200, 2200);
+            root.addChild(group);
+            for (int i = 0; i < 10000; i++) {
+                group.addChild(new OutlineRect(i % 100 * 20, i / 100 * 20, 10, 10, Color.black, 1));
+            }
+            OutlineRect rect = new OutlineRect(2100, 2100, 10, 10, Color.black, 1);
+            group.addChild(rect);
+            MoveBehavior move = new MoveBehavior().setDragLayer(useDragLayer).setSnapping(3);
+            group.addBehavior(move);
+            ReplayDriver driver = new ReplayDriver(root, 2200, 2200);
+
+            // the left edge comes within 1 pixel of a column of edges: x snaps, y stays free
+            InputRecording drag = new InputRecording()
+                    .add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 2105, 2105, 0)
+                    .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 1305, 2106, 0)
+                    .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 526, 2107, 0);
+            driver.replay(drag, ReplayDriver.AS_FAST_AS_POSSIBLE);
+            List<Line> guides = move.getGuides();
+            assertEquals(1, guides.size());
+            assertEquals(520, guides.get(0).getX1());
+            assertEquals(520, guides.get(0).getX2());
+            assertEquals(2112, guides.get(0).getY2());
+            // drawn by the layer, lifted or not, outside the group
+            assertEquals(1, driver.getDragLayer().getGuides().size());
+            assertEquals(10001, group.getChildren().size());
+            assertTrue(driver.getBufferedImage().getRGB(519, 2050) == Color.magenta.getRGB()
+                    || driver.getBufferedImage().getRGB(520, 2050) == Color.magenta.getRGB());
+
+            // away from any edge the guides go, and the release commits the snapped position
+            driver.replay(new InputRecording()
+                    .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 2040, 2107, 0)
+                    .add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 526, 2107, 0)
+                    .add(NO, L, BehaviorEvent.MOUSE_UP_ID, 526, 2107, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+            assertEquals(520, rect.getX());
+            assertEquals(2102, rect.getY());
+            assertTrue(move.getGuides().isEmpty());
+            assertEquals(10001, group.getChildren().size());
+            assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(520, 2050));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ui.toolkit.behavior;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.event.KeyEvent;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.group.ScaledGroup;
+import ui.toolkit.graphics.group.SimpleGroup;
+import ui.toolkit.graphics.object.FilledRect;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+
+/**
+ * Unit tests for zooming and panning a scaled group
+ */
+public class ZoomPanBehaviorTest {
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void zoomStretchesTheCachedSceneUntilItSettles() {
+        SimpleGroup root = new SimpleGroup(0, 0, 400, 400);
+        SimpleGroup viewport = new SimpleGroup(0, 0, 400, 400);
+        root.addChild(viewport);
+        ScaledGroup content = new ScaledGroup(0, 0, 400, 400, 1, 1);
+        viewport.addChild(content);
+        content.addChild(new FilledRect(100, 100, 20, 20, Color.black));
+        SelectableFilledRect target = new SelectableFilledRect(130, 100, 10, 10, Color.red);
+        content.addChild(target);
+        content.addBehavior(new ChoiceBehavior(ChoiceBehavior.SINGLE, false));
+        ZoomPanBehavior zoomPan = new ZoomPanBehavior(content).setSettleTime(0);
+        viewport.addBehavior(zoomPan);
+        ReplayDriver driver = new ReplayDriver(root, 400, 400);
+        DragLayer layer = driver.getDragLayer();
+        int up = BehaviorEvent.SCROLLWHEEL_UP_KEY, m = BehaviorEvent.MIDDLE_MOUSE_KEY;
+
+        // two notches around the cursor stretch the raster; the group is not touched
+        driver.replay(new InputRecording()
+                .add(NO, up, BehaviorEvent.SCROLLWHEEL_ID, 110, 110, 0)
+                .add(NO, up, BehaviorEvent.SCROLLWHEEL_ID, 110, 110, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertTrue(layer.isActive());
+        assertEquals(1, layer.getLayerRenders());
+        assertEquals(1.0, content.getScaleX(), 0);
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(120, 120));
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(125, 125));
+
+        // the next move settles the zoom, which keeps the point under the cursor in place
+        driver.replay(new InputRecording().add(NO, 0, BehaviorEvent.MOUSE_MOVE_ID, 111, 110, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(1, zoomPan.getSettledGestures());
+        assertEquals(1.21, content.getScaleX(), 1e-9);
+        assertEquals(1.21, content.getScaleY(), 1e-9);
+        assertEquals(-23, content.getX());
+        assertEquals(-23, content.getY());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(121, 121));
+
+        // panning moves the raster, and the release moves the group
+        driver.replay(new InputRecording()
+                .add(NO, m, BehaviorEvent.MOUSE_DOWN_ID, 200, 200, 0)
+                .add(NO, m, BehaviorEvent.MOUSE_DRAG_ID, 215, 205, 0)
+                .add(NO, m, BehaviorEvent.MOUSE_DRAG_ID, 230, 210, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertTrue(layer.isActive());
+        assertEquals(-23, content.getX());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(140, 125));
+        driver.replay(new InputRecording().add(NO, m, BehaviorEvent.MOUSE_UP_ID, 230, 210, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(7, content.getX());
+        assertEquals(-13, content.getY());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(140, 125));
+
+        // cancelling a zoom leaves the group as it was
+        driver.replay(new InputRecording()
+                .add(NO, up, BehaviorEvent.SCROLLWHEEL_ID, 50, 50, 0)
+                .add(NO, KeyEvent.VK_ESCAPE, BehaviorEvent.KEY_UP_ID, 50, 50, 0), ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(1.21, content.getScaleX(), 1e-9);
+        assertEquals(7, content.getX());
+        assertEquals(2, zoomPan.getSettledGestures());
+
+        // a click settles the zoom first, and hits what the zoom shows
+        driver.replay(new InputRecording()
+                .add(NO, up, BehaviorEvent.SCROLLWHEEL_ID, 50, 50, 0)
+                .add(NO, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_DOWN_ID, 185, 124, 0)
+                .add(NO, BehaviorEvent.LEFT_MOUSE_KEY, BehaviorEvent.MOUSE_UP_ID, 185, 124, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertFalse(layer.isActive());
+        assertEquals(3, zoomPan.getSettledGestures());
+        assertEquals(1.331, content.getScaleX(), 1e-9);
+        assertTrue(target.isSelected());
+    }
+
+    @Test
+    public void cancelRestoresTheGroupWithoutADragLayer() {
+        SimpleGroup viewport = new SimpleGroup(0, 0, 400, 400);
+        ScaledGroup content = new ScaledGroup(10, 20, 400, 400, 1, 1);
+        viewport.addChild(content);
+        content.addChild(new FilledRect(100, 100, 20, 20, Color.black));
+        ZoomPanBehavior zoomPan = new ZoomPanBehavior(content).setSettleTime(1000);
+        viewport.addBehavior(zoomPan);
+        EventRouter router = new EventRouter(viewport); // no host: no drag layer
+        int up = BehaviorEvent.SCROLLWHEEL_UP_KEY, m = BehaviorEvent.MIDDLE_MOUSE_KEY;
+
+        // every step goes to the group
+        router.route(new BehaviorEvent(NO, up, BehaviorEvent.SCROLLWHEEL_ID, 110, 110));
+        router.route(new BehaviorEvent(NO, m, BehaviorEvent.MOUSE_DOWN_ID, 200, 200));
+        router.route(new BehaviorEvent(NO, m, BehaviorEvent.MOUSE_DRAG_ID, 230, 210));
+        assertEquals(1.1, content.getScaleX(), 1e-9);
+        assertTrue(content.getX() != 10);
+
+        // cancelling takes the zoom and the pan back
+        router.route(new BehaviorEvent(NO, KeyEvent.VK_ESCAPE, BehaviorEvent.KEY_UP_ID, 230, 210));
+        assertEquals(1.0, content.getScaleX(), 0);
+        assertEquals(1.0, content.getScaleY(), 0);
+        assertEquals(10, content.getX());
+        assertEquals(20, content.getY());
+        assertEquals(0, zoomPan.getSettledGestures());
+    }
+}
@@ -0,0 +1,78 @@
+package ui.toolkit.constraint;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConstraintBenchmark {
+    /**
+     * ConstraintBenchmark class: JMH benchmarks of the dependency graph
+     * 
+     * Run with: mvn test-compile exec:exec -DConstraintBenchmark
+     * (the profile adds -prof gc to report allocation per operation)
+     */
+    @Param({ ConstraintTopology.CHAIN, ConstraintTopology.FAN_OUT, ConstraintTopology.DIAMOND,
+            ConstraintTopology.GRID, ConstraintTopology.CYCLE })
+    public String topology;
+
+    @Param({ "100", "1000" })
+    public int size;
+
+    private ConstraintTopology graph;
+    private int input = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = ConstraintTopology.create(topology, size);
+        graph.set(input);
+        graph.evaluate();
+    }
+
+    /**
+     * One interactive update: change the input and read all outputs, which
+     * re-evaluates every node; reported as latency and as throughput
+     */
+    @Benchmark
+    @BenchmarkMode({ Mode.AverageTime, Mode.Throughput })
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long setThenEvaluate() {
+        graph.set(++input & 0xffff);
+        return graph.evaluate();
+    }
+
+    /**
+     * Baseline: reading the outputs when nothing changed
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long evaluateUpToDate() {
+        return graph.evaluate();
+    }
+
+    /**
+     * Reference: the same outputs recomputed without the constraint engine
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long naiveRecompute() {
+        graph.set(++input & 0xffff);
+        return graph.recompute();
+    }
+}
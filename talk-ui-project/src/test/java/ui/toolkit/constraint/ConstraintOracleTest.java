@@ -0,0 +1,66 @@
+package ui.toolkit.constraint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Correctness oracle: the constraint engine must agree with a naive
+ * recompute on every benchmark topology
+ */
+public class ConstraintOracleTest {
+    @Test
+    public void topologiesMatchNaiveRecompute() {
+        Random random = new Random(42);
+        for (String kind : ConstraintTopology.KINDS) {
+            for (int size : new int[] { 1, 10, 100 }) {
+                ConstraintTopology graph = ConstraintTopology.create(kind, size);
+                for (int i = 0; i < 50; i++) {
+                    graph.set(random.nextInt(1000));
+                    // read twice: the second read must hit up-to-date values
+                    assertEquals(kind + "/" + size, graph.recompute(), graph.evaluate());
+                    assertEquals(kind + "/" + size, graph.recompute(), graph.evaluate());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelPassMatchesNaiveRecompute() {
+        Random random = new Random(7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ConstraintEvaluator evaluator = new ConstraintEvaluator(pool);
+        try {
+            for (String kind : ConstraintTopology.KINDS) {
+                // many independent copies so that the pass splits into tasks
+                List<ConstraintTopology> graphs = new ArrayList<>();
+                List<Dependency<?>> outputs = new ArrayList<>();
+                for (int copy = 0; copy < 40; copy++) {
+                    ConstraintTopology graph = ConstraintTopology.create(kind, 20);
+                    graphs.add(graph);
+                    outputs.addAll(graph.outputs());
+                }
+                for (int i = 0; i < 10; i++) {
+                    for (ConstraintTopology graph : graphs) {
+                        graph.set(random.nextInt(1000));
+                    }
+                    evaluator.evaluateAll(outputs);
+                    for (Dependency<?> output : outputs) {
+                        assertFalse(kind, output.isOutOfDate());
+                    }
+                    for (ConstraintTopology graph : graphs) {
+                        assertEquals(kind, graph.recompute(), graph.evaluate());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package ui.toolkit.constraint;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ui.toolkit.graphics.object.OutlineRect;
+
+public abstract class ConstraintTopology {
+    /**
+     * ConstraintTopology class: dependency graphs shaped like real scenes,
+     * shared by the constraint benchmarks and the correctness oracle
+     * 
+     * set() changes the single input, evaluate() reads every output through
+     * the constraint engine and recompute() derives the same outputs from
+     * the input with plain arithmetic; both return a checksum of the outputs,
+     * which are only defined after the first call to set(). outputs() lists
+     * the dependencies evaluate() reads, for the eager evaluation pass
+     */
+    public static final String CHAIN = "chain";
+    public static final String FAN_OUT = "fanOut";
+    public static final String DIAMOND = "diamond";
+    public static final String GRID = "grid";
+    public static final String CYCLE = "cycle";
+
+    public static final String[] KINDS = { CHAIN, FAN_OUT, DIAMOND, GRID, CYCLE };
+
+    protected final int size;
+    protected int input = 0;
+
+    protected ConstraintTopology(int size) {
+        this.size = size;
+    }
+
+    public abstract void set(int value);
+    public abstract long evaluate();
+    public abstract long recompute();
+    public abstract List<Dependency<?>> outputs();
+
+    public static ConstraintTopology create(String kind, int size) {
+        switch (kind) {
+            case CHAIN: return new Chain(size);
+            case FAN_OUT: return new FanOut(size);
+            case DIAMOND: return new Diamond(size);
+            case GRID: return new Grid(size);
+            case CYCLE: return new Cycle(size);
+            default: throw new IllegalArgumentException("Unknown topology: " + kind);
+        }
+    }
+
+    protected static OutlineRect node() {
+        return new OutlineRect(0, 0, 10, 10, Color.BLACK, 1);
+    }
+
+    /**
+     * Long chain: node[i].x = node[i - 1].x + 1
+     */
+    private static class Chain extends ConstraintTopology {
+        private final OutlineRect[] nodes;
+
+        Chain(int size) {
+            super(size);
+            nodes = new OutlineRect[size];
+            nodes[0] = node();
+            for (int i = 1; i < size; i++) {
+                OutlineRect previous = nodes[i - 1];
+                nodes[i] = node();
+                nodes[i].setX(new Constraint<Integer>(previous.useX()) {
+                    public Integer getValue() {
+                        return previous.getX() + 1;
+                    }
+                });
+            }
+        }
+
+        public void set(int value) {
+            input = value;
+            nodes[0].setX(value);
+        }
+
+        public long evaluate() {
+            return nodes[size - 1].getX();
+        }
+
+        public List<Dependency<?>> outputs() {
+            return Arrays.asList(nodes[size - 1].useX());
+        }
+
+        public long recompute() {
+            return input + size - 1;
+        }
+    }
+
+    /**
+     * Wide fan-out: one slider value drives the position of N boxes
+     */
+    private static class FanOut extends ConstraintTopology {
+        private final OutlineRect slider = node();
+        private final OutlineRect[] boxes;
+
+        FanOut(int size) {
+            super(size);
+            boxes = new OutlineRect[size];
+            for (int i = 0; i < size; i++) {
+                int offset = i * 20;
+                boxes[i] = node();
+                boxes[i].setX(new Constraint<Integer>(slider.useX()) {
+                    public Integer getValue() {
+                        return slider.getX() * 2 + offset;
+                    }
+                });
+            }
+        }
+
+        public void set(int value) {
+            input = value;
+            slider.setX(value);
+        }
+
+        public long evaluate() {
+            long sum = 0;
+            for (OutlineRect box : boxes) {
+                sum += box.getX();
+            }
+            return sum;
+        }
+
+        public List<Dependency<?>> outputs() {
+            List<Dependency<?>> outputs = new ArrayList<>();
+            for (OutlineRect box : boxes) {
+                outputs.add(box.useX());
+            }
+            return outputs;
+        }
+
+        public long recompute() {
+            long sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += input * 2 + i * 20;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Diamond: source -> N middle nodes -> one sink summing all of them
+     */
+    private static class Diamond extends ConstraintTopology {
+        private final OutlineRect source = node();
+        private final OutlineRect[] middles;
+        private final OutlineRect sink = node();
+
+        Diamond(int size) {
+            super(size);
+            middles = new OutlineRect[size];
+            Dependency<?>[] middleXs = new Dependency<?>[size];
+            for (int i = 0; i < size; i++) {
+                int index = i;
+                middles[i] = node();
+                middles[i].setX(new Constraint<Integer>(source.useX()) {
+                    public Integer getValue() {
+                        return source.getX() + index;
+                    }
+                });
+                middleXs[i] = middles[i].useX();
+            }
+            sink.setX(new Constraint<Integer>(middleXs) {
+                public Integer getValue() {
+                    int sum = 0;
+                    for (OutlineRect middle : middles) {
+                        sum += middle.getX();
+                    }
+                    return sum;
+                }
+            });
+        }
+
+        public void set(int value) {
+            input = value;
+            source.setX(value);
+        }
+
+        public long evaluate() {
+            return sink.getX();
+        }
+
+        public List<Dependency<?>> outputs() {
+            return Arrays.asList(sink.useX());
+        }
+
+        public long recompute() {
+            long sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += input + i;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Grid of layout constraints: every cell sits right of its left neighbor
+     * and below its top neighbor, the top-left cell width is the input
+     */
+    private static class Grid extends ConstraintTopology {
+        private static final int GAP = 5;
+        private final OutlineRect[][] cells;
+        private final int n;
+
+        Grid(int size) {
+            super(size);
+            n = Math.max(2, (int) Math.sqrt(size));
+            cells = new OutlineRect[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    OutlineRect cell = cells[i][j] = node();
+                    if (j > 0) {
+                        OutlineRect left = cells[i][j - 1];
+                        cell.setX(new Constraint<Integer>(left.useX(), left.useWidth()) {
+                            public Integer getValue() {
+                                return left.getX() + left.getWidth() + GAP;
+                            }
+                        });
+                    }
+                    if (i > 0) {
+                        OutlineRect top = cells[i - 1][j];
+                        cell.setY(new Constraint<Integer>(top.useY(), top.useHeight()) {
+                            public Integer getValue() {
+                                return top.getY() + top.getHeight() + GAP;
+                            }
+                        });
+                    }
+                    if (i > 0 || j > 0) {
+                        OutlineRect origin = cells[0][0];
+                        cell.setWidth(new Constraint<Integer>(origin.useWidth()) {
+                            public Integer getValue() {
+                                return origin.getWidth();
+                            }
+                        });
+                        cell.setHeight(new Constraint<Integer>(origin.useWidth()) {
+                            public Integer getValue() {
+                                return origin.getWidth() / 2;
+                            }
+                        });
+                    }
+                }
+            }
+        }
+
+        public void set(int value) {
+            input = value;
+            cells[0][0].setWidth(value);
+            cells[0][0].setHeight(value / 2);
+        }
+
+        public long evaluate() {
+            long sum = 0;
+            for (OutlineRect[] row : cells) {
+                for (OutlineRect cell : row) {
+                    sum += cell.getX() * 31 + cell.getY();
+                }
+            }
+            return sum;
+        }
+
+        public List<Dependency<?>> outputs() {
+            List<Dependency<?>> outputs = new ArrayList<>();
+            for (OutlineRect[] row : cells) {
+                for (OutlineRect cell : row) {
+                    outputs.add(cell.useX());
+                    outputs.add(cell.useY());
+                }
+            }
+            return outputs;
+        }
+
+        public long recompute() {
+            long sum = 0;
+            int width = input, height = input / 2;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    sum += j * (width + GAP) * 31 + i * (height + GAP);
+                }
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Multi-way cycle: a.x and b.x constrain each other (b = a + 10), writes
+     * to a go through hasCycle(), N followers read b
+     */
+    private static class Cycle extends ConstraintTopology {
+        private final OutlineRect a = node();
+        private final OutlineRect b = node();
+        private final OutlineRect[] followers;
+
+        Cycle(int size) {
+            super(size);
+            a.setX(new Constraint<Integer>(b.useX()) {
+                public Integer getValue() {
+                    return b.getX() - 10;
+                }
+            });
+            b.setX(new Constraint<Integer>(a.useX()) {
+                public Integer getValue() {
+                    return a.getX() + 10;
+                }
+            });
+            a.useX().setOutOfDate(false);
+
+            followers = new OutlineRect[size];
+            for (int i = 0; i < size; i++) {
+                int offset = i;
+                followers[i] = node();
+                followers[i].setX(new Constraint<Integer>(b.useX()) {
+                    public Integer getValue() {
+                        return b.getX() + offset;
+                    }
+                });
+            }
+        }
+
+        public void set(int value) {
+            input = value;
+            a.setX(value);
+        }
+
+        public long evaluate() {
+            long sum = a.getX();
+            for (OutlineRect follower : followers) {
+                sum += follower.getX();
+            }
+            return sum;
+        }
+
+        public List<Dependency<?>> outputs() {
+            List<Dependency<?>> outputs = new ArrayList<>();
+            outputs.add(a.useX());
+            for (OutlineRect follower : followers) {
+                outputs.add(follower.useX());
+            }
+            return outputs;
+        }
+
+        public long recompute() {
+            long sum = input;
+            for (int i = 0; i < size; i++) {
+                sum += input + 10 + i;
+            }
+            return sum;
+        }
+    }
+}
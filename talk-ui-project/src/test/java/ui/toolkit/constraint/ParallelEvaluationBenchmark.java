@@ -0,0 +1,112 @@
+package ui.toolkit.constraint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ui.toolkit.graphics.object.OutlineRect;
+
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelEvaluationBenchmark {
+    /**
+     * ParallelEvaluationBenchmark class: scaling of the eager evaluation
+     * pass with the number of worker threads
+     *
+     * The scene is made of independent clusters (a chain of boxes each, like
+     * separate widgets); every operation changes all cluster inputs and
+     * brings every output up to date. work adds CPU work to each getValue()
+     * to stand in for heavier constraints such as text measurement.
+     * Compare evaluateAll across threads against evaluateSerially.
+     */
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "1000" })
+    public int clusters;
+
+    @Param({ "0", "100" })
+    public int work;
+
+    private static final int CLUSTER_SIZE = 10;
+
+    private OutlineRect[] inputs;
+    private List<Dependency<?>> outputs;
+    private ForkJoinPool pool;
+    private ConstraintEvaluator evaluator;
+    private int input = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        evaluator = new ConstraintEvaluator(pool);
+        inputs = new OutlineRect[clusters];
+        outputs = new ArrayList<>();
+        for (int i = 0; i < clusters; i++) {
+            OutlineRect previous = inputs[i] = ConstraintTopology.node();
+            for (int j = 1; j < CLUSTER_SIZE; j++) {
+                OutlineRect from = previous;
+                OutlineRect box = ConstraintTopology.node();
+                box.setX(new Constraint<Integer>(from.useX()) {
+                    public Integer getValue() {
+                        Blackhole.consumeCPU(work);
+                        return from.getX() + 1;
+                    }
+                });
+                previous = box;
+            }
+            outputs.add(previous.useX());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private void setAll() {
+        input = (input + 1) & 0xffff;
+        for (OutlineRect box : inputs) {
+            box.setX(input);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int evaluateAll() {
+        setAll();
+        return evaluator.evaluateAll(outputs);
+    }
+
+    /**
+     * Baseline: the same outputs evaluated lazily on the calling thread
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void evaluateSerially(Blackhole blackhole) {
+        setAll();
+        for (Dependency<?> output : outputs) {
+            blackhole.consume(output.evaluate());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ui.toolkit.constraint.linear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+import ui.toolkit.graphics.object.OutlineRect;
+
+/**
+ * Unit tests for the incremental linear solver and its property bindings
+ */
+public class LinearSolverTest {
+    private static final double DELTA = 1.0e-6;
+
+    @Test
+    public void strengthsResolveConflicts() {
+        LinearSolver solver = new LinearSolver();
+        Variable width = new Variable("width");
+
+        solver.addConstraint(LinearConstraint.greaterOrEqual(Expression.of(width), Expression.constant(50)));
+        solver.addConstraint(LinearConstraint.equal(Expression.of(width), Expression.constant(20))
+            .withStrength(Strength.WEAK));
+        assertEquals(50, width.getValue(), DELTA);
+
+        LinearConstraint strong = LinearConstraint.equal(Expression.of(width), Expression.constant(80))
+            .withStrength(Strength.STRONG);
+        solver.addConstraint(strong);
+        assertEquals(80, width.getValue(), DELTA);
+
+        solver.removeConstraint(strong);
+        assertEquals(50, width.getValue(), DELTA);
+
+        // required constraints that contradict each other are rejected
+        assertFalse(solver.addConstraint(
+            LinearConstraint.lessOrEqual(Expression.of(width), Expression.constant(10))));
+        assertEquals(50, width.getValue(), DELTA);
+    }
+
+    @Test
+    public void boundPropertiesFollowEdits() {
+        LinearSolver solver = new LinearSolver();
+        Variable aX = new Variable("a.x");
+        Variable bX = new Variable("b.x");
+        OutlineRect a = new OutlineRect(0, 0, 40, 20, Color.BLACK, 1);
+        OutlineRect b = new OutlineRect(0, 0, 40, 20, Color.BLACK, 1);
+        a.setX(solver.bind(aX));
+        b.setX(solver.bind(bX));
+
+        // a.right + 10 == b.left, a stays inside the window
+        solver.addConstraint(LinearConstraint.equal(
+            Expression.of(aX).plus(a.getWidth()).plus(10), Expression.of(bX)));
+        solver.addConstraint(LinearConstraint.greaterOrEqual(Expression.of(aX), Expression.constant(0)));
+        assertEquals(0, a.getX());
+        assertEquals(50, b.getX());
+
+        assertTrue(solver.addEditVariable(bX, Strength.STRONG));
+        solver.suggestValue(bX, 200);
+        assertEquals(150, a.getX());
+        assertEquals(200, b.getX());
+
+        // dragging b writes its property, which suggests a value
+        b.setX(120);
+        assertEquals(70, a.getX());
+        assertEquals(120, b.getX());
+
+        // the required bound on a wins over the drag
+        b.setX(20);
+        assertEquals(0, a.getX());
+        assertEquals(50, b.getX());
+
+        // a is not editable: writes to it are ignored
+        a.setX(300);
+        assertEquals(0, a.getX());
+    }
+}
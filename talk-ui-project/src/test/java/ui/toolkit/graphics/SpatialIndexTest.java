@@ -0,0 +1,64 @@
+package ui.toolkit.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the spatial index
+ */
+public class SpatialIndexTest {
+    @Test
+    public void queriesVisitEachIntersectingItemOnce() {
+        SpatialIndex<String> index = new SpatialIndex<>(10);
+        index.put("small", new Rectangle(5, 5, 4, 4));
+        index.put("wide", new Rectangle(0, 20, 100, 5)); // spans ten cells
+        index.put("far", new Rectangle(-500, -500, 10, 10));
+        assertEquals(3, index.size());
+
+        assertEquals(Arrays.asList("wide"), index.query(new Rectangle(40, 15, 40, 10)));
+        assertEquals(Arrays.asList("small", "wide"), sorted(index.query(new Rectangle(0, 0, 100, 30))));
+        assertTrue(index.query(new Rectangle(10, 10, 5, 5)).isEmpty());
+        // larger than the occupied grid: every item once all the same
+        assertEquals(Arrays.asList("far", "small", "wide"),
+                sorted(index.query(new Rectangle(-10000, -10000, 20000, 20000))));
+        assertTrue(index.query(new Rectangle(0, 0, 0, 0)).isEmpty());
+    }
+
+    @Test
+    public void itemsCanBeMovedAndRemoved() {
+        SpatialIndex<String> index = new SpatialIndex<>(10);
+        index.put("item", new Rectangle(0, 0, 5, 5));
+        index.put("item", new Rectangle(200, 200, 5, 5));
+        assertEquals(1, index.size());
+        assertTrue(index.query(new Rectangle(0, 0, 10, 10)).isEmpty());
+        assertEquals(Arrays.asList("item"), index.query(new Rectangle(195, 195, 10, 10)));
+        assertEquals(new Rectangle(200, 200, 5, 5), index.getBounds("item"));
+
+        assertTrue(index.remove("item"));
+        assertFalse(index.remove("item"));
+        assertFalse(index.contains("item"));
+        assertNull(index.getBounds("item"));
+        assertTrue(index.query(new Rectangle(195, 195, 10, 10)).isEmpty());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void cellSizeMustBePositive() {
+        new SpatialIndex<String>(0);
+    }
+
+    private static List<String> sorted(List<String> items) {
+        List<String> copy = new ArrayList<>(items);
+        Collections.sort(copy);
+        return copy;
+    }
+}
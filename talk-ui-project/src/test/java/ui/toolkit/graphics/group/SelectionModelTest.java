@@ -0,0 +1,129 @@
+package ui.toolkit.graphics.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import ui.toolkit.behavior.ChoiceBehavior;
+import ui.toolkit.graphics.object.selectable.SelectableFilledRect;
+import ui.toolkit.graphics.object.selectable.SelectableGraphicalObject;
+import ui.toolkit.graphics.object.selectable.SelectableOutlineRect;
+
+public class SelectionModelTest {
+    @Test
+    public void droppedGroupsAreCollected() throws InterruptedException {
+        WeakReference<SimpleGroup> first = null;
+        for (int i = 0; i < 1000; i++) {
+            SimpleGroup group = new SimpleGroup(0, 0, 100, 100);
+            SelectableOutlineRect box = new SelectableOutlineRect(0, 0, 10, 10, Color.BLACK, 1);
+            group.addChild(box);
+            box.setSelected(true);
+            assertEquals(1, group.getSelectionModel().size());
+            if (first == null) {
+                first = new WeakReference<>(group);
+            }
+        }
+        for (int i = 0; i < 10 && first.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(first.get());
+    }
+
+    @Test
+    public void selectionCanBeReadWhileItChanges() throws InterruptedException {
+        SimpleGroup group = new SimpleGroup(0, 0, 800, 400);
+        List<SelectableOutlineRect> boxes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            SelectableOutlineRect box = new SelectableOutlineRect(i * 10, 0, 10, 10, Color.BLACK, 1);
+            group.addChild(box);
+            boxes.add(box);
+        }
+        SelectionModel model = group.getSelectionModel();
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                for (int i = 0; i < 20000; i++) {
+                    int count = 0;
+                    for (SelectableGraphicalObject object : model) {
+                        assertTrue(boxes.contains(object));
+                        count++;
+                    }
+                    assertTrue(count <= boxes.size());
+                    model.getFirst();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (int round = 0; reader.isAlive(); round++) {
+            for (SelectableOutlineRect box : boxes) {
+                box.setSelected(round % 2 == 0);
+            }
+        }
+        reader.join();
+        assertNull(failure.get());
+
+        model.clear();
+        assertTrue(model.isEmpty());
+    }
+
+    @Test
+    public void selectionModelFollowsSelectedObjects() {
+        SimpleGroup group = new SimpleGroup(0, 0, 1000, 1000);
+        int[] selectCalls = { 0 };
+        List<SelectableFilledRect> rects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            SelectableFilledRect rect = new SelectableFilledRect(i % 40 * 20, i / 40 * 20, 10, 10, Color.blue) {
+                public void setSelected(boolean selected) {
+                    selectCalls[0]++;
+                    super.setSelected(selected);
+                }
+            };
+            rect.setSelected(i % 100 == 0);
+            rects.add(rect);
+            group.addChild(rect);
+        }
+        ChoiceBehavior choice = new ChoiceBehavior(ChoiceBehavior.MULTIPLE, true);
+        group.addBehavior(choice);
+        SelectionModel model = choice.getSelectionModel();
+        assertEquals(10, model.size());
+        int[] changes = { 0 };
+        model.useSelection().subscribe(m -> changes[0]++);
+
+        // kept up to date by the objects and the group, in selection order
+        rects.get(7).setSelected(true);
+        rects.get(3).setSelected(true);
+        rects.get(0).setSelected(false);
+        assertEquals(11, model.size());
+        assertEquals(3, changes[0]);
+        assertTrue(model.contains(rects.get(3)));
+        assertFalse(model.contains(rects.get(0)));
+        assertEquals(rects.get(100), model.getFirst());
+        assertEquals(rects.get(3), choice.getSelection().get(10));
+        group.removeChild(rects.get(7));
+        assertFalse(model.contains(rects.get(7)));
+        group.addChild(rects.get(7));
+        assertEquals(rects.get(7), choice.getSelection().get(10));
+
+        // clearing only touches the selected objects, and is one change
+        selectCalls[0] = 0;
+        changes[0] = 0;
+        choice.clearSelection();
+        assertEquals(11, selectCalls[0]);
+        assertEquals(1, changes[0]);
+        assertTrue(model.isEmpty());
+        assertFalse(rects.get(100).isSelected());
+    }
+}
@@ -0,0 +1,147 @@
+package ui.toolkit.graphics.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+import ui.toolkit.behavior.BehaviorEvent;
+import ui.toolkit.behavior.EventRouter;
+import ui.toolkit.behavior.InputQueue;
+import ui.toolkit.behavior.InputRecording;
+import ui.toolkit.behavior.NewPolylineBehavior;
+import ui.toolkit.behavior.ReplayDriver;
+import ui.toolkit.constraint.Constraint;
+import ui.toolkit.graphics.DamageRegion;
+import ui.toolkit.graphics.group.SimpleGroup;
+
+/**
+ * Unit tests for freehand strokes
+ */
+public class PolylineTest {
+    private static final int L = BehaviorEvent.LEFT_MOUSE_KEY;
+    private static final int NO = BehaviorEvent.NO_MODIFIER;
+
+    @Test
+    public void freehandStrokeKeepsCornersAndDrawsNewSegmentsOnly() {
+        SimpleGroup root = new SimpleGroup(0, 0, 400, 400);
+        SimpleGroup group = new SimpleGroup(0, 0, 400, 400);
+        root.addChild(group);
+        group.addBehavior(new NewPolylineBehavior(Color.black, 2, 1));
+        ReplayDriver driver = new ReplayDriver(root, 400, 400);
+
+        // straight runs of points collapse into their ends
+        InputRecording stroke = new InputRecording().add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 10, 200, 0);
+        for (int x = 11; x <= 210; x++) {
+            stroke.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, x, 200, 0);
+        }
+        for (int y = 199; y >= 100; y--) {
+            stroke.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 210, y, 0);
+        }
+        stroke.add(NO, L, BehaviorEvent.MOUSE_UP_ID, 210, 100, 0);
+        driver.replay(stroke, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(1, group.getChildren().size());
+        Polyline line = (Polyline) group.getChildren().get(0);
+        assertEquals(3, line.getPointCount());
+        assertEquals(210, line.getPointX(1));
+        assertEquals(200, line.getPointY(1), line.getTolerance());
+        assertEquals(1, line.getSegmentRenders());
+        assertTrue(line.isFinished()); // drawn as a path from the release on
+        assertEquals(new BoundaryRectangle(9, 99, 202, 102), line.getBoundingBox());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(100, 200));
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(210, 150));
+        assertEquals(Color.white.getRGB(), driver.getBufferedImage().getRGB(100, 150));
+        assertTrue(line.contains(100, 205));
+        assertTrue(line.contains(213, 150));
+        assertFalse(line.contains(100, 150));
+
+        // a zigzag keeps every corner; its segments are drawn a few times, not once per frame
+        stroke = new InputRecording().add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 10, 300, 0);
+        for (int i = 1; i <= 380; i++) {
+            stroke.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 10 + i, (i % 2 == 0) ? 300 : 320, 0);
+        }
+        stroke.add(NO, L, BehaviorEvent.MOUSE_UP_ID, 390, 300, 0);
+        driver.replay(stroke, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        Polyline zigzag = (Polyline) group.getChildren().get(1);
+        assertEquals(381, zigzag.getPointCount());
+        assertTrue(zigzag.getSegmentRenders() < 3 * 379);
+        assertTrue(zigzag.contains(200, 310));
+        assertFalse(zigzag.contains(200, 280));
+
+        // moving keeps the shape
+        zigzag.moveTo(0, 0);
+        assertEquals(0, zigzag.getBoundingBox().x);
+        assertEquals(1, zigzag.getPointX(0));
+        assertTrue(zigzag.contains(190, 10));
+        assertFalse(zigzag.contains(200, 310));
+    }
+
+    @Test
+    public void mergedMotionAddsEveryHistoricalPoint() {
+        SimpleGroup group = new SimpleGroup(0, 0, 400, 400);
+        group.addBehavior(new NewPolylineBehavior(Color.black, 2, 1));
+        EventRouter router = new EventRouter(group);
+        InputQueue queue = new InputQueue(router::route, () -> {}, 64, InputQueue.MANUAL);
+
+        queue.post(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 10, 300);
+        queue.drain();
+        // a zigzag within one frame: a single drag event carrying the other corners
+        for (int i = 1; i <= 20; i++) {
+            queue.post(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 10 + 5 * i, (i % 2 == 0) ? 300 : 320);
+        }
+        queue.drain();
+        assertEquals(19, queue.getCoalescedEvents());
+        Polyline line = (Polyline) group.getChildren().get(0);
+        assertEquals(21, line.getPointCount());
+        assertEquals(15, line.getPointX(1));
+        assertEquals(320, line.getPointY(1));
+        queue.close();
+    }
+
+    @Test
+    public void growingStrokeRedrawsItsLastSegmentOnly() {
+        SimpleGroup root = new SimpleGroup(0, 0, 400, 400);
+        SimpleGroup group = new SimpleGroup(0, 0, 400, 400);
+        root.addChild(group);
+        group.addChild(new FilledRect(300, 20, 50, 50, Color.red));
+        group.addBehavior(new NewPolylineBehavior(Color.black, 2, 1));
+        ReplayDriver driver = new ReplayDriver(root, 400, 400);
+
+        // the press adds the stroke (a whole frame), each drag only damages the end of it
+        InputRecording stroke = new InputRecording().add(NO, L, BehaviorEvent.MOUSE_DOWN_ID, 10, 200, 0);
+        for (int i = 1; i <= 50; i++) {
+            stroke.add(NO, L, BehaviorEvent.MOUSE_DRAG_ID, 10 + 4 * i, (i % 2 == 0) ? 200 : 220, 0);
+        }
+        driver.replay(stroke, ReplayDriver.AS_FAST_AS_POSSIBLE);
+        assertEquals(50, driver.getDamageRegion().getPartialFrames());
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(16, 210));
+        assertEquals(Color.black.getRGB(), driver.getBufferedImage().getRGB(208, 210));
+        assertEquals(Color.red.getRGB(), driver.getBufferedImage().getRGB(320, 40));
+        driver.replay(new InputRecording().add(NO, L, BehaviorEvent.MOUSE_UP_ID, 210, 200, 0),
+                ReplayDriver.AS_FAST_AS_POSSIBLE);
+
+        // a stroke whose points something depends on damages the whole frame
+        Polyline free = new Polyline(10, 300, Color.black, 2);
+        Polyline counted = new Polyline(10, 350, Color.black, 2);
+        group.addChild(free);
+        group.addChild(counted);
+        Text count = new Text("0", 300, 300);
+        count.setText(new Constraint<String>(counted.usePoints()) {
+            public String getValue() {
+                return String.valueOf(counted.getPointCount());
+            }
+        });
+        group.addChild(count);
+        DamageRegion damage = driver.getDamageRegion();
+        damage.take();
+        free.addPoint(50, 320);
+        assertEquals(new Rectangle(6, 296, 48, 28), damage.take());
+        counted.addPoint(50, 370);
+        assertNull(damage.take());
+    }
+}